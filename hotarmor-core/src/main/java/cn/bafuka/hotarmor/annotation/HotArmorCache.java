@@ -57,4 +57,12 @@ public @interface HotArmorCache {
      * @return 默认 true
      */
     boolean enabled() default true;
+
+    /**
+     * 降级方法名（可选）
+     * 回源熔断且没有最近已知值时调用，须与被注解方法位于同一类且参数列表相同
+     *
+     * @return 方法名，默认为空表示不降级
+     */
+    String fallbackMethod() default "";
 }
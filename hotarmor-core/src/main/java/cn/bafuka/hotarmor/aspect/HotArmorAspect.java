@@ -78,6 +78,9 @@ public class HotArmorAspect {
                 .args(joinPoint.getArgs())
                 .targetClass(joinPoint.getTarget().getClass())
                 .methodName(joinPoint.getSignature().getName())
+                .valueType(((MethodSignature) joinPoint.getSignature()).getReturnType())
+                .parameterTypes(((MethodSignature) joinPoint.getSignature()).getParameterTypes())
+                .fallbackMethod(hotArmorCache.fallbackMethod())
                 .build();
 
         // 委托给处理器
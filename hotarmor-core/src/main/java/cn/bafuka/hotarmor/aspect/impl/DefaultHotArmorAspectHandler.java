@@ -11,6 +11,11 @@ import cn.bafuka.hotarmor.exception.HotArmorLoadException;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -45,6 +50,16 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
      */
     private final ConsistencyManager consistencyManager;
 
+    /**
+     * 回源熔断器注册表（可选）
+     */
+    private volatile LoadCircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * 已解析的降级方法缓存
+     */
+    private final Map<String, Method> fallbackMethods = new ConcurrentHashMap<>();
+
     public DefaultHotArmorAspectHandler(L1CacheEngine<Object> l1CacheEngine,
                                        L2NoiseFilter l2NoiseFilter,
                                        L3HotspotDetector l3HotspotDetector,
@@ -57,6 +72,15 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
         this.consistencyManager = consistencyManager;
     }
 
+    /**
+     * 设置回源熔断器注册表
+     *
+     * @param circuitBreakerRegistry 熔断器注册表
+     */
+    public void setCircuitBreakerRegistry(LoadCircuitBreakerRegistry circuitBreakerRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
     @Override
     public Object handleCache(ProceedingJoinPoint joinPoint, HotArmorContext context) throws Throwable {
         if (context == null || context.getResource() == null) {
@@ -71,11 +95,21 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
         // L1: 检查本地缓存
         Object value = l1CacheEngine.get(context);
         if (value != null) {
+            // 热点 key 命中 L1 后不再经过 L3，单独计入速率分布
+            l3HotspotDetector.recordAccess(context);
             log.debug("L1 缓存命中，直接返回: resource={}, key={}",
                     context.getResource(), context.getKey());
             return value;
         }
 
+        // 粘性热点：近期判定为热点的 key 跳过 L2/L3，直接重新晋升
+        if (l1CacheEngine.isRecentlyHot(context)) {
+            l3HotspotDetector.recordAccess(context);
+            log.debug("近期热点，跳过 L2/L3 直接晋升: resource={}, key={}",
+                    context.getResource(), context.getKey());
+            return loadFromSource(joinPoint, context, true);
+        }
+
         // L2: 噪音过滤
         boolean shouldPassToL3 = l2NoiseFilter.shouldPass(context);
         if (!shouldPassToL3) {
@@ -139,8 +173,19 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
      * @throws Throwable 异常
      */
     private Object loadFromSource(ProceedingJoinPoint joinPoint, HotArmorContext context, boolean promoteToL1) throws Throwable {
+        context.setHotspot(promoteToL1);
+
+        // 回源熔断：熔断期间不访问数据库，直接返回兜底结果
+        LoadCircuitBreakerRegistry registry = circuitBreakerRegistry;
+        LoadCircuitBreakerRegistry.Breaker breaker = registry != null ? registry.get(context.getResource()) : null;
+        if (breaker != null && !breaker.allowRequest()) {
+            return serveDegraded(joinPoint, context, breaker, null);
+        }
+        LoadOutcome outcome = new LoadOutcome();
+
         // L4: 安全回源（从 Redis 或 DB 加载）
         Function<Object, Object> dbLoader = key -> {
+            outcome.attempted = true;
             try {
                 long startTime = System.currentTimeMillis();
                 // 调用原方法从数据库加载
@@ -153,6 +198,8 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
                 return result;
 
             } catch (Throwable e) {
+                outcome.failureReason = determineFailureReason(e);
+
                 // 保留原始异常，添加详细上下文
                 log.error("数据库加载失败: resource={}, key={}, method={}.{}, error={}",
                         context.getResource(),
@@ -168,13 +215,32 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
                                 context.getResource(), context.getKey()),
                         e,
                         context,
-                        determineFailureReason(e)
+                        outcome.failureReason
                 );
             }
         };
 
         try {
-            Object value = l4SafeLoader.load(context, dbLoader);
+            Object value;
+            try {
+                value = l4SafeLoader.load(context, dbLoader);
+            } finally {
+                recordOutcome(breaker, outcome);
+            }
+
+            if (breaker != null) {
+                if (value != null) {
+                    breaker.rememberValue(context.getKey(), value);
+                } else if (outcome.failureReason != null) {
+                    // 数据库加载失败被 L4 吞掉时，熔断已打开（或配置允许）则返回最近已知值而不是空值
+                    Object lastKnown = breaker.getLastKnownValue(context.getKey());
+                    if (lastKnown != null) {
+                        log.warn("回源失败，返回最近已知值: resource={}, key={}, reason={}",
+                                context.getResource(), context.getKey(), outcome.failureReason);
+                        return lastKnown;
+                    }
+                }
+            }
 
             // 如果是热点，晋升到 L1
             if (promoteToL1 && value != null) {
@@ -188,12 +254,107 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
             return value;
 
         } catch (HotArmorLoadException e) {
+            if (e.getReason() == HotArmorLoadException.LoadFailureReason.RATE_LIMITED
+                    || e.getReason() == HotArmorLoadException.LoadFailureReason.CONCURRENCY_LIMITED) {
+                // 超出集群回源速率或并发限制：与熔断相同，优先返回旧值或降级结果
+                return serveDegraded(joinPoint, context, breaker, e);
+            }
             // 根据失败原因做差异化处理
             handleLoadException(e);
             throw e;
         }
     }
 
+    /**
+     * 记录本次回源结果到熔断器
+     */
+    private void recordOutcome(LoadCircuitBreakerRegistry.Breaker breaker, LoadOutcome outcome) {
+        if (breaker == null) {
+            return;
+        }
+        if (!outcome.attempted) {
+            breaker.onNotAttempted();
+        } else if (outcome.failureReason != null) {
+            breaker.onFailure(outcome.failureReason);
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    /**
+     * 熔断或超出集群回源速率、并发限制时的兜底返回
+     * 依次尝试：最近已知值（开启熔断时） -> Redis 中的值（含逻辑过期的旧值） -> 降级方法
+     *
+     * @param joinPoint 切点
+     * @param context   上下文
+     * @param breaker   熔断器，未开启为 null
+     * @param cause     回源被拒绝的异常，熔断时为 null
+     * @return 兜底结果
+     * @throws Throwable 降级方法抛出的异常，或无任何兜底结果时抛出 cause（熔断时为 CIRCUIT_OPEN）
+     */
+    private Object serveDegraded(ProceedingJoinPoint joinPoint, HotArmorContext context,
+                                 LoadCircuitBreakerRegistry.Breaker breaker, HotArmorLoadException cause) throws Throwable {
+        String scene = cause == null ? "回源熔断中" : "回源受限";
+        Object value = breaker != null ? breaker.getLastKnownValue(context.getKey()) : null;
+        if (value != null) {
+            log.debug("{}，返回最近已知值: resource={}, key={}", scene, context.getResource(), context.getKey());
+            return value;
+        }
+
+        value = l4SafeLoader.getFromRedis(context);
+        if (value != null) {
+            log.debug("{}，返回 Redis 中的值: resource={}, key={}", scene, context.getResource(), context.getKey());
+            return value;
+        }
+
+        Method fallback = resolveFallbackMethod(context);
+        if (fallback != null) {
+            log.debug("{}，调用降级方法: resource={}, key={}, method={}",
+                    scene, context.getResource(), context.getKey(), fallback.getName());
+            try {
+                return fallback.invoke(joinPoint.getTarget(), joinPoint.getArgs());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        HotArmorLoadException e = cause != null ? cause : new HotArmorLoadException(
+                String.format("Circuit breaker is open: resource=%s, key=%s", context.getResource(), context.getKey()),
+                null, context, HotArmorLoadException.LoadFailureReason.CIRCUIT_OPEN);
+        handleLoadException(e);
+        throw e;
+    }
+
+    /**
+     * 解析 @HotArmorCache#fallbackMethod 指定的降级方法（同一类、参数列表相同）
+     *
+     * @param context 上下文
+     * @return 降级方法，未配置返回 null
+     */
+    private Method resolveFallbackMethod(HotArmorContext context) {
+        String name = context.getFallbackMethod();
+        Class<?> targetClass = context.getTargetClass();
+        if (name == null || name.isEmpty() || targetClass == null) {
+            return null;
+        }
+
+        Class<?>[] parameterTypes = context.getParameterTypes() != null ? context.getParameterTypes() : new Class<?>[0];
+        String cacheKey = targetClass.getName() + "#" + name + Arrays.toString(parameterTypes);
+        return fallbackMethods.computeIfAbsent(cacheKey, k -> {
+            for (Class<?> type = targetClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                try {
+                    Method method = type.getDeclaredMethod(name, parameterTypes);
+                    method.setAccessible(true);
+                    return method;
+                } catch (NoSuchMethodException ignored) {
+                    // 继续查找父类
+                }
+            }
+            throw new IllegalStateException(String.format("Fallback method %s%s not found in %s",
+                    name, Arrays.toString(parameterTypes), targetClass.getName()));
+        });
+    }
+
     /**
      * 根据异常类型判断失败原因
      *
@@ -275,6 +436,27 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
                         e.getMessage());
                 break;
 
+            case CIRCUIT_OPEN:
+                // 回源已熔断且没有可用的兜底结果
+                log.warn("回源已熔断且无兜底结果: resource={}, key={}",
+                        e.getContext().getResource(),
+                        e.getContext().getKey());
+                break;
+
+            case CONCURRENCY_LIMITED:
+                // 回源并发已达上限且没有可用的兜底结果
+                log.warn("回源并发受限且无兜底结果: resource={}, key={}",
+                        e.getContext().getResource(),
+                        e.getContext().getKey());
+                break;
+
+            case RATE_LIMITED:
+                // 超出集群回源速率且没有可用的兜底结果
+                log.warn("回源超出集群速率限制且无兜底结果: resource={}, key={}",
+                        e.getContext().getResource(),
+                        e.getContext().getKey());
+                break;
+
             default:
                 log.error("未知错误: resource={}, key={}, message={}",
                         e.getContext().getResource(),
@@ -299,4 +481,19 @@ public class DefaultHotArmorAspectHandler implements HotArmorAspectHandler {
             consistencyManager.invalidateCache(context);
         }
     }
+
+    /**
+     * 单次回源的结果（由数据库加载函数填充）
+     */
+    private static class LoadOutcome {
+        /**
+         * 是否实际调用了数据库
+         */
+        private volatile boolean attempted;
+
+        /**
+         * 失败原因，成功为 null
+         */
+        private volatile HotArmorLoadException.LoadFailureReason failureReason;
+    }
 }
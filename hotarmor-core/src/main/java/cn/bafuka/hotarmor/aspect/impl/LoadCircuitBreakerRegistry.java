@@ -0,0 +1,272 @@
+package cn.bafuka.hotarmor.aspect.impl;
+
+import cn.bafuka.hotarmor.consistency.InvalidationListener;
+import cn.bafuka.hotarmor.control.RuleChangeListener;
+import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.exception.HotArmorLoadException;
+import cn.bafuka.hotarmor.model.HotArmorRule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回源熔断器注册表
+ * 按资源维护熔断器，随规则变更创建、更新或移除
+ *
+ * 熔断器状态：
+ * <pre>
+ * CLOSED --(窗口内失败率超过阈值)--> OPEN --(openDurationMs 到期)--> HALF_OPEN
+ * HALF_OPEN --(halfOpenProbes 个探测全部成功)--> CLOSED
+ * HALF_OPEN --(任一探测失败)--> OPEN
+ * </pre>
+ *
+ * 同时作为缓存失效监听器，key 被删除或收到失效广播时清除对应的最近已知值
+ */
+@Slf4j
+public class LoadCircuitBreakerRegistry implements RuleChangeListener, InvalidationListener {
+
+    /**
+     * 资源 -> 熔断器
+     */
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * 获取资源的熔断器
+     *
+     * @param resource 资源名称
+     * @return 熔断器，未启用返回 null
+     */
+    public Breaker get(String resource) {
+        return resource == null ? null : breakers.get(resource);
+    }
+
+    @Override
+    public void onRuleAdded(HotArmorRule rule) {
+        apply(rule);
+    }
+
+    @Override
+    public void onRuleUpdated(HotArmorRule oldRule, HotArmorRule newRule) {
+        apply(newRule);
+    }
+
+    @Override
+    public void onRuleRemoved(HotArmorRule rule) {
+        breakers.remove(rule.getResource());
+    }
+
+    @Override
+    public void onInvalidate(HotArmorContext context) {
+        Breaker breaker = context != null ? get(context.getResource()) : null;
+        if (breaker != null) {
+            breaker.forgetValue(context.getKey());
+        }
+    }
+
+    private void apply(HotArmorRule rule) {
+        HotArmorRule.CircuitBreakerConfig config = rule.getCircuitBreakerConfig();
+        if (config == null || !config.isEnabled()) {
+            breakers.remove(rule.getResource());
+            return;
+        }
+
+        Breaker existing = breakers.get(rule.getResource());
+        if (existing != null && existing.config.getLastKnownValueSize() == config.getLastKnownValueSize()
+                && existing.config.getLastKnownValueTtlMs() == config.getLastKnownValueTtlMs()) {
+            // 保留熔断状态和最近已知值，仅替换参数
+            existing.config = config;
+            existing.failureReasons = EnumSet.copyOf(config.getFailureReasons());
+        } else {
+            breakers.put(rule.getResource(), new Breaker(rule.getResource(), config));
+        }
+        log.info("回源熔断配置已更新: resource={}, config={}", rule.getResource(), config);
+    }
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 单个资源的回源熔断器
+     */
+    public static class Breaker {
+
+        private final String resource;
+
+        private volatile HotArmorRule.CircuitBreakerConfig config;
+
+        private volatile EnumSet<HotArmorLoadException.LoadFailureReason> failureReasons;
+
+        /**
+         * 最近已知值（按数量和写入时间淘汰）
+         */
+        private final Cache<Object, Object> lastKnownValues;
+
+        private volatile State state = State.CLOSED;
+
+        private long windowStart = System.currentTimeMillis();
+        private int requests;
+        private int failures;
+
+        private long openedAt;
+        private int probesInFlight;
+        private int probeSuccesses;
+
+        Breaker(String resource, HotArmorRule.CircuitBreakerConfig config) {
+            this.resource = resource;
+            this.config = config;
+            this.failureReasons = EnumSet.copyOf(config.getFailureReasons());
+            this.lastKnownValues = Caffeine.newBuilder()
+                    .maximumSize(config.getLastKnownValueSize())
+                    .expireAfterWrite(config.getLastKnownValueTtlMs(), TimeUnit.MILLISECONDS)
+                    .build();
+        }
+
+        /**
+         * 是否放行本次回源
+         * OPEN 到期后转为 HALF_OPEN，半开状态下最多放行 halfOpenProbes 个并发探测
+         *
+         * @return true 放行
+         */
+        public boolean allowRequest() {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    if (System.currentTimeMillis() - openedAt < config.getOpenDurationMs()) {
+                        return false;
+                    }
+                    state = State.HALF_OPEN;
+                    probesInFlight = 0;
+                    probeSuccesses = 0;
+                    log.info("回源熔断进入半开状态: resource={}", resource);
+                }
+                if (state == State.HALF_OPEN) {
+                    if (probesInFlight + probeSuccesses >= config.getHalfOpenProbes()) {
+                        return false;
+                    }
+                    probesInFlight++;
+                }
+                return true;
+            }
+        }
+
+        /**
+         * 记录一次成功的回源
+         */
+        public void onSuccess() {
+            record(false);
+        }
+
+        /**
+         * 放行后未实际访问数据库（Redis 命中或合并到其他线程的回源），仅释放半开探测名额
+         */
+        public synchronized void onNotAttempted() {
+            if (state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+            }
+        }
+
+        /**
+         * 记录一次失败的回源，不在 failureReasons 中的原因按成功处理
+         *
+         * @param reason 失败原因
+         */
+        public void onFailure(HotArmorLoadException.LoadFailureReason reason) {
+            record(reason != null && failureReasons.contains(reason));
+        }
+
+        private synchronized void record(boolean failed) {
+            long now = System.currentTimeMillis();
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight > 0) {
+                    probesInFlight--;
+                }
+                if (failed) {
+                    open(now);
+                } else if (++probeSuccesses >= config.getHalfOpenProbes()) {
+                    state = State.CLOSED;
+                    resetWindow(now);
+                    log.info("回源熔断关闭: resource={}", resource);
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+
+            if (now - windowStart >= config.getWindowMs()) {
+                resetWindow(now);
+            }
+            requests++;
+            if (failed) {
+                failures++;
+                if (requests >= config.getMinimumRequests()
+                        && failures >= requests * config.getFailureRateThreshold()) {
+                    open(now);
+                }
+            }
+        }
+
+        private void open(long now) {
+            log.warn("回源熔断打开: resource={}, requests={}, failures={}, openDurationMs={}",
+                    resource, requests, failures, config.getOpenDurationMs());
+            state = State.OPEN;
+            openedAt = now;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+
+        private void resetWindow(long now) {
+            windowStart = now;
+            requests = 0;
+            failures = 0;
+        }
+
+        /**
+         * 记录最近已知值
+         */
+        public void rememberValue(Object key, Object value) {
+            if (key != null && value != null) {
+                lastKnownValues.put(key, value);
+            }
+        }
+
+        /**
+         * 获取可用于兜底的最近已知值
+         * 只在熔断打开或半开期间返回，配置 serveLastKnownOnFailure 时熔断关闭也返回
+         *
+         * @return 值，不存在或当前不允许返回旧值时返回 null
+         */
+        public Object getLastKnownValue(Object key) {
+            if (key == null || (state == State.CLOSED && !config.isServeLastKnownOnFailure())) {
+                return null;
+            }
+            return lastKnownValues.getIfPresent(key);
+        }
+
+        /**
+         * 清除最近已知值（key 为 null 时清除全部）
+         */
+        public void forgetValue(Object key) {
+            if (key == null) {
+                lastKnownValues.invalidateAll();
+            } else {
+                lastKnownValues.invalidate(key);
+            }
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package cn.bafuka.hotarmor.autoconfigure;
 import cn.bafuka.hotarmor.aspect.HotArmorAspect;
 import cn.bafuka.hotarmor.aspect.HotArmorAspectHandler;
 import cn.bafuka.hotarmor.aspect.impl.DefaultHotArmorAspectHandler;
+import cn.bafuka.hotarmor.aspect.impl.LoadCircuitBreakerRegistry;
 import cn.bafuka.hotarmor.config.HotArmorProperties;
 import cn.bafuka.hotarmor.consistency.BroadcastNotifier;
 import cn.bafuka.hotarmor.consistency.ConsistencyManager;
@@ -12,6 +13,7 @@ import cn.bafuka.hotarmor.consistency.impl.DefaultConsistencyManager;
 import cn.bafuka.hotarmor.consistency.impl.RedisBroadcastNotifier;
 import cn.bafuka.hotarmor.consistency.impl.RocketMQDelayedDeleteConsumer;
 import cn.bafuka.hotarmor.consistency.impl.RocketMQDelayedDeleteProducer;
+import cn.bafuka.hotarmor.control.RuleChangeListener;
 import cn.bafuka.hotarmor.control.RuleManager;
 import cn.bafuka.hotarmor.control.impl.DefaultRuleManager;
 import cn.bafuka.hotarmor.dataplane.L1CacheEngine;
@@ -19,24 +21,36 @@ import cn.bafuka.hotarmor.dataplane.L2NoiseFilter;
 import cn.bafuka.hotarmor.dataplane.L3HotspotDetector;
 import cn.bafuka.hotarmor.dataplane.L4SafeLoader;
 import cn.bafuka.hotarmor.dataplane.impl.CaffeineL1CacheEngine;
+import cn.bafuka.hotarmor.dataplane.impl.ClusterL3HotspotDetector;
 import cn.bafuka.hotarmor.dataplane.impl.CaffeineL2NoiseFilter;
+import cn.bafuka.hotarmor.dataplane.impl.RedisBatchExecutor;
+import cn.bafuka.hotarmor.dataplane.impl.RedisHealthTracker;
+import cn.bafuka.hotarmor.dataplane.impl.RedisWriteBehind;
 import cn.bafuka.hotarmor.dataplane.impl.RedissonL4SafeLoader;
 import cn.bafuka.hotarmor.dataplane.impl.SentinelL3HotspotDetector;
 import cn.bafuka.hotarmor.spi.ConfigSource;
+import cn.bafuka.hotarmor.spi.LockStrategy;
+import cn.bafuka.hotarmor.spi.ValueCodec;
 import cn.bafuka.hotarmor.spi.impl.LocalYamlConfigSource;
+import cn.bafuka.hotarmor.spi.impl.ProtostuffValueCodec;
+import cn.bafuka.hotarmor.spi.impl.SetNxLockStrategy;
 import cn.bafuka.hotarmor.spel.DefaultSpelExpressionParser;
 import cn.bafuka.hotarmor.spel.SpelExpressionParser;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
@@ -92,15 +106,101 @@ public class HotArmorAutoConfiguration {
         return detector;
     }
 
+    /**
+     * L3 集群热点探测器（包装 Sentinel 探测器，按资源配置决定是否启用集群汇总）
+     */
+    @Bean
+    @Primary
+    @ConditionalOnMissingBean
+    public ClusterL3HotspotDetector clusterL3HotspotDetector(
+            SentinelL3HotspotDetector sentinelL3HotspotDetector,
+            RedisTemplate<String, Object> redisTemplate) {
+        return new ClusterL3HotspotDetector(sentinelL3HotspotDetector, redisTemplate);
+    }
+
+    /**
+     * L4 Redis 微批执行器（首次提交时才启动批处理线程）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisBatchExecutor redisBatchExecutor(RedisTemplate<String, Object> redisTemplate,
+                                                 HotArmorProperties properties) {
+        return new RedisBatchExecutor(redisTemplate,
+                properties.getL4BatchWindowMicros(), properties.getL4BatchMaxSize());
+    }
+
+    /**
+     * L4 Redis 异步回写器（首次提交时才启动写入线程）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisWriteBehind redisWriteBehind(RedisTemplate<String, Object> redisTemplate,
+                                             HotArmorProperties properties) {
+        return new RedisWriteBehind(redisTemplate,
+                properties.getL4WriteBehindQueueSize(), properties.getL4WriteBehindBatchSize());
+    }
+
+    /**
+     * Redis 健康跟踪器（hotarmor.redis-health-enabled=true 时创建）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "hotarmor", name = "redis-health-enabled", havingValue = "true")
+    public RedisHealthTracker redisHealthTracker(RedisTemplate<String, Object> redisTemplate,
+                                                 HotArmorProperties properties) {
+        return new RedisHealthTracker(redisTemplate,
+                properties.getRedisHealthWindowMs(), properties.getRedisHealthMinCalls(),
+                properties.getRedisHealthErrorRateThreshold(), properties.getRedisHealthSlowCallMs(),
+                properties.getRedisHealthSlowRateThreshold(), properties.getRedisHealthProbeIntervalMs());
+    }
+
+    /**
+     * 二进制值编解码器（hotarmor.value-codec=protostuff 且 Protostuff 在类路径上时创建）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(name = "io.protostuff.runtime.RuntimeSchema")
+    @ConditionalOnProperty(prefix = "hotarmor", name = "value-codec", havingValue = "protostuff")
+    public ValueCodec protostuffValueCodec() {
+        return new ProtostuffValueCodec();
+    }
+
+    /**
+     * 轻量回源锁策略（hotarmor.l4-lock-type=setnx 时创建，否则 L4 使用 Redisson 可重入锁）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "hotarmor", name = "l4-lock-type", havingValue = "setnx")
+    public LockStrategy setNxLockStrategy(RedisTemplate<String, Object> redisTemplate) {
+        return new SetNxLockStrategy(redisTemplate);
+    }
+
     /**
      * L4 安全回源器
+     * 应用定义了名为 hotArmorReplicaRedisTemplate 的 RedisTemplate（连接工厂配置为读从节点）时，
+     * 开启 readFromReplicaEnabled 的资源使用它读取；存在 Redis 健康跟踪器时开启 Redis 不可用自动旁路
      */
     @Bean
     @ConditionalOnMissingBean
     public RedissonL4SafeLoader<Object> redissonL4SafeLoader(
             RedissonClient redissonClient,
-            RedisTemplate<String, Object> redisTemplate) {
-        return new RedissonL4SafeLoader<>(redissonClient, redisTemplate);
+            RedisTemplate<String, Object> redisTemplate,
+            RedisBatchExecutor redisBatchExecutor,
+            RedisWriteBehind redisWriteBehind,
+            HotArmorProperties properties,
+            ObjectProvider<RedisHealthTracker> redisHealthTracker,
+            ObjectProvider<ValueCodec> valueCodec,
+            ObjectProvider<LockStrategy> lockStrategy,
+            @Qualifier("hotArmorReplicaRedisTemplate") ObjectProvider<RedisTemplate<String, Object>> replicaRedisTemplate) {
+        RedissonL4SafeLoader<Object> loader = new RedissonL4SafeLoader<>(redissonClient, redisTemplate);
+        loader.setBatchExecutor(redisBatchExecutor);
+        loader.setWriteBehind(redisWriteBehind);
+        valueCodec.ifAvailable(loader::setValueCodec);
+        lockStrategy.ifAvailable(loader::setLockStrategy);
+        replicaRedisTemplate.ifAvailable(loader::setReplicaRedisTemplate);
+        redisHealthTracker.ifAvailable(tracker -> loader.setRedisHealthTracker(tracker,
+                properties.getRedisBypassLocalTtlSeconds(), properties.getRedisBypassLocalMaxSize()));
+        return loader;
     }
 
     /**
@@ -136,8 +236,12 @@ public class HotArmorAutoConfiguration {
     public RedisBroadcastNotifier redisBroadcastNotifier(
             RedisTemplate<String, Object> redisTemplate,
             RedisMessageListenerContainer listenerContainer,
-            HotArmorProperties properties) {
-        return new RedisBroadcastNotifier(redisTemplate, listenerContainer, properties.getBroadcastChannel());
+            HotArmorProperties properties,
+            ObjectProvider<ValueCodec> valueCodec) {
+        RedisBroadcastNotifier notifier = new RedisBroadcastNotifier(
+                redisTemplate, listenerContainer, properties.getBroadcastChannel());
+        valueCodec.ifAvailable(notifier::setValueCodec);
+        return notifier;
     }
 
     /**
@@ -160,6 +264,18 @@ public class HotArmorAutoConfiguration {
         return manager;
     }
 
+    /**
+     * 回源熔断器注册表（作为规则变更监听器注册到规则管理器，作为失效监听器注册到一致性管理器）
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LoadCircuitBreakerRegistry loadCircuitBreakerRegistry(
+            ObjectProvider<DefaultConsistencyManager> consistencyManager) {
+        LoadCircuitBreakerRegistry registry = new LoadCircuitBreakerRegistry();
+        consistencyManager.ifAvailable(manager -> manager.addInvalidationListener(registry));
+        return registry;
+    }
+
     /**
      * 规则管理器
      */
@@ -170,7 +286,8 @@ public class HotArmorAutoConfiguration {
             CaffeineL2NoiseFilter l2NoiseFilter,
             SentinelL3HotspotDetector l3HotspotDetector,
             RedissonL4SafeLoader<?> l4SafeLoader,
-            DefaultConsistencyManager consistencyManager) {
+            DefaultConsistencyManager consistencyManager,
+            ObjectProvider<RuleChangeListener> ruleChangeListeners) {
         DefaultRuleManager manager = new DefaultRuleManager(
                 l1CacheEngine,
                 l2NoiseFilter,
@@ -178,6 +295,7 @@ public class HotArmorAutoConfiguration {
                 l4SafeLoader,
                 consistencyManager
         );
+        ruleChangeListeners.orderedStream().forEach(manager::addListener);
         manager.initialize();
         return manager;
     }
@@ -213,14 +331,17 @@ public class HotArmorAutoConfiguration {
             L2NoiseFilter l2NoiseFilter,
             L3HotspotDetector l3HotspotDetector,
             L4SafeLoader<Object> l4SafeLoader,
-            ConsistencyManager consistencyManager) {
-        return new DefaultHotArmorAspectHandler(
+            ConsistencyManager consistencyManager,
+            LoadCircuitBreakerRegistry loadCircuitBreakerRegistry) {
+        DefaultHotArmorAspectHandler handler = new DefaultHotArmorAspectHandler(
                 l1CacheEngine,
                 l2NoiseFilter,
                 l3HotspotDetector,
                 l4SafeLoader,
                 consistencyManager
         );
+        handler.setCircuitBreakerRegistry(loadCircuitBreakerRegistry);
+        return handler;
     }
 
     /**
@@ -34,4 +34,79 @@ public class HotArmorProperties {
      * Redis 广播频道
      */
     private String broadcastChannel = "hotarmor:invalidate";
+
+    /**
+     * 缓存值编解码器（serializer: 使用 RedisTemplate 的值序列化器；protostuff: 二进制编码）
+     */
+    private String valueCodec = "serializer";
+
+    /**
+     * L4 Redis 微批攒批窗口（微秒）
+     */
+    private long l4BatchWindowMicros = 200;
+
+    /**
+     * L4 Redis 微批单批最大操作数
+     */
+    private int l4BatchMaxSize = 128;
+
+    /**
+     * L4 Redis 异步回写队列容量（队列满时回写转为同步执行）
+     */
+    private int l4WriteBehindQueueSize = 10000;
+
+    /**
+     * L4 Redis 异步回写单批最大写入数
+     */
+    private int l4WriteBehindBatchSize = 128;
+
+    /**
+     * L4 回源锁策略（redisson: Redisson 可重入锁；setnx: SET NX PX 令牌锁，回写与解锁合并为一次 Lua 调用）
+     */
+    private String l4LockType = "redisson";
+
+    /**
+     * 是否启用 Redis 健康跟踪：Redis 错误率或慢调用率超过阈值时 L4 旁路 Redis 和回源锁，探测恢复后重新启用
+     */
+    private boolean redisHealthEnabled = false;
+
+    /**
+     * 健康统计滚动窗口（毫秒）
+     */
+    private long redisHealthWindowMs = 10000;
+
+    /**
+     * 窗口内至少多少次调用才做判定
+     */
+    private long redisHealthMinCalls = 20;
+
+    /**
+     * 错误率阈值（0-1）
+     */
+    private double redisHealthErrorRateThreshold = 0.5;
+
+    /**
+     * 慢调用耗时阈值（毫秒）
+     */
+    private long redisHealthSlowCallMs = 200;
+
+    /**
+     * 慢调用率阈值（0-1）
+     */
+    private double redisHealthSlowRateThreshold = 0.8;
+
+    /**
+     * Redis 不可用期间的探测间隔（毫秒）
+     */
+    private long redisHealthProbeIntervalMs = 1000;
+
+    /**
+     * Redis 不可用期间本地替代缓存的过期时间（秒），应长于 L1 过期时间
+     */
+    private long redisBypassLocalTtlSeconds = 300;
+
+    /**
+     * Redis 不可用期间本地替代缓存的最大条数
+     */
+    private long redisBypassLocalMaxSize = 10000;
 }
@@ -33,6 +33,16 @@ public class BroadcastMessage implements Serializable {
      */
     private Object value;
 
+    /**
+     * 编码后的附加数据（配置了值编解码器时使用，此时 value 为空）
+     */
+    private byte[] valueBytes;
+
+    /**
+     * 附加数据的类型（类全名，用于解码 valueBytes）
+     */
+    private String valueType;
+
     /**
      * 消息类型枚举
      */
@@ -52,13 +62,20 @@ public class BroadcastMessage implements Serializable {
      * 创建失效消息
      */
     public static BroadcastMessage invalidate(HotArmorContext context) {
-        return new BroadcastMessage(MessageType.INVALIDATE, context, null);
+        return new BroadcastMessage(MessageType.INVALIDATE, context, null, null, null);
     }
 
     /**
      * 创建晋升消息
      */
     public static BroadcastMessage promote(HotArmorContext context, Object value) {
-        return new BroadcastMessage(MessageType.PROMOTE, context, value);
+        return new BroadcastMessage(MessageType.PROMOTE, context, value, null, null);
+    }
+
+    /**
+     * 创建晋升消息（附加数据已编码）
+     */
+    public static BroadcastMessage promoteEncoded(HotArmorContext context, byte[] valueBytes, String valueType) {
+        return new BroadcastMessage(MessageType.PROMOTE, context, null, valueBytes, valueType);
     }
 }
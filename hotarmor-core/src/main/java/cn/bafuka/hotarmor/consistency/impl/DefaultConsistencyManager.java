@@ -11,8 +11,10 @@ import cn.bafuka.hotarmor.dataplane.L4SafeLoader;
 import cn.bafuka.hotarmor.model.HotArmorRule;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -59,6 +61,11 @@ public class DefaultConsistencyManager implements ConsistencyManager {
                 return thread;
             });
 
+    /**
+     * 本地失效监听器（本节点删除缓存或收到失效广播时回调）
+     */
+    private final List<InvalidationListener> invalidationListeners = new CopyOnWriteArrayList<>();
+
     /**
      * 是否已初始化
      */
@@ -118,8 +125,8 @@ public class DefaultConsistencyManager implements ConsistencyManager {
         }
         invalidateCache(context);
 
-        // 2. 发送延迟删除消息（如果启用）
-        if (config.isEnableDelayedDoubleDelete()) {
+        // 2. 发送延迟删除消息（如果启用；租约模式下失效已作废未完成的回填，无需第二次删除）
+        if (config.isEnableDelayedDoubleDelete() && !l4SafeLoader.isLeaseEnabled(context.getResource())) {
             if (delayedDeleteProducer != null) {
                 // 使用 RocketMQ 实现延迟双删
                 delayedDeleteProducer.sendDelayedDelete(context, config.getDelayTimeMs());
@@ -166,6 +173,28 @@ public class DefaultConsistencyManager implements ConsistencyManager {
 
         // 删除 Redis
         l4SafeLoader.deleteFromRedis(context);
+
+        notifyInvalidationListeners(context);
+    }
+
+    /**
+     * 注册本地失效监听器，本节点删除缓存或收到失效广播时回调
+     *
+     * @param listener 监听器
+     */
+    public void addInvalidationListener(InvalidationListener listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void notifyInvalidationListeners(HotArmorContext context) {
+        for (InvalidationListener listener : invalidationListeners) {
+            try {
+                listener.onInvalidate(context);
+            } catch (Exception e) {
+                log.warn("本地失效监听器执行失败: resource={}, key={}",
+                        context.getResource(), context.getKey(), e);
+            }
+        }
     }
 
     @Override
@@ -282,6 +311,7 @@ public class DefaultConsistencyManager implements ConsistencyManager {
 
             // 清理 L1 本地缓存
             l1CacheEngine.invalidate(context);
+            notifyInvalidationListeners(context);
 
             log.debug("L1 缓存已清理: resource={}, key={}",
                     context.getResource(), context.getKey());
@@ -310,7 +340,8 @@ public class DefaultConsistencyManager implements ConsistencyManager {
                 log.info("热点数据已晋升到 L1（使用广播值）: resource={}, key={}",
                         context.getResource(), context.getKey());
             } else {
-                // 如果没有携带值，从 Redis 加载后晋升
+                // 如果没有携带值，从 Redis 加载后晋升（按热点读取，可分散到副本）
+                context.setHotspot(true);
                 Object cachedValue = l4SafeLoader.getFromRedis(context);
                 if (cachedValue != null) {
                     ((L1CacheEngine<Object>) l1CacheEngine).put(context, cachedValue);
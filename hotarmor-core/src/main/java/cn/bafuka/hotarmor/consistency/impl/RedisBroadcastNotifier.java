@@ -5,6 +5,7 @@ import cn.bafuka.hotarmor.consistency.BroadcastNotifier;
 import cn.bafuka.hotarmor.consistency.InvalidationListener;
 import cn.bafuka.hotarmor.consistency.PromotionListener;
 import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.spi.ValueCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
@@ -13,6 +14,9 @@ import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 广播通知器实现
  * 基于 Redis Pub/Sub
@@ -50,6 +54,11 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
      */
     private InternalMessageListener internalListener;
 
+    /**
+     * 值编解码器（可选，用于晋升广播中的缓存值）
+     */
+    private volatile ValueCodec valueCodec;
+
     public RedisBroadcastNotifier(RedisTemplate<String, Object> redisTemplate,
                                   RedisMessageListenerContainer listenerContainer,
                                   String channel) {
@@ -58,6 +67,19 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
         this.channel = channel;
     }
 
+    /**
+     * 设置值编解码器
+     * 设置后晋升广播中的缓存值使用该编解码器编码，接收端需配置相同的编解码器
+     *
+     * @param valueCodec 值编解码器
+     */
+    public void setValueCodec(ValueCodec valueCodec) {
+        this.valueCodec = valueCodec;
+        if (internalListener != null) {
+            registerListener();
+        }
+    }
+
     @Override
     public void publish(HotArmorContext context) {
         if (context == null || context.getResource() == null) {
@@ -86,7 +108,10 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
 
         try {
             // 发布晋升消息
-            BroadcastMessage message = BroadcastMessage.promote(context, value);
+            ValueCodec codec = valueCodec;
+            BroadcastMessage message = codec != null && value != null
+                    ? BroadcastMessage.promoteEncoded(context, codec.encode(value, value.getClass()), value.getClass().getName())
+                    : BroadcastMessage.promote(context, value);
             redisTemplate.convertAndSend(channel, message);
 
             log.info("已发送热点晋升广播: resource={}, key={}, channel={}",
@@ -147,7 +172,8 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
         this.internalListener = new InternalMessageListener(
                 invalidationListener,
                 promotionListener,
-                redisTemplate
+                redisTemplate,
+                valueCodec
         );
 
         // 订阅频道
@@ -165,13 +191,21 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
         private final InvalidationListener invalidationListener;
         private final PromotionListener promotionListener;
         private final RedisSerializer<?> valueSerializer;
+        private final ValueCodec valueCodec;
+
+        /**
+         * 类名 -> 类型缓存
+         */
+        private final Map<String, Class<?>> typeCache = new ConcurrentHashMap<>();
 
         public InternalMessageListener(InvalidationListener invalidationListener,
                                       PromotionListener promotionListener,
-                                      RedisTemplate<String, Object> redisTemplate) {
+                                      RedisTemplate<String, Object> redisTemplate,
+                                      ValueCodec valueCodec) {
             this.invalidationListener = invalidationListener;
             this.promotionListener = promotionListener;
             this.valueSerializer = redisTemplate.getValueSerializer();
+            this.valueCodec = valueCodec;
         }
 
         @Override
@@ -189,7 +223,7 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
                             handleInvalidate(context);
                             break;
                         case PROMOTE:
-                            handlePromote(context, broadcastMsg.getValue());
+                            handlePromote(context, decodeValue(broadcastMsg));
                             break;
                         default:
                             log.warn("未知的广播消息类型: {}", broadcastMsg.getType());
@@ -207,6 +241,25 @@ public class RedisBroadcastNotifier implements BroadcastNotifier {
             }
         }
 
+        /**
+         * 解析晋升消息中的缓存值
+         */
+        private Object decodeValue(BroadcastMessage message) throws ClassNotFoundException {
+            if (message.getValueBytes() == null) {
+                return message.getValue();
+            }
+            if (valueCodec == null) {
+                log.warn("接收到已编码的晋升广播，但未配置值编解码器，忽略缓存值: type={}", message.getValueType());
+                return null;
+            }
+            Class<?> type = typeCache.get(message.getValueType());
+            if (type == null) {
+                type = Class.forName(message.getValueType(), false, Thread.currentThread().getContextClassLoader());
+                typeCache.put(message.getValueType(), type);
+            }
+            return valueCodec.decode(message.getValueBytes(), type);
+        }
+
         /**
          * 处理缓存失效消息
          */
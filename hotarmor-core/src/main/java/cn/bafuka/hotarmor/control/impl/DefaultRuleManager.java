@@ -283,6 +283,15 @@ public class DefaultRuleManager implements RuleManager {
             validateL3Config(rule.getResource(), rule.getL3Config());
         }
 
+        // 验证晋升/降级阈值的迟滞区间
+        if (rule.getL1Config() != null && rule.getL1Config().isStickyEnabled()
+                && rule.getL3Config() != null && rule.getL3Config().isEnabled()
+                && rule.getL1Config().getDemoteQpsThreshold() >= rule.getL3Config().getQpsThreshold()) {
+            log.warn("L1 demoteQpsThreshold ({}) >= L3 qpsThreshold ({}) for resource {}, hot keys may flap",
+                    rule.getL1Config().getDemoteQpsThreshold(), rule.getL3Config().getQpsThreshold(),
+                    rule.getResource());
+        }
+
         // 验证 L4 配置
         if (rule.getL4Config() != null) {
             validateL4Config(rule.getResource(), rule.getL4Config());
@@ -293,6 +302,11 @@ public class DefaultRuleManager implements RuleManager {
             validateConsistencyConfig(rule.getResource(), rule.getConsistencyConfig());
         }
 
+        // 验证熔断配置
+        if (rule.getCircuitBreakerConfig() != null && rule.getCircuitBreakerConfig().isEnabled()) {
+            validateCircuitBreakerConfig(rule.getResource(), rule.getCircuitBreakerConfig());
+        }
+
         log.debug("规则验证通过: resource={}", rule.getResource());
     }
 
@@ -321,6 +335,26 @@ public class DefaultRuleManager implements RuleManager {
             throw new IllegalArgumentException(
                     String.format("L1 timeUnit cannot be null for resource %s", resource));
         }
+
+        if (l1.isStickyEnabled()) {
+            if (l1.getStickySeconds() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L1 stickySeconds must be positive for resource %s, got: %d",
+                                resource, l1.getStickySeconds()));
+            }
+
+            if (l1.getDemoteCheckIntervalSeconds() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L1 demoteCheckIntervalSeconds must be positive for resource %s, got: %d",
+                                resource, l1.getDemoteCheckIntervalSeconds()));
+            }
+
+            if (l1.getDemoteQpsThreshold() < 0) {
+                throw new IllegalArgumentException(
+                        String.format("L1 demoteQpsThreshold cannot be negative for resource %s, got: %.2f",
+                                resource, l1.getDemoteQpsThreshold()));
+            }
+        }
     }
 
     /**
@@ -339,6 +373,18 @@ public class DefaultRuleManager implements RuleManager {
                             resource, l2.getThreshold()));
         }
 
+        if (l2.getSampleRate() <= 0 || l2.getSampleRate() > 1) {
+            throw new IllegalArgumentException(
+                    String.format("L2 sampleRate must be in (0, 1] for resource %s, got: %.4f",
+                            resource, l2.getSampleRate()));
+        }
+
+        if (l2.isAdaptiveSampling() && l2.getSampleTargetQps() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("L2 sampleTargetQps must be positive for resource %s, got: %.2f",
+                            resource, l2.getSampleTargetQps()));
+        }
+
         if (l2.getWindowSeconds() > 3600) {
             log.warn("L2 windowSeconds is very large ({}s) for resource {}, may cause memory issues",
                     l2.getWindowSeconds(), resource);
@@ -365,6 +411,60 @@ public class DefaultRuleManager implements RuleManager {
             log.warn("L3 qpsThreshold is very low ({}) for resource {}, may cause frequent hotspot detection",
                     l3.getQpsThreshold(), resource);
         }
+
+        if (l3.isClusterEnabled()) {
+            if (l3.getClusterTopK() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L3 clusterTopK must be positive for resource %s, got: %d",
+                                resource, l3.getClusterTopK()));
+            }
+
+            if (l3.getClusterSyncIntervalMs() < 100) {
+                throw new IllegalArgumentException(
+                        String.format("L3 clusterSyncIntervalMs must be at least 100 for resource %s, got: %d",
+                                resource, l3.getClusterSyncIntervalMs()));
+            }
+        }
+
+        if (l3.isTrendEnabled()) {
+            if (l3.getTrendBucketMs() < 10) {
+                throw new IllegalArgumentException(
+                        String.format("L3 trendBucketMs must be at least 10 for resource %s, got: %d",
+                                resource, l3.getTrendBucketMs()));
+            }
+
+            if (l3.getTrendSlopeThreshold() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L3 trendSlopeThreshold must be positive for resource %s, got: %.2f",
+                                resource, l3.getTrendSlopeThreshold()));
+            }
+
+            if (l3.getTrendMinQps() < 0) {
+                throw new IllegalArgumentException(
+                        String.format("L3 trendMinQps cannot be negative for resource %s, got: %.2f",
+                                resource, l3.getTrendMinQps()));
+            }
+        }
+
+        if (l3.isAdaptiveEnabled()) {
+            if (l3.getAdaptivePercentile() <= 0 || l3.getAdaptivePercentile() >= 100) {
+                throw new IllegalArgumentException(
+                        String.format("L3 adaptivePercentile must be in (0, 100) for resource %s, got: %.3f",
+                                resource, l3.getAdaptivePercentile()));
+            }
+
+            if (l3.getAdaptiveMinQps() <= 0 || l3.getAdaptiveMaxQps() < l3.getAdaptiveMinQps()) {
+                throw new IllegalArgumentException(
+                        String.format("L3 adaptive bounds invalid for resource %s: min=%.2f, max=%.2f",
+                                resource, l3.getAdaptiveMinQps(), l3.getAdaptiveMaxQps()));
+            }
+
+            if (l3.getAdaptiveIntervalSeconds() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L3 adaptiveIntervalSeconds must be positive for resource %s, got: %d",
+                                resource, l3.getAdaptiveIntervalSeconds()));
+            }
+        }
     }
 
     /**
@@ -398,6 +498,104 @@ public class DefaultRuleManager implements RuleManager {
             log.warn("L4 lockLeaseTimeMs ({}) < lockWaitTimeMs ({}) for resource {}, may cause lock issues",
                     l4.getLockLeaseTimeMs(), l4.getLockWaitTimeMs(), resource);
         }
+
+        if (l4.isCompressEnabled() && l4.getCompressThresholdBytes() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 compressThresholdBytes must be positive for resource %s, got: %d",
+                            resource, l4.getCompressThresholdBytes()));
+        }
+
+        if (l4.isEarlyRefreshEnabled() && l4.getEarlyRefreshBeta() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 earlyRefreshBeta must be greater than 0 for resource %s", resource));
+        }
+
+        if (l4.isLogicalExpireEnabled() && l4.getLogicalExpireHardTtlSeconds() < l4.getRedisTtlSeconds()) {
+            throw new IllegalArgumentException(
+                    String.format("L4 logicalExpireHardTtlSeconds (%d) must not be less than redisTtlSeconds (%d) for resource %s",
+                            l4.getLogicalExpireHardTtlSeconds(), l4.getRedisTtlSeconds(), resource));
+        }
+
+        if (l4.isConcurrencyLimitEnabled()) {
+            if (l4.getConcurrencyMinLimit() <= 0 || l4.getConcurrencyMaxLimit() < l4.getConcurrencyMinLimit()) {
+                throw new IllegalArgumentException(
+                        String.format("L4 concurrency limits must satisfy 0 < min <= max for resource %s, got: min=%d, max=%d",
+                                resource, l4.getConcurrencyMinLimit(), l4.getConcurrencyMaxLimit()));
+            }
+            if (l4.getConcurrencyQueueTimeoutMs() < 0) {
+                throw new IllegalArgumentException(
+                        String.format("L4 concurrencyQueueTimeoutMs cannot be negative for resource %s, got: %d",
+                                resource, l4.getConcurrencyQueueTimeoutMs()));
+            }
+        }
+
+        if (l4.isLeaseEnabled() && (l4.getLeaseTtlMs() <= 0 || l4.getLeaseRetryMs() <= 0)) {
+            throw new IllegalArgumentException(
+                    String.format("L4 leaseTtlMs and leaseRetryMs must be positive for resource %s, got: %d, %d",
+                            resource, l4.getLeaseTtlMs(), l4.getLeaseRetryMs()));
+        }
+
+        if (l4.getLockFrequencyThreshold() < 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 lockFrequencyThreshold cannot be negative for resource %s, got: %d",
+                            resource, l4.getLockFrequencyThreshold()));
+        }
+
+        if (l4.getAdmissionFrequencyThreshold() < 0 || l4.getAdmissionColdTtlSeconds() < 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 admissionFrequencyThreshold and admissionColdTtlSeconds cannot be negative for resource %s, got: %d, %d",
+                            resource, l4.getAdmissionFrequencyThreshold(), l4.getAdmissionColdTtlSeconds()));
+        }
+
+        if (l4.isErrorCacheEnabled() && l4.getErrorCacheTtlMs() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 errorCacheTtlMs must be positive for resource %s, got: %d",
+                            resource, l4.getErrorCacheTtlMs()));
+        }
+
+        if (l4.isClusterRateLimitEnabled()) {
+            if (l4.getClusterRateLimitPermitsPerSecond() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L4 clusterRateLimitPermitsPerSecond must be positive for resource %s, got: %s",
+                                resource, l4.getClusterRateLimitPermitsPerSecond()));
+            }
+            if (l4.getClusterRateLimitBurst() < 0 || l4.getClusterRateLimitPrefetch() <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("L4 clusterRateLimitBurst must be >= 0 and clusterRateLimitPrefetch must be positive for resource %s, got: %d, %d",
+                                resource, l4.getClusterRateLimitBurst(), l4.getClusterRateLimitPrefetch()));
+            }
+        }
+
+        if (l4.getHotReplicaCount() < 0 || l4.getHotReplicaCount() > 64) {
+            throw new IllegalArgumentException(
+                    String.format("L4 hotReplicaCount must be in [0, 64] for resource %s, got: %d",
+                            resource, l4.getHotReplicaCount()));
+        }
+
+        if (l4.getReplicaReadAfterWriteMs() < 0 || l4.getReplicaReadAfterWriteMs() > 10000) {
+            throw new IllegalArgumentException(
+                    String.format("L4 replicaReadAfterWriteMs must be in [0, 10000] for resource %s, got: %d",
+                            resource, l4.getReplicaReadAfterWriteMs()));
+        }
+
+        if (l4.isRedisHedgeEnabled() || l4.isDbHedgeEnabled()) {
+            if (l4.getHedgeDelayPercentile() <= 0 || l4.getHedgeDelayPercentile() >= 100) {
+                throw new IllegalArgumentException(
+                        String.format("L4 hedgeDelayPercentile must be in (0, 100) for resource %s, got: %s",
+                                resource, l4.getHedgeDelayPercentile()));
+            }
+            if (l4.getHedgeMinDelayMs() < 0 || l4.getHedgeBudgetPercent() < 1 || l4.getHedgeBudgetPercent() > 50) {
+                throw new IllegalArgumentException(
+                        String.format("L4 hedgeMinDelayMs must be >= 0 and hedgeBudgetPercent must be in [1, 50] for resource %s, got: %d, %d",
+                                resource, l4.getHedgeMinDelayMs(), l4.getHedgeBudgetPercent()));
+            }
+        }
+
+        if (l4.getValueReadyTimeoutMs() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("L4 valueReadyTimeoutMs must be positive for resource %s, got: %d",
+                            resource, l4.getValueReadyTimeoutMs()));
+        }
     }
 
     /**
@@ -416,6 +614,35 @@ public class DefaultRuleManager implements RuleManager {
         }
     }
 
+    /**
+     * 验证熔断配置
+     */
+    private void validateCircuitBreakerConfig(String resource, HotArmorRule.CircuitBreakerConfig breaker) {
+        if (breaker.getFailureRateThreshold() <= 0 || breaker.getFailureRateThreshold() > 1) {
+            throw new IllegalArgumentException(
+                    String.format("CircuitBreaker failureRateThreshold must be in (0, 1] for resource %s, got: %s",
+                            resource, breaker.getFailureRateThreshold()));
+        }
+
+        if (breaker.getMinimumRequests() <= 0 || breaker.getWindowMs() <= 0
+                || breaker.getOpenDurationMs() <= 0 || breaker.getHalfOpenProbes() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("CircuitBreaker minimumRequests, windowMs, openDurationMs and halfOpenProbes must be positive for resource %s",
+                            resource));
+        }
+
+        if (breaker.getLastKnownValueSize() < 0 || breaker.getLastKnownValueTtlMs() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("CircuitBreaker lastKnownValueSize must be non-negative and lastKnownValueTtlMs must be positive for resource %s",
+                            resource));
+        }
+
+        if (breaker.getFailureReasons() == null || breaker.getFailureReasons().isEmpty()) {
+            throw new IllegalArgumentException(
+                    String.format("CircuitBreaker failureReasons cannot be empty for resource %s", resource));
+        }
+    }
+
     /**
      * 应用规则（首次加载）
      *
@@ -442,6 +669,7 @@ public class DefaultRuleManager implements RuleManager {
                     rule.getL3Config().getQpsThreshold(),
                     rule.getL3Config().getDurationInSec()
             );
+            l3HotspotDetector.registerConfig(resource, rule.getL3Config());
         }
 
         // 应用 L4 配置
@@ -469,12 +697,18 @@ public class DefaultRuleManager implements RuleManager {
         if (needRebuildL1(oldRule.getL1Config(), newRule.getL1Config())) {
             log.info("重建 L1 cache for resource: {}", resource);
             l1CacheEngine.rebuildCache(resource, newRule.getL1Config());
+        } else if (newRule.getL1Config() != null) {
+            // 粘性热点配置无需重建缓存，原地生效（保留已晋升的热点 key）
+            l1CacheEngine.getOrCreateCache(resource, newRule.getL1Config());
         }
 
         // 比对 L2 配置
         if (needRebuildL2(oldRule.getL2Config(), newRule.getL2Config())) {
             log.info("重建 L2 counter for resource: {}", resource);
             l2NoiseFilter.rebuildCounter(resource, newRule.getL2Config());
+        } else if (newRule.getL2Config() != null) {
+            // 阈值、采样等配置无需重建计数器，直接替换
+            l2NoiseFilter.getOrCreateCounter(resource, newRule.getL2Config());
         }
 
         // 比对 L3 配置（热更新）
@@ -487,6 +721,11 @@ public class DefaultRuleManager implements RuleManager {
             );
         }
 
+        // 更新 L3 扩展配置（趋势探测等）
+        if (newRule.getL3Config() != null) {
+            l3HotspotDetector.registerConfig(resource, newRule.getL3Config());
+        }
+
         // 更新 L4 配置
         if (newRule.getL4Config() != null) {
             l4SafeLoader.registerConfig(resource, newRule.getL4Config());
@@ -510,7 +749,7 @@ public class DefaultRuleManager implements RuleManager {
             return true;
         }
 
-        // 容量或 TTL 变化需要重建
+        // 容量或 TTL 变化需要重建；粘性热点配置原地生效
         return oldConfig.getMaximumSize() != newConfig.getMaximumSize()
                 || oldConfig.getExpireAfterWrite() != newConfig.getExpireAfterWrite()
                 || !oldConfig.getTimeUnit().equals(newConfig.getTimeUnit());
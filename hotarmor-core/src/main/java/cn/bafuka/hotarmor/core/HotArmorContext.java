@@ -39,4 +39,41 @@ public class HotArmorContext {
      * 目标方法名
      */
     private String methodName;
+
+    /**
+     * 缓存值的声明类型（被缓存方法的返回类型，供二进制值编解码器使用）
+     */
+    private Class<?> valueType;
+
+    /**
+     * 方法参数类型（用于解析降级方法）
+     */
+    private Class<?>[] parameterTypes;
+
+    /**
+     * 降级方法名（@HotArmorCache#fallbackMethod）
+     */
+    private String fallbackMethod;
+
+    /**
+     * 采样权重（L2 采样计数时设置，一次采样访问代表的实际访问次数）
+     */
+    @Builder.Default
+    private int sampleWeight = 1;
+
+    /**
+     * 访问频率估计（L2 计数窗口内的访问次数，由 L2 设置），-1 表示未知
+     */
+    @Builder.Default
+    private long accessFrequency = -1;
+
+    /**
+     * 是否判定为热点（本次回源会晋升到 L1）
+     */
+    private boolean hotspot;
+
+    /**
+     * 本次数据库回源耗时（毫秒），由 L4 回源时记录，用于概率提前刷新
+     */
+    private long loadCostMs;
 }
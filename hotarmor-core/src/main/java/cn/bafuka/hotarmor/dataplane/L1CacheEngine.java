@@ -40,6 +40,18 @@ public interface L1CacheEngine<V> {
      */
     void invalidateResource(String resource);
 
+    /**
+     * 判断 key 是否处于热点状态（近期晋升过且尚未降温）
+     * 处于热点状态的 key 在 L1 未命中时可跳过 L2/L3 直接重新晋升
+     * 默认不跟踪热点状态，始终返回 false
+     *
+     * @param context 上下文信息
+     * @return true 表示近期判定为热点
+     */
+    default boolean isRecentlyHot(HotArmorContext context) {
+        return false;
+    }
+
     /**
      * 获取命中率等统计信息
      *
@@ -16,6 +16,15 @@ public interface L3HotspotDetector {
      */
     boolean isHotspot(HotArmorContext context);
 
+    /**
+     * 记录一次未经过 isHotspot 判定的访问（L1 命中、粘性热点直接晋升）
+     * 热点 key 进入 L1 后不再经过 L3，需要通过该方法继续参与速率分布统计；默认不做处理
+     *
+     * @param context 上下文信息
+     */
+    default void recordAccess(HotArmorContext context) {
+    }
+
     /**
      * 更新 Sentinel 规则
      *
@@ -52,4 +52,15 @@ public interface L4SafeLoader<V> {
      * @return Redis 键
      */
     String getRedisKey(HotArmorContext context);
+
+    /**
+     * 资源是否启用租约回填
+     * 启用后删除缓存会同时作废未完成的回填租约，不会再回填失效前读到的旧值，无需延迟双删
+     *
+     * @param resource 资源名称
+     * @return true 启用
+     */
+    default boolean isLeaseEnabled(String resource) {
+        return false;
+    }
 }
@@ -0,0 +1,172 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制器（单个资源的数据库回源）
+ * 按观测到的回源耗时动态调整并发上限（梯度算法）：
+ *
+ * <pre>
+ * gradient = clamp(longRtt / sampleRtt, 0.5, 1.0)
+ * newLimit = limit * gradient + sqrt(limit)
+ * </pre>
+ *
+ * 回源耗时相对长期均值上升时收缩上限，平稳时按 sqrt(limit) 缓慢增长；
+ * 回源失败或排队超时按乘性减小（AIMD），避免缓存大面积失效时打满数据库连接池
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 长期 RTT 的指数平滑系数
+     */
+    private static final double LONG_RTT_ALPHA = 0.05;
+
+    /**
+     * 新旧上限的平滑系数
+     */
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    /**
+     * 失败时的乘性减小系数
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private volatile int minLimit;
+    private volatile int maxLimit;
+
+    /**
+     * 当前并发上限（浮点，便于平滑增长）
+     */
+    private double limit;
+
+    /**
+     * 正在执行的回源数
+     */
+    private int inFlight;
+
+    /**
+     * 长期平均 RTT（纳秒），0 表示尚未采样
+     */
+    private double longRttNanos;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 更新上下限（规则变更时调用，保留当前状态）
+     */
+    public void reconfigure(int minLimit, int maxLimit) {
+        lock.lock();
+        try {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.limit = Math.max(minLimit, Math.min(maxLimit, limit));
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取一个回源许可，达到上限时最多排队等待 timeoutMs
+     *
+     * @param timeoutMs 排队超时（毫秒），0 表示不排队
+     * @return true 获取成功，false 排队超时
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean acquire(long timeoutMs) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    // 排队超时说明下游已饱和，同样视为拥塞信号
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放许可并根据本次回源结果调整上限
+     *
+     * @param rttNanos 回源耗时（纳秒）
+     * @param success  是否成功
+     */
+    public void release(long rttNanos, boolean success) {
+        lock.lock();
+        try {
+            int inFlightAtRelease = inFlight;
+            inFlight--;
+
+            if (!success) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else if (rttNanos > 0) {
+                longRttNanos = longRttNanos == 0
+                        ? rttNanos
+                        : longRttNanos * (1 - LONG_RTT_ALPHA) + rttNanos * LONG_RTT_ALPHA;
+
+                // 并发远低于上限时样本不能反映上限是否合适，不增长
+                if (inFlightAtRelease * 2 >= limit) {
+                    double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / rttNanos));
+                    double newLimit = limit * gradient + Math.sqrt(limit);
+                    newLimit = limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+                    limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+                }
+            }
+
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正在执行的回源数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 累计被拒绝的回源数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
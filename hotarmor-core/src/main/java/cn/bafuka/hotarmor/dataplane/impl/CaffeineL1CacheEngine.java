@@ -9,16 +9,26 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * L1 本地缓存引擎实现
- * 基于 Caffeine 的高性能本地缓存
+ * 基于 Caffeine 的高性能本地缓存，可选按 key 跟踪热点状态（粘性热点 + 迟滞降级）
  *
  * @param <V> 缓存值类型
  */
 @Slf4j
 public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
 
+    /**
+     * 单个资源最多跟踪的热点状态数量
+     */
+    private static final int MAX_HOT_STATES = 100000;
+
     /**
      * 多资源缓存容器
      * Key: resource 名称
@@ -26,6 +36,28 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
      */
     private final Map<String, Cache<Object, V>> cacheMap = new ConcurrentHashMap<>();
 
+    /**
+     * 配置缓存
+     */
+    private final Map<String, HotArmorRule.L1CacheConfig> configMap = new ConcurrentHashMap<>();
+
+    /**
+     * 热点状态容器（仅启用粘性热点的资源）
+     * Key: resource 名称
+     * Value: key -> 热点状态
+     */
+    private final Map<String, Cache<Object, HotKeyState>> hotStateMap = new ConcurrentHashMap<>();
+
+    /**
+     * 各资源的降级检查任务
+     */
+    private final Map<String, ScheduledFuture<?>> demoteTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 降级检查调度器（首次启用粘性热点时创建）
+     */
+    private volatile ScheduledExecutorService demoteScheduler;
+
     /**
      * 获取或创建指定资源的缓存实例
      *
@@ -34,6 +66,7 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
      * @return Caffeine Cache 实例
      */
     public Cache<Object, V> getOrCreateCache(String resource, HotArmorRule.L1CacheConfig config) {
+        configureHotState(resource, config);
         return cacheMap.computeIfAbsent(resource, k -> buildCache(config));
     }
 
@@ -68,6 +101,8 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
             oldCache.invalidateAll();
             oldCache.cleanUp();
         }
+        hotStateMap.remove(resource);
+        configureHotState(resource, config);
         cacheMap.put(resource, buildCache(config));
     }
 
@@ -83,6 +118,7 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
         }
 
         V value = cache.getIfPresent(context.getKey());
+        recordAccess(context);
         if (value != null) {
             log.debug("L1 缓存命中: resource={}, key={}", context.getResource(), context.getKey());
         } else {
@@ -104,6 +140,7 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
         }
 
         cache.put(context.getKey(), value);
+        markHot(context);
         log.debug("L1 缓存写入: resource={}, key={}", context.getResource(), context.getKey());
     }
 
@@ -130,9 +167,28 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
         }
 
         cache.invalidateAll();
+        Cache<Object, HotKeyState> hotStates = hotStateMap.get(resource);
+        if (hotStates != null) {
+            hotStates.invalidateAll();
+        }
         log.info("L1 缓存全部失效: resource={}", resource);
     }
 
+    @Override
+    public boolean isRecentlyHot(HotArmorContext context) {
+        if (context == null || context.getResource() == null) {
+            return false;
+        }
+
+        Cache<Object, HotKeyState> hotStates = hotStateMap.get(context.getResource());
+        if (hotStates == null) {
+            return false;
+        }
+
+        HotKeyState state = hotStates.getIfPresent(context.getKey());
+        return state != null && state.hot;
+    }
+
     @Override
     public String getStats(String resource) {
         Cache<Object, V> cache = cacheMap.get(resource);
@@ -159,4 +215,152 @@ public class CaffeineL1CacheEngine<V> implements L1CacheEngine<V> {
     public Map<String, Cache<Object, V>> getAllCaches() {
         return cacheMap;
     }
+
+    /**
+     * 执行一次降级检查
+     * 热点 key 在检查周期内的访问 QPS 低于降级阈值时，标记为冷数据并从 L1 驱逐
+     * 由调度器周期调用，也可手动触发（用于测试或运维）
+     *
+     * @param resource 资源名称
+     */
+    public void demoteColdKeys(String resource) {
+        HotArmorRule.L1CacheConfig config = configMap.get(resource);
+        Cache<Object, HotKeyState> hotStates = hotStateMap.get(resource);
+        Cache<Object, V> cache = cacheMap.get(resource);
+        if (config == null || hotStates == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int demoted = 0;
+        for (Map.Entry<Object, HotKeyState> entry : hotStates.asMap().entrySet()) {
+            HotKeyState state = entry.getValue();
+            if (!state.hot) {
+                continue;
+            }
+
+            double elapsedSeconds = Math.max(now - state.windowStart, 1) / 1000.0;
+            double qps = state.accesses.sumThenReset() / elapsedSeconds;
+            state.windowStart = now;
+
+            if (qps < config.getDemoteQpsThreshold()) {
+                hotStates.invalidate(entry.getKey());
+                if (cache != null) {
+                    cache.invalidate(entry.getKey());
+                }
+                demoted++;
+                log.debug("L1 热点降级（冷数据驱逐）: resource={}, key={}, qps={}", resource, entry.getKey(), qps);
+            }
+        }
+
+        if (demoted > 0) {
+            log.info("L1 降级检查完成: resource={}, demoted={}", resource, demoted);
+        }
+    }
+
+    /**
+     * 关闭降级检查调度器
+     */
+    public void shutdown() {
+        if (demoteScheduler != null) {
+            demoteScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 根据配置启用或关闭粘性热点跟踪
+     *
+     * @param resource 资源名称
+     * @param config   L1 配置
+     */
+    private synchronized void configureHotState(String resource, HotArmorRule.L1CacheConfig config) {
+        configMap.put(resource, config);
+
+        ScheduledFuture<?> oldTask = demoteTasks.remove(resource);
+        if (oldTask != null) {
+            oldTask.cancel(false);
+        }
+
+        if (!config.isStickyEnabled()) {
+            hotStateMap.remove(resource);
+            return;
+        }
+
+        Cache<Object, HotKeyState> hotStates = hotStateMap.computeIfAbsent(resource, k -> Caffeine.newBuilder()
+                .maximumSize(MAX_HOT_STATES)
+                .expireAfterAccess(config.getStickySeconds(), TimeUnit.SECONDS)
+                .build());
+        // 热更新 stickySeconds 时原地调整过期时间，保留已跟踪的热点状态
+        hotStates.policy().expireAfterAccess()
+                .ifPresent(expiration -> expiration.setExpiresAfter(config.getStickySeconds(), TimeUnit.SECONDS));
+
+        if (demoteScheduler == null) {
+            demoteScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "hotarmor-l1-demote");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        long interval = config.getDemoteCheckIntervalSeconds();
+        demoteTasks.put(resource, demoteScheduler.scheduleAtFixedRate(() -> {
+            try {
+                demoteColdKeys(resource);
+            } catch (Exception e) {
+                log.error("L1 降级检查失败: resource={}", resource, e);
+            }
+        }, interval, interval, TimeUnit.SECONDS));
+
+        log.info("启用 L1 粘性热点: resource={}, stickySeconds={}, demoteQpsThreshold={}, checkInterval={}s",
+                resource, config.getStickySeconds(), config.getDemoteQpsThreshold(), interval);
+    }
+
+    /**
+     * 记录一次访问（仅对已跟踪的热点 key 计数）
+     */
+    private void recordAccess(HotArmorContext context) {
+        Cache<Object, HotKeyState> hotStates = hotStateMap.get(context.getResource());
+        if (hotStates == null) {
+            return;
+        }
+
+        HotKeyState state = hotStates.getIfPresent(context.getKey());
+        if (state != null) {
+            state.accesses.increment();
+        }
+    }
+
+    /**
+     * 写入 L1 即视为晋升，标记为热点
+     */
+    private void markHot(HotArmorContext context) {
+        Cache<Object, HotKeyState> hotStates = hotStateMap.get(context.getResource());
+        if (hotStates == null) {
+            return;
+        }
+
+        HotKeyState state = hotStates.get(context.getKey(), k -> new HotKeyState());
+        state.hot = true;
+    }
+
+    /**
+     * 单个 key 的热点状态
+     */
+    private static class HotKeyState {
+
+        /**
+         * 当前检查周期内的访问次数（含 L1 命中与未命中）
+         */
+        private final LongAdder accesses = new LongAdder();
+
+        /**
+         * 当前检查周期开始时间
+         */
+        private volatile long windowStart = System.currentTimeMillis();
+
+        /**
+         * 是否处于热点状态
+         */
+        private volatile boolean hot;
+    }
 }
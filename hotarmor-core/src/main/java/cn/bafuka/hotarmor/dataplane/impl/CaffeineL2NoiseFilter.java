@@ -9,12 +9,17 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * L2 噪音过滤器实现
  * 基于轻量级计数器，过滤冷门长尾流量，保护 Sentinel
+ *
+ * 支持采样计数：极高 QPS 下只对 1/weight 的访问更新计数器，命中采样的访问按 weight 加权，
+ * 未命中采样的访问直接判定为不通过（不进入 L3），权重通过上下文传递给 L3 折算阈值
  */
 @Slf4j
 public class CaffeineL2NoiseFilter implements L2NoiseFilter {
@@ -31,6 +36,18 @@ public class CaffeineL2NoiseFilter implements L2NoiseFilter {
      */
     private final Map<String, HotArmorRule.L2FilterConfig> configMap = new ConcurrentHashMap<>();
 
+    /**
+     * 自适应采样状态
+     * Key: resource 名称
+     * Value: 采样状态
+     */
+    private final Map<String, SamplingState> samplingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 自适应采样的流量统计窗口（毫秒）
+     */
+    private static final long SAMPLING_WINDOW_MS = 1000;
+
     /**
      * 获取或创建计数器缓存
      *
@@ -74,6 +91,7 @@ public class CaffeineL2NoiseFilter implements L2NoiseFilter {
             oldCounter.cleanUp();
         }
         counterMap.put(resource, buildCounter(config));
+        samplingMap.remove(resource);
     }
 
     @Override
@@ -93,9 +111,19 @@ public class CaffeineL2NoiseFilter implements L2NoiseFilter {
             return false;
         }
 
-        // 原子递增计数器
+        // 采样：未命中采样的访问不更新计数器
+        int weight = sampleWeight(context.getResource(), config);
+        if (weight > 1 && ThreadLocalRandom.current().nextInt(weight) != 0) {
+            AtomicLong sampled = counter.getIfPresent(context.getKey());
+            context.setAccessFrequency(sampled != null ? sampled.get() : 0);
+            return false;
+        }
+        context.setSampleWeight(weight);
+
+        // 原子递增计数器（按采样权重）
         AtomicLong count = counter.get(context.getKey(), k -> new AtomicLong(0));
-        long currentCount = count.incrementAndGet();
+        long currentCount = count.addAndGet(weight);
+        context.setAccessFrequency(currentCount);
 
         boolean pass = currentCount >= config.getThreshold();
 
@@ -110,6 +138,69 @@ public class CaffeineL2NoiseFilter implements L2NoiseFilter {
         return pass;
     }
 
+    /**
+     * 计算当前采样权重（1/采样率，取整）
+     *
+     * @param resource 资源名称
+     * @param config   L2 配置
+     * @return 采样权重，1 表示全量计数
+     */
+    private int sampleWeight(String resource, HotArmorRule.L2FilterConfig config) {
+        if (!config.isAdaptiveSampling()) {
+            return toWeight(config.getSampleRate());
+        }
+
+        SamplingState state = samplingMap.computeIfAbsent(resource, k -> new SamplingState());
+        state.arrivals.increment();
+
+        long now = System.currentTimeMillis();
+        long elapsed = now - state.windowStart;
+        if (elapsed >= SAMPLING_WINDOW_MS) {
+            synchronized (state) {
+                elapsed = now - state.windowStart;
+                if (elapsed >= SAMPLING_WINDOW_MS) {
+                    double qps = state.arrivals.sumThenReset() * 1000.0 / elapsed;
+                    // 流量越大采样率越低，不低于配置的 sampleRate
+                    double rate = qps <= config.getSampleTargetQps()
+                            ? 1.0 : Math.max(config.getSampleRate(), config.getSampleTargetQps() / qps);
+                    int weight = toWeight(rate);
+                    if (weight != state.weight) {
+                        log.debug("L2 采样权重调整: resource={}, qps={}, weight: {} -> {}",
+                                resource, qps, state.weight, weight);
+                    }
+                    state.weight = weight;
+                    state.windowStart = now;
+                }
+            }
+        }
+        return state.weight;
+    }
+
+    private static int toWeight(double sampleRate) {
+        if (sampleRate >= 1.0 || sampleRate <= 0) {
+            return 1;
+        }
+        return (int) Math.max(1, Math.round(1.0 / sampleRate));
+    }
+
+    /**
+     * 获取当前采样权重（用于监控）
+     *
+     * @param resource 资源名称
+     * @return 采样权重，未配置返回 1
+     */
+    public int getSampleWeight(String resource) {
+        HotArmorRule.L2FilterConfig config = configMap.get(resource);
+        if (config == null) {
+            return 1;
+        }
+        if (!config.isAdaptiveSampling()) {
+            return toWeight(config.getSampleRate());
+        }
+        SamplingState state = samplingMap.get(resource);
+        return state == null ? 1 : state.weight;
+    }
+
     @Override
     public void reset(String resource) {
         Cache<Object, AtomicLong> counter = counterMap.get(resource);
@@ -142,4 +233,24 @@ public class CaffeineL2NoiseFilter implements L2NoiseFilter {
     public Map<String, Cache<Object, AtomicLong>> getAllCounters() {
         return counterMap;
     }
+
+    /**
+     * 自适应采样状态
+     */
+    private static class SamplingState {
+        /**
+         * 当前窗口内到达的访问数
+         */
+        private final LongAdder arrivals = new LongAdder();
+
+        /**
+         * 当前窗口开始时间
+         */
+        private volatile long windowStart = System.currentTimeMillis();
+
+        /**
+         * 当前采样权重
+         */
+        private volatile int weight = 1;
+    }
 }
@@ -0,0 +1,380 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import cn.bafuka.hotarmor.control.RuleChangeListener;
+import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.dataplane.L3HotspotDetector;
+import cn.bafuka.hotarmor.model.HotArmorRule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * L3 集群热点探测器实现
+ * 在本地探测器（Sentinel）之外，各节点周期性地将本地 Top-K 访问频次汇总到 Redis，
+ * 合并出全局视图，识别"单节点 QPS 不高、集群维度很热"的热点
+ *
+ * 汇总方式：
+ * 每个同步周期对应一个时间槽，节点把上一周期的 Top-K 计数 ZINCRBY 到当前槽的 ZSet，
+ * 然后读取上一个槽（所有节点都已上报完毕）中超过集群阈值的 key 作为全局热点
+ *
+ * 未提供 RedisTemplate 时退化为单机模式，全局视图即本地视图
+ */
+@Slf4j
+public class ClusterL3HotspotDetector implements L3HotspotDetector, RuleChangeListener {
+
+    /**
+     * 汇总 ZSet 键前缀
+     */
+    private static final String SUMMARY_KEY_PREFIX = "hotarmor:cluster-hotspot:";
+
+    /**
+     * 单个资源最多跟踪的 key 数量（超出后由 Caffeine 按频率淘汰）
+     */
+    private static final int MAX_TRACKED_KEYS = 100000;
+
+    /**
+     * 本地探测器（通常是 Sentinel 实现）
+     */
+    private final L3HotspotDetector localDetector;
+
+    /**
+     * Redis 模板（为 null 时使用单机模式）
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 配置缓存
+     */
+    private final Map<String, HotArmorRule.L3HotspotConfig> configMap = new ConcurrentHashMap<>();
+
+    /**
+     * 当前同步周期内的本地计数
+     * Key: resource 名称
+     * Value: key -> 访问次数
+     */
+    private final Map<String, Cache<Object, LongAdder>> windowCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 全局热点视图
+     * Key: resource 名称
+     * Value: 全局热点 key 集合（统一使用 String.valueOf(key) 比较）
+     */
+    private final Map<String, Set<String>> globalHotKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 各资源的同步任务
+     */
+    private final Map<String, ScheduledFuture<?>> syncTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 汇总同步调度器
+     */
+    private final ScheduledExecutorService syncScheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "hotarmor-cluster-hotspot");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public ClusterL3HotspotDetector(L3HotspotDetector localDetector, RedisTemplate<String, Object> redisTemplate) {
+        this.localDetector = localDetector;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 注册配置
+     * 启用集群模式的资源会启动周期性汇总任务
+     *
+     * @param resource 资源名称
+     * @param config   L3 配置
+     */
+    public synchronized void registerConfig(String resource, HotArmorRule.L3HotspotConfig config) {
+        HotArmorRule.L3HotspotConfig oldConfig = configMap.get(resource);
+        if (config == null || !config.isEnabled() || !config.isClusterEnabled()) {
+            unregisterConfig(resource);
+            return;
+        }
+
+        configMap.put(resource, config);
+        windowCounters.computeIfAbsent(resource, k -> buildCounter());
+
+        boolean intervalChanged = oldConfig == null
+                || oldConfig.getClusterSyncIntervalMs() != config.getClusterSyncIntervalMs();
+        if (intervalChanged || !syncTasks.containsKey(resource)) {
+            cancelSyncTask(resource);
+            long interval = config.getClusterSyncIntervalMs();
+            syncTasks.put(resource, syncScheduler.scheduleAtFixedRate(
+                    () -> syncResource(resource), interval, interval, TimeUnit.MILLISECONDS));
+        }
+
+        log.info("注册集群热点探测: resource={}, clusterQpsThreshold={}, topK={}, syncIntervalMs={}, mode={}",
+                resource, getClusterQpsThreshold(config), config.getClusterTopK(),
+                config.getClusterSyncIntervalMs(), redisTemplate != null ? "redis" : "local");
+    }
+
+    /**
+     * 注销配置
+     *
+     * @param resource 资源名称
+     */
+    public synchronized void unregisterConfig(String resource) {
+        if (configMap.remove(resource) != null) {
+            log.info("注销集群热点探测: resource={}", resource);
+        }
+        cancelSyncTask(resource);
+        windowCounters.remove(resource);
+        globalHotKeys.remove(resource);
+    }
+
+    @Override
+    public boolean isHotspot(HotArmorContext context) {
+        if (context == null || context.getResource() == null) {
+            return false;
+        }
+
+        String resource = context.getResource();
+        HotArmorRule.L3HotspotConfig config = configMap.get(resource);
+        if (config == null) {
+            return localDetector.isHotspot(context);
+        }
+
+        // 记录本地访问，供下一次汇总上报；L2 抽样放行时按抽样权重还原访问次数
+        countAccess(resource, context.getKey(), Math.max(1, context.getSampleWeight()));
+
+        Set<String> hotKeys = globalHotKeys.get(resource);
+        if (hotKeys != null && context.getKey() != null && hotKeys.contains(String.valueOf(context.getKey()))) {
+            log.info("L3 集群探测触发（全局热点！）: resource={}, key={}", resource, context.getKey());
+            return true;
+        }
+
+        return localDetector.isHotspot(context);
+    }
+
+    /**
+     * 记录 L1 命中等未经过 isHotspot 的访问
+     * 同样计入集群窗口，已晋升的全局热点不会因只命中 L1 而跌出全局 Top-K，反复降级再晋升
+     */
+    @Override
+    public void recordAccess(HotArmorContext context) {
+        if (context != null && context.getResource() != null) {
+            countAccess(context.getResource(), context.getKey(), 1);
+        }
+        localDetector.recordAccess(context);
+    }
+
+    private void countAccess(String resource, Object key, long count) {
+        Cache<Object, LongAdder> counter = windowCounters.get(resource);
+        if (counter != null && key != null) {
+            counter.get(key, k -> new LongAdder()).add(count);
+        }
+    }
+
+    @Override
+    public void updateRule(String resource, double qpsThreshold, int durationInSec) {
+        localDetector.updateRule(resource, qpsThreshold, durationInSec);
+    }
+
+    @Override
+    public void removeRule(String resource) {
+        unregisterConfig(resource);
+        localDetector.removeRule(resource);
+    }
+
+    @Override
+    public double getCurrentQps(String resource) {
+        return localDetector.getCurrentQps(resource);
+    }
+
+    @Override
+    public void onRuleAdded(HotArmorRule rule) {
+        registerConfig(rule.getResource(), rule.getL3Config());
+    }
+
+    @Override
+    public void onRuleUpdated(HotArmorRule oldRule, HotArmorRule newRule) {
+        registerConfig(newRule.getResource(), newRule.getL3Config());
+    }
+
+    @Override
+    public void onRuleRemoved(HotArmorRule rule) {
+        unregisterConfig(rule.getResource());
+    }
+
+    /**
+     * 执行一次汇总同步：上报本地 Top-K，并刷新全局热点视图
+     * 由调度器周期调用，也可手动触发（用于测试或运维）
+     *
+     * @param resource 资源名称
+     */
+    public void syncResource(String resource) {
+        HotArmorRule.L3HotspotConfig config = configMap.get(resource);
+        if (config == null) {
+            return;
+        }
+
+        try {
+            // 切换计数窗口，旧窗口用于本次上报
+            Cache<Object, LongAdder> window = windowCounters.get(resource);
+            if (window == null || !windowCounters.replace(resource, window, buildCounter())) {
+                return;
+            }
+            List<Map.Entry<Object, Long>> topK = selectTopK(window, config.getClusterTopK());
+
+            long interval = config.getClusterSyncIntervalMs();
+            double minCount = getClusterQpsThreshold(config) * interval / 1000.0;
+
+            Set<String> hotKeys;
+            if (redisTemplate == null) {
+                hotKeys = mergeLocal(topK, minCount);
+            } else {
+                long slot = System.currentTimeMillis() / interval;
+                publishSummary(getSummaryKey(resource, slot), topK, interval);
+                hotKeys = readGlobalView(getSummaryKey(resource, slot - 1), minCount);
+            }
+
+            globalHotKeys.put(resource, hotKeys);
+            if (!hotKeys.isEmpty()) {
+                log.debug("集群热点视图已更新: resource={}, hotKeys={}", resource, hotKeys.size());
+            }
+
+        } catch (Exception e) {
+            log.error("集群热点汇总失败: resource={}", resource, e);
+        }
+    }
+
+    /**
+     * 获取当前全局热点视图（用于监控）
+     *
+     * @param resource 资源名称
+     * @return 全局热点 key 集合
+     */
+    public Set<String> getGlobalHotKeys(String resource) {
+        Set<String> hotKeys = globalHotKeys.get(resource);
+        return hotKeys == null ? Collections.emptySet() : Collections.unmodifiableSet(hotKeys);
+    }
+
+    /**
+     * 关闭汇总调度器
+     */
+    public void shutdown() {
+        log.info("关闭集群热点探测器");
+        syncScheduler.shutdownNow();
+    }
+
+    /**
+     * 从计数窗口中选出 Top-K
+     */
+    private List<Map.Entry<Object, Long>> selectTopK(Cache<Object, LongAdder> window, int k) {
+        if (window == null || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Map.Entry<Object, Long>> heap =
+                new PriorityQueue<>(k, Comparator.comparingLong(Map.Entry::getValue));
+        for (Map.Entry<Object, LongAdder> entry : window.asMap().entrySet()) {
+            long count = entry.getValue().sum();
+            if (heap.size() < k) {
+                heap.offer(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), count));
+            } else if (heap.peek().getValue() < count) {
+                heap.poll();
+                heap.offer(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), count));
+            }
+        }
+        return new ArrayList<>(heap);
+    }
+
+    /**
+     * 将本地 Top-K 以管道方式累加到当前时间槽
+     */
+    private void publishSummary(String summaryKey, List<Map.Entry<Object, Long>> topK, long interval) {
+        if (topK.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Map.Entry<Object, Long> entry : topK) {
+                    ops.opsForZSet().incrementScore(summaryKey, String.valueOf(entry.getKey()), entry.getValue());
+                }
+                // 保留 3 个周期，足够其他节点读取
+                ops.expire(summaryKey, interval * 3, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 读取上一个时间槽的全局汇总结果
+     */
+    private Set<String> readGlobalView(String summaryKey, double minCount) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples =
+                redisTemplate.opsForZSet().reverseRangeByScoreWithScores(summaryKey, minCount, Double.MAX_VALUE);
+        Set<String> hotKeys = new HashSet<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+                if (tuple.getValue() != null) {
+                    hotKeys.add(String.valueOf(tuple.getValue()));
+                }
+            }
+        }
+        return hotKeys;
+    }
+
+    /**
+     * 单机模式：直接用本地 Top-K 作为全局视图
+     */
+    private Set<String> mergeLocal(List<Map.Entry<Object, Long>> topK, double minCount) {
+        Set<String> hotKeys = new HashSet<>();
+        for (Map.Entry<Object, Long> entry : topK) {
+            if (entry.getValue() >= minCount) {
+                hotKeys.add(String.valueOf(entry.getKey()));
+            }
+        }
+        return hotKeys;
+    }
+
+    private Cache<Object, LongAdder> buildCounter() {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .build();
+    }
+
+    private void cancelSyncTask(String resource) {
+        ScheduledFuture<?> task = syncTasks.remove(resource);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private double getClusterQpsThreshold(HotArmorRule.L3HotspotConfig config) {
+        return config.getClusterQpsThreshold() > 0 ? config.getClusterQpsThreshold() : config.getQpsThreshold();
+    }
+
+    private String getSummaryKey(String resource, long slot) {
+        return SUMMARY_KEY_PREFIX + resource + ":" + slot;
+    }
+}
@@ -0,0 +1,145 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群级数据库回源限流器（单个资源）
+ * 令牌桶状态保存在 Redis 中，由 Lua 脚本原子地补充和扣减，所有节点共享同一速率上限；
+ * 节点每次从 Redis 预取一批令牌在本地消费，避免每次回源都访问 Redis
+ *
+ * 预取的令牌只在 LOCAL_TOKEN_TTL_MS 内有效，过期未用完的令牌直接丢弃（不归还），
+ * 因此 prefetch 应远小于"速率 / 节点数"，否则令牌会被少数节点囤积
+ */
+@Slf4j
+public class ClusterRateLimiter {
+
+    /**
+     * 补充并扣减令牌，返回实际发放的令牌数
+     * KEYS[1] 桶键；ARGV: 每秒速率、桶容量、请求数量、当前时间戳（毫秒）
+     */
+    private static final byte[] ACQUIRE_SCRIPT = ("local rate = tonumber(ARGV[1]) "
+            + "local capacity = tonumber(ARGV[2]) "
+            + "local requested = tonumber(ARGV[3]) "
+            + "local now = tonumber(ARGV[4]) "
+            + "local state = redis.call('hmget', KEYS[1], 't', 'ts') "
+            + "local tokens = tonumber(state[1]) "
+            + "local ts = tonumber(state[2]) "
+            + "if tokens == nil or ts == nil then tokens = capacity ts = now end "
+            + "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) "
+            + "local granted = math.min(requested, math.floor(tokens)) "
+            + "tokens = tokens - granted "
+            + "redis.call('hset', KEYS[1], 't', tostring(tokens)) "
+            + "redis.call('hset', KEYS[1], 'ts', tostring(math.max(now, ts))) "
+            + "redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) "
+            + "return granted").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 本地预取令牌的有效期（毫秒）
+     */
+    private static final long LOCAL_TOKEN_TTL_MS = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String bucketKey;
+
+    private volatile double permitsPerSecond;
+    private volatile long capacity;
+    private volatile int prefetch;
+
+    /**
+     * 本地剩余令牌数及其预取时间
+     */
+    private int localTokens;
+    private long fetchedAt;
+
+    /**
+     * Redis 中令牌耗尽后，下一次允许预取的时间，避免被拒绝的调用方持续访问 Redis
+     */
+    private long nextFetchAt;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ClusterRateLimiter(RedisTemplate<String, Object> redisTemplate, String bucketKey,
+                              double permitsPerSecond, long capacity, int prefetch) {
+        this.redisTemplate = redisTemplate;
+        this.bucketKey = bucketKey;
+        reconfigure(permitsPerSecond, capacity, prefetch);
+    }
+
+    /**
+     * 更新速率参数（规则变更时调用，保留本地剩余令牌）
+     */
+    public void reconfigure(double permitsPerSecond, long capacity, int prefetch) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * 获取一个回源令牌
+     * 本地令牌用完时从 Redis 预取一批；Redis 不可用时放行（限流只是保护手段，不应成为新的故障点）
+     *
+     * @return true 获取成功
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        if (localTokens > 0 && now - fetchedAt < LOCAL_TOKEN_TTL_MS) {
+            localTokens--;
+            return true;
+        }
+        localTokens = 0;
+
+        if (now < nextFetchAt) {
+            rejected.increment();
+            return false;
+        }
+
+        long granted;
+        try {
+            granted = fetch(now);
+        } catch (Exception e) {
+            log.warn("集群回源限流访问 Redis 失败，本次放行: bucket={}", bucketKey, e);
+            return true;
+        }
+
+        if (granted <= 0) {
+            // 等待至少补充出一个令牌后再访问 Redis
+            nextFetchAt = now + Math.max(1, (long) Math.ceil(1000 / permitsPerSecond));
+            rejected.increment();
+            return false;
+        }
+        localTokens = (int) granted - 1;
+        fetchedAt = now;
+        return true;
+    }
+
+    private long fetch(long now) {
+        byte[] rawKey = rawKey(bucketKey);
+        byte[] rate = String.valueOf(permitsPerSecond).getBytes(StandardCharsets.UTF_8);
+        byte[] cap = String.valueOf(capacity).getBytes(StandardCharsets.UTF_8);
+        byte[] requested = String.valueOf(prefetch).getBytes(StandardCharsets.UTF_8);
+        byte[] timestamp = String.valueOf(now).getBytes(StandardCharsets.UTF_8);
+        Long granted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.eval(ACQUIRE_SCRIPT, ReturnType.INTEGER, 1, rawKey, rate, cap, requested, timestamp));
+        return granted != null ? granted : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * 累计被拒绝的回源数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
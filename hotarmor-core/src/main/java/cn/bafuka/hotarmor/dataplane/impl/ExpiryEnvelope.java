@@ -0,0 +1,121 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+/**
+ * 逻辑过期信封
+ * 在 Redis 值前嵌入逻辑过期时间戳，值本身在 Redis 中使用更长的物理 TTL：
+ *
+ * <pre>
+ * | 0xA7 | 'E' | flags | 逻辑过期时间戳(8 字节) | [回源耗时(4 字节)] | 值（可能已压缩） |
+ * </pre>
+ *
+ * flags 带 {@code FLAG_COST} 时携带最近一次回源耗时（毫秒），供概率提前刷新（XFetch）使用
+ *
+ * 不带信封的值视为没有逻辑过期时间
+ */
+public final class ExpiryEnvelope {
+
+    private static final byte MAGIC_0 = (byte) 0xA7;
+    private static final byte MAGIC_1 = 'E';
+
+    /**
+     * 携带回源耗时标记
+     */
+    private static final byte FLAG_COST = 0x01;
+
+    private static final int HEADER_LENGTH = 11;
+
+    private static final int COST_LENGTH = 4;
+
+    private ExpiryEnvelope() {
+    }
+
+    /**
+     * 封装
+     *
+     * @param payload    值
+     * @param expireAtMs 逻辑过期时间戳（毫秒）
+     * @return 带信封的字节
+     */
+    public static byte[] wrap(byte[] payload, long expireAtMs) {
+        return wrap(payload, expireAtMs, 0);
+    }
+
+    /**
+     * 封装（携带回源耗时）
+     *
+     * @param payload    值
+     * @param expireAtMs 逻辑过期时间戳（毫秒）
+     * @param costMs     回源耗时（毫秒），不大于 0 时不携带
+     * @return 带信封的字节
+     */
+    public static byte[] wrap(byte[] payload, long expireAtMs, long costMs) {
+        boolean withCost = costMs > 0;
+        int headerLength = withCost ? HEADER_LENGTH + COST_LENGTH : HEADER_LENGTH;
+        byte[] result = new byte[headerLength + payload.length];
+        result[0] = MAGIC_0;
+        result[1] = MAGIC_1;
+        result[2] = withCost ? FLAG_COST : 0;
+        for (int i = 0; i < 8; i++) {
+            result[3 + i] = (byte) (expireAtMs >>> (56 - 8 * i));
+        }
+        if (withCost) {
+            int cost = (int) Math.min(costMs, Integer.MAX_VALUE);
+            for (int i = 0; i < COST_LENGTH; i++) {
+                result[HEADER_LENGTH + i] = (byte) (cost >>> (24 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, 0, result, headerLength, payload.length);
+        return result;
+    }
+
+    /**
+     * 是否带信封
+     */
+    public static boolean isWrapped(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * 读取逻辑过期时间戳
+     *
+     * @param bytes 带信封的字节
+     * @return 逻辑过期时间戳（毫秒）
+     */
+    public static long expireAt(byte[] bytes) {
+        long expireAt = 0;
+        for (int i = 0; i < 8; i++) {
+            expireAt = (expireAt << 8) | (bytes[3 + i] & 0xFF);
+        }
+        return expireAt;
+    }
+
+    /**
+     * 读取回源耗时
+     *
+     * @param bytes 带信封的字节
+     * @return 回源耗时（毫秒），未携带返回 0
+     */
+    public static long costMs(byte[] bytes) {
+        if ((bytes[2] & FLAG_COST) == 0) {
+            return 0;
+        }
+        int cost = 0;
+        for (int i = 0; i < COST_LENGTH; i++) {
+            cost = (cost << 8) | (bytes[HEADER_LENGTH + i] & 0xFF);
+        }
+        return cost;
+    }
+
+    /**
+     * 拆封
+     *
+     * @param bytes 带信封的字节
+     * @return 值
+     */
+    public static byte[] unwrap(byte[] bytes) {
+        int headerLength = (bytes[2] & FLAG_COST) != 0 ? HEADER_LENGTH + COST_LENGTH : HEADER_LENGTH;
+        byte[] payload = new byte[bytes.length - headerLength];
+        System.arraycopy(bytes, headerLength, payload, 0, payload.length);
+        return payload;
+    }
+}
@@ -0,0 +1,157 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按 key 统计的滑动窗口速率跟踪器
+ * 每个 key 持有一个由若干时间桶组成的环形窗口，用于计算短窗口速率及其变化趋势
+ *
+ * 计数为近似统计：桶切换时的并发递增可能丢失少量计数，换取无锁的记录开销
+ */
+public class KeyRateTracker {
+
+    /**
+     * 单个资源最多跟踪的 key 数量
+     */
+    private static final int MAX_TRACKED_KEYS = 100000;
+
+    /**
+     * 单个时间桶宽度（毫秒）
+     */
+    private final long bucketMs;
+
+    /**
+     * 时间桶数量
+     */
+    private final int bucketCount;
+
+    /**
+     * key -> 环形窗口
+     */
+    private final Cache<Object, RateWindow> windows;
+
+    public KeyRateTracker(long bucketMs, int bucketCount) {
+        this.bucketMs = bucketMs;
+        this.bucketCount = bucketCount;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .expireAfterAccess(bucketMs * bucketCount * 2, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 缓存键
+     * @param now 当前时间戳（毫秒）
+     * @return 该 key 的窗口
+     */
+    public RateWindow record(Object key, long now) {
+        return record(key, now, 1);
+    }
+
+    /**
+     * 记录若干次访问（用于采样加权计数）
+     *
+     * @param key   缓存键
+     * @param now   当前时间戳（毫秒）
+     * @param count 访问次数
+     * @return 该 key 的窗口
+     */
+    public RateWindow record(Object key, long now, int count) {
+        RateWindow window = windows.get(key, k -> new RateWindow(bucketCount));
+        window.add(now / bucketMs, count);
+        return window;
+    }
+
+    /**
+     * 计算最近两个完整时间桶之间的速率斜率（QPS/秒）
+     *
+     * @param window 窗口
+     * @param now    当前时间戳（毫秒）
+     * @return 斜率，正值表示加速
+     */
+    public double slope(RateWindow window, long now) {
+        double bucketSeconds = bucketMs / 1000.0;
+        return (recentQps(window, now) - previousQps(window, now)) / bucketSeconds;
+    }
+
+    /**
+     * 最近一个完整时间桶的 QPS
+     */
+    public double recentQps(RateWindow window, long now) {
+        return window.count(now / bucketMs - 1) * 1000.0 / bucketMs;
+    }
+
+    /**
+     * 倒数第二个完整时间桶的 QPS
+     */
+    public double previousQps(RateWindow window, long now) {
+        return window.count(now / bucketMs - 2) * 1000.0 / bucketMs;
+    }
+
+    /**
+     * 整个窗口（不含当前未完成的时间桶）的平均 QPS
+     */
+    public double windowQps(RateWindow window, long now) {
+        long epoch = now / bucketMs;
+        long total = 0;
+        for (int i = 1; i < bucketCount; i++) {
+            total += window.count(epoch - i);
+        }
+        return total * 1000.0 / (bucketMs * (bucketCount - 1));
+    }
+
+    /**
+     * 获取所有 key 的窗口（用于统计分布）
+     *
+     * @return key -> 窗口
+     */
+    public Map<Object, RateWindow> asMap() {
+        return windows.asMap();
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * 环形时间桶窗口
+     */
+    public static class RateWindow {
+
+        private final AtomicLongArray epochs;
+        private final AtomicLongArray counts;
+
+        RateWindow(int bucketCount) {
+            this.epochs = new AtomicLongArray(bucketCount);
+            this.counts = new AtomicLongArray(bucketCount);
+        }
+
+        void add(long epoch, int delta) {
+            int idx = (int) (epoch % epochs.length());
+            long current = epochs.get(idx);
+            if (current != epoch && epochs.compareAndSet(idx, current, epoch)) {
+                counts.set(idx, 0);
+            }
+            counts.addAndGet(idx, delta);
+        }
+
+        long count(long epoch) {
+            if (epoch < 0) {
+                return 0;
+            }
+            int idx = (int) (epoch % epochs.length());
+            return epochs.get(idx) == epoch ? counts.get(idx) : 0;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * L4 Redis 微批执行器
+ * 将多个请求线程并发发起的单 key GET/SET 在极短窗口内（或攒满 N 个）合并为一次批量操作：
+ * GET 合并为 MGET，SET 合并为一次 pipeline，结果再分发回各调用方
+ *
+ * 单机/哨兵模式下整批操作通过一次 pipeline（SET + 一个 MGET）发送；Redis Cluster 模式下按 slot 分组，
+ * 各组在 IO 线程池中并行执行，同一 slot 的 key 才会进入同一个 MGET/pipeline
+ * 批量操作直接作用于连接上的原始字节，对象读写使用 RedisTemplate 的序列化器转换
+ * 调用方等待超时的操作会从队列移除并标记取消，尚未发送的不再执行
+ */
+@Slf4j
+public class RedisBatchExecutor {
+
+    /**
+     * 待执行队列上限，队列满时调用方直接执行单 key 操作
+     */
+    private static final int MAX_PENDING = 10000;
+
+    /**
+     * 调用方等待批次结果的最长时间（毫秒）
+     */
+    private static final long OP_TIMEOUT_MS = 1000;
+
+    /**
+     * Redis 模板
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 攒批窗口（纳秒）
+     */
+    private final long windowNanos;
+
+    /**
+     * 单批最大操作数
+     */
+    private final int maxBatchSize;
+
+    /**
+     * 待执行操作
+     */
+    private final BlockingQueue<PendingOp> queue = new LinkedBlockingQueue<>(MAX_PENDING);
+
+    /**
+     * 批处理线程（首次提交时启动）
+     */
+    private volatile Thread worker;
+
+    private volatile boolean running = true;
+
+    /**
+     * 连接模式（首次发送时探测）
+     */
+    private final RedisConnectionMode connectionMode;
+
+    /**
+     * Cluster 模式下并行执行各 slot 分组的线程池（懒加载）
+     */
+    private volatile ThreadPoolExecutor ioExecutor;
+
+    public RedisBatchExecutor(RedisTemplate<String, Object> redisTemplate, long windowMicros, int maxBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.connectionMode = new RedisConnectionMode(redisTemplate);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        log.info("L4 Redis 微批执行器创建: windowMicros={}, maxBatchSize={}", windowMicros, maxBatchSize);
+    }
+
+    /**
+     * 批量读取单个 key（使用 RedisTemplate 的值序列化器反序列化）
+     *
+     * @param key Redis 键
+     * @return 值，不存在返回 null
+     */
+    public Object get(String key) {
+        byte[] bytes = getBytes(key);
+        return bytes == null ? null : valueSerializer().deserialize(bytes);
+    }
+
+    /**
+     * 批量写入单个 key（使用 RedisTemplate 的值序列化器序列化）
+     *
+     * @param key     Redis 键
+     * @param value   值
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    public void set(String key, Object value, long timeout, TimeUnit unit) {
+        setBytes(key, valueSerializer().serialize(value), timeout, unit);
+    }
+
+    /**
+     * 批量读取单个 key 的原始字节
+     *
+     * @param key Redis 键
+     * @return 原始字节，不存在返回 null
+     */
+    public byte[] getBytes(String key) {
+        PendingOp op = new PendingOp(key, rawKey(key), null, 0, null);
+        if (!ensureWorker() || !queue.offer(op)) {
+            return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(op.rawKey));
+        }
+        return (byte[]) await(op);
+    }
+
+    /**
+     * 批量写入单个 key 的原始字节
+     *
+     * @param key     Redis 键
+     * @param value   原始字节
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    public void setBytes(String key, byte[] value, long timeout, TimeUnit unit) {
+        PendingOp op = new PendingOp(key, rawKey(key), value, timeout, unit);
+        if (!ensureWorker() || !queue.offer(op)) {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(op.rawKey, op.value,
+                    Expiration.from(op.timeout, op.unit), RedisStringCommands.SetOption.UPSERT));
+            return;
+        }
+        await(op);
+    }
+
+    /**
+     * 停止批处理线程，剩余操作直接执行
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        List<PendingOp> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 首次提交时启动批处理线程，没有资源开启微批时不创建空闲线程
+     *
+     * @return false 已停止
+     */
+    private boolean ensureWorker() {
+        if (worker == null) {
+            synchronized (this) {
+                if (worker == null && running) {
+                    Thread thread = new Thread(this::runLoop, "hotarmor-redis-batch");
+                    thread.setDaemon(true);
+                    thread.start();
+                    worker = thread;
+                }
+            }
+        }
+        return running;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    private Object await(PendingOp op) {
+        try {
+            return op.future.get(OP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Redis batch operation interrupted: " + op.key, e);
+        } catch (TimeoutException e) {
+            // 尚未发送的操作不再执行；已发送的写入无法撤回
+            queue.remove(op);
+            op.future.cancel(false);
+            throw new IllegalStateException("Redis batch operation timed out: " + op.key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Redis batch operation failed: " + op.key, cause);
+        }
+    }
+
+    private void runLoop() {
+        List<PendingOp> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingOp first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 在窗口内继续攒批，攒满或窗口结束后立即发送
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingOp op = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (op == null) {
+                        break;
+                    }
+                    batch.add(op);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("L4 Redis 微批执行异常: size={}", batch.size(), e);
+                for (PendingOp op : batch) {
+                    op.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 执行一批操作：单机模式整批一次发送，Cluster 模式按 slot 分组并行发送
+     * 已被调用方取消（等待超时）的操作直接跳过
+     *
+     * @param batch 操作列表
+     */
+    void flush(List<PendingOp> batch) {
+        List<PendingOp> live = new ArrayList<>(batch.size());
+        for (PendingOp op : batch) {
+            if (!op.future.isDone()) {
+                live.add(op);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        if (!connectionMode.isCluster()) {
+            execute(live);
+            log.debug("L4 Redis 微批发送: ops={}", live.size());
+            return;
+        }
+
+        Map<Integer, List<PendingOp>> bySlot = new HashMap<>();
+        for (PendingOp op : live) {
+            bySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(op.key), k -> new ArrayList<>()).add(op);
+        }
+        if (bySlot.size() == 1) {
+            execute(live);
+        } else {
+            ThreadPoolExecutor executor = getIoExecutor();
+            for (List<PendingOp> ops : bySlot.values()) {
+                try {
+                    executor.execute(() -> execute(ops));
+                } catch (RejectedExecutionException e) {
+                    execute(ops);
+                }
+            }
+        }
+        log.debug("L4 Redis 微批发送: ops={}, slots={}", live.size(), bySlot.size());
+    }
+
+    /**
+     * 以一次往返执行一组操作：先写后读（同一组内对同一 key 的读能看到写入），
+     * 同时有读写时 SET 与 MGET 放入同一个 pipeline
+     *
+     * @param ops 操作列表（Cluster 模式下属于同一 slot）
+     */
+    private void execute(List<PendingOp> ops) {
+        List<PendingOp> sets = new ArrayList<>();
+        // 同一 key 的多个读请求合并为一个
+        Map<String, List<PendingOp>> getsByKey = new LinkedHashMap<>();
+        for (PendingOp op : ops) {
+            if (op.isGet()) {
+                getsByKey.computeIfAbsent(op.key, k -> new ArrayList<>()).add(op);
+            } else {
+                sets.add(op);
+            }
+        }
+        List<List<PendingOp>> groups = new ArrayList<>(getsByKey.values());
+        byte[][] rawKeys = new byte[groups.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = groups.get(i).get(0).rawKey;
+        }
+
+        try {
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> {
+                if (sets.isEmpty()) {
+                    return rawKeys.length == 1
+                            ? Collections.singletonList(connection.get(rawKeys[0]))
+                            : connection.mGet(rawKeys);
+                }
+                if (sets.size() == 1 && rawKeys.length == 0) {
+                    PendingOp op = sets.get(0);
+                    connection.set(op.rawKey, op.value, Expiration.from(op.timeout, op.unit),
+                            RedisStringCommands.SetOption.UPSERT);
+                    return null;
+                }
+
+                connection.openPipeline();
+                for (PendingOp op : sets) {
+                    connection.set(op.rawKey, op.value, Expiration.from(op.timeout, op.unit),
+                            RedisStringCommands.SetOption.UPSERT);
+                }
+                if (rawKeys.length > 0) {
+                    connection.mGet(rawKeys);
+                }
+                List<Object> results = connection.closePipeline();
+                return rawKeys.length > 0 ? castValues(results.get(results.size() - 1)) : null;
+            });
+
+            for (PendingOp op : sets) {
+                op.future.complete(null);
+            }
+            for (int i = 0; i < groups.size(); i++) {
+                byte[] value = values != null && i < values.size() ? values.get(i) : null;
+                for (PendingOp op : groups.get(i)) {
+                    op.future.complete(value);
+                }
+            }
+        } catch (Exception e) {
+            for (PendingOp op : ops) {
+                op.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<byte[]> castValues(Object result) {
+        return (List<byte[]>) result;
+    }
+
+    private ThreadPoolExecutor getIoExecutor() {
+        ThreadPoolExecutor executor = ioExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = ioExecutor;
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(1000), r -> {
+                        Thread thread = new Thread(r, "hotarmor-redis-batch-io-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    ioExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 待执行的单 key 操作
+     */
+    static class PendingOp {
+        final String key;
+        final byte[] rawKey;
+        final byte[] value;
+        final long timeout;
+        final TimeUnit unit;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        PendingOp(String key, byte[] rawKey, byte[] value, long timeout, TimeUnit unit) {
+            this.key = key;
+            this.rawKey = rawKey;
+            this.value = value;
+            this.timeout = timeout;
+            this.unit = unit;
+        }
+
+        boolean isGet() {
+            return unit == null;
+        }
+    }
+}
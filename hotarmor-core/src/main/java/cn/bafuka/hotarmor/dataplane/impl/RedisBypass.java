@@ -0,0 +1,85 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L4 Redis 旁路
+ * {@link RedisHealthTracker} 判定 Redis 不可用期间，L4 不再访问 Redis 和分布式锁：
+ * 进程内合并回源后直接访问数据库，结果写入本地替代缓存（TTL 应长于 L1），读取只查本地替代缓存
+ *
+ * 探测恢复后清空本地替代缓存并重新启用 Redis，避免之后的旁路期间读到旁路前写入的旧值
+ */
+public class RedisBypass {
+
+    private final RedisHealthTracker tracker;
+
+    /**
+     * 本地替代缓存
+     * Key: Redis 键
+     * Value: 回源结果
+     */
+    private final Cache<String, Object> localValues;
+
+    /**
+     * @param tracker          健康跟踪器
+     * @param localTtlSeconds  本地替代缓存过期时间（秒）
+     * @param localMaximumSize 本地替代缓存最大条数
+     */
+    public RedisBypass(RedisHealthTracker tracker, long localTtlSeconds, long localMaximumSize) {
+        this.tracker = tracker;
+        this.localValues = Caffeine.newBuilder()
+                .expireAfterWrite(localTtlSeconds, TimeUnit.SECONDS)
+                .maximumSize(localMaximumSize)
+                .build();
+        tracker.addRecoveryListener(localValues::invalidateAll);
+    }
+
+    /**
+     * 当前是否旁路 Redis
+     */
+    public boolean isActive() {
+        return !tracker.isAvailable();
+    }
+
+    /**
+     * 记录一次 Redis 调用结果到健康跟踪器
+     *
+     * @param startNanos 开始时间（System.nanoTime）
+     * @param failed     是否失败
+     */
+    public void record(long startNanos, boolean failed) {
+        tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), failed);
+    }
+
+    /**
+     * 读取本地替代缓存
+     *
+     * @param redisKey Redis 键
+     * @return 值，不存在返回 null
+     */
+    public Object getLocal(String redisKey) {
+        return localValues.getIfPresent(redisKey);
+    }
+
+    /**
+     * 写入本地替代缓存
+     *
+     * @param redisKey Redis 键
+     * @param value    值
+     */
+    public void putLocal(String redisKey, Object value) {
+        localValues.put(redisKey, value);
+    }
+
+    /**
+     * 删除本地替代缓存中的值
+     *
+     * @param redisKey Redis 键
+     */
+    public void invalidate(String redisKey) {
+        localValues.invalidate(redisKey);
+    }
+}
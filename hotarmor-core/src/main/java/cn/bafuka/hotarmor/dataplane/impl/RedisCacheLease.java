@@ -0,0 +1,146 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis 缓存租约（参考 memcache lease）
+ * 读未命中时在同一次往返内原子地发放租约令牌，只有持有租约的调用方可以回填；
+ * 失效操作同时删除租约，使失效前发出的租约全部作废，其回填会被拒绝，从而避免"读旧值 -> 失效 -> 回填旧值"的竞态
+ *
+ * 租约键为 "{缓存键}:lease"（缓存键已含 hash tag 时为 "缓存键:lease"），与缓存键位于同一 slot
+ */
+public class RedisCacheLease {
+
+    /**
+     * 命中返回 {1, value}；未命中且发放租约返回 {2}；租约已被他人持有返回 {0}
+     */
+    private static final byte[] ACQUIRE_SCRIPT = ("local v = redis.call('get', KEYS[1]) "
+            + "if v then return {1, v} end "
+            + "if redis.call('set', KEYS[2], ARGV[1], 'NX', 'PX', ARGV[2]) then return {2} end "
+            + "return {0}").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 租约仍有效时写入并释放租约
+     */
+    private static final byte[] FILL_SCRIPT = ("if redis.call('get', KEYS[2]) == ARGV[1] then "
+            + "redis.call('set', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+            + "redis.call('del', KEYS[2]) "
+            + "return 1 end "
+            + "return 0").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 租约仍归自己时释放
+     */
+    private static final byte[] RELEASE_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisCacheLease(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 读取缓存，未命中时尝试获取租约
+     *
+     * @param redisKey 缓存键
+     * @param leaseMs  租约有效期（毫秒）
+     * @return 读取结果
+     */
+    public Result acquire(String redisKey, long leaseMs) {
+        byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] rawKey = rawKey(redisKey);
+        byte[] rawLeaseKey = rawKey(leaseKey(redisKey));
+        byte[] lease = String.valueOf(leaseMs).getBytes(StandardCharsets.UTF_8);
+
+        List<Object> reply = redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+                connection.eval(ACQUIRE_SCRIPT, ReturnType.MULTI, 2, rawKey, rawLeaseKey, token, lease));
+        long code = reply != null && !reply.isEmpty() ? ((Number) reply.get(0)).longValue() : 0;
+        if (code == 1) {
+            return new Result((byte[]) reply.get(1), null);
+        }
+        return new Result(null, code == 2 ? token : null);
+    }
+
+    /**
+     * 持有租约时回填缓存
+     *
+     * @param redisKey   缓存键
+     * @param token      租约令牌
+     * @param value      值（原始字节）
+     * @param ttlSeconds 过期时间（秒）
+     * @return true 已写入，false 租约已失效（期间发生过失效操作或租约过期）
+     */
+    public boolean fill(String redisKey, byte[] token, byte[] value, long ttlSeconds) {
+        byte[] rawKey = rawKey(redisKey);
+        byte[] rawLeaseKey = rawKey(leaseKey(redisKey));
+        byte[] ttl = String.valueOf(ttlSeconds).getBytes(StandardCharsets.UTF_8);
+        Long written = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.eval(FILL_SCRIPT, ReturnType.INTEGER, 2, rawKey, rawLeaseKey, token, value, ttl));
+        return written != null && written == 1L;
+    }
+
+    /**
+     * 放弃租约（回源失败或结果为空时调用，让其他调用方无需等到租约过期）
+     *
+     * @param redisKey 缓存键
+     * @param token    租约令牌
+     */
+    public void release(String redisKey, byte[] token) {
+        byte[] rawLeaseKey = rawKey(leaseKey(redisKey));
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, rawLeaseKey, token));
+    }
+
+    /**
+     * 获取租约键
+     *
+     * @param redisKey 缓存键
+     * @return 租约键
+     */
+    public static String leaseKey(String redisKey) {
+        int open = redisKey.indexOf('{');
+        boolean tagged = open >= 0 && redisKey.indexOf('}', open + 1) > open + 1;
+        return tagged ? redisKey + ":lease" : "{" + redisKey + "}:lease";
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * 租约读取结果
+     */
+    public static class Result {
+
+        private final byte[] value;
+        private final byte[] token;
+
+        Result(byte[] value, byte[] token) {
+            this.value = value;
+            this.token = token;
+        }
+
+        /**
+         * 命中的值（原始字节），未命中为 null
+         */
+        public byte[] getValue() {
+            return value;
+        }
+
+        /**
+         * 发放给本次调用的租约令牌，未获得租约为 null
+         */
+        public byte[] getToken() {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Redis 连接模式探测
+ * 批量发送前判断连接是否为 Redis Cluster 连接：单机/哨兵模式整批一次 pipeline 发送，
+ * Cluster 模式才需要按 slot 分组
+ *
+ * 首次探测成功后缓存结果；探测失败时按 Cluster 处理（按 slot 分组总是安全的），下次再探测
+ */
+@Slf4j
+class RedisConnectionMode {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private volatile Boolean clusterMode;
+
+    RedisConnectionMode(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 当前连接是否为 Redis Cluster 连接
+     */
+    boolean isCluster() {
+        Boolean mode = clusterMode;
+        if (mode == null) {
+            try {
+                mode = Boolean.TRUE.equals(redisTemplate.execute(
+                        (RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection));
+            } catch (Exception e) {
+                log.warn("探测 Redis 连接类型失败，按 Cluster 模式分组", e);
+                return true;
+            }
+            clusterMode = mode;
+        }
+        return mode;
+    }
+}
@@ -0,0 +1,229 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 健康跟踪器
+ * 按滚动窗口统计 L4 访问 Redis 的错误率和慢调用率，任一超过阈值即判定 Redis 不可用，
+ * 期间 L4 不再访问 Redis 和分布式锁，改为进程内合并回源并使用本地替代缓存；
+ * 不可用期间后台定期 PING 探测，连续 PROBE_SUCCESSES_TO_RECOVER 次成功（且不慢）后恢复
+ */
+@Slf4j
+public class RedisHealthTracker {
+
+    /**
+     * 滚动窗口的分桶数
+     */
+    private static final int BUCKETS = 10;
+
+    /**
+     * 恢复所需的连续探测成功次数
+     */
+    private static final int PROBE_SUCCESSES_TO_RECOVER = 3;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final long bucketMs;
+    private final long minCalls;
+    private final double errorRateThreshold;
+    private final long slowCallMs;
+    private final double slowRateThreshold;
+
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+
+    private volatile boolean available = true;
+
+    private int probeSuccesses;
+
+    private final ScheduledExecutorService probeScheduler;
+
+    /**
+     * 恢复可用时的回调
+     */
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder trips = new LongAdder();
+
+    public RedisHealthTracker(RedisTemplate<String, Object> redisTemplate, long windowMs, long minCalls,
+                              double errorRateThreshold, long slowCallMs, double slowRateThreshold,
+                              long probeIntervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.bucketMs = Math.max(1, windowMs / BUCKETS);
+        this.minCalls = minCalls;
+        this.errorRateThreshold = errorRateThreshold;
+        this.slowCallMs = slowCallMs;
+        this.slowRateThreshold = slowRateThreshold;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.probeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hotarmor-redis-health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.probeScheduler.scheduleWithFixedDelay(this::probe, probeIntervalMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Redis 健康跟踪启动: windowMs={}, minCalls={}, errorRate={}, slowCallMs={}, slowRate={}, probeIntervalMs={}",
+                windowMs, minCalls, errorRateThreshold, slowCallMs, slowRateThreshold, probeIntervalMs);
+    }
+
+    /**
+     * Redis 当前是否可用
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 记录一次 Redis 调用结果，只有失败或慢调用才重新评估健康状态
+     *
+     * @param latencyMs 耗时（毫秒）
+     * @param failed    是否失败
+     */
+    public void record(long latencyMs, boolean failed) {
+        long epoch = System.currentTimeMillis() / bucketMs;
+        Bucket bucket = buckets[(int) (epoch % BUCKETS)];
+        bucket.roll(epoch);
+        bucket.calls.increment();
+        boolean slow = latencyMs >= slowCallMs;
+        if (failed) {
+            bucket.errors.increment();
+        }
+        if (slow) {
+            bucket.slow.increment();
+        }
+        if ((failed || slow) && available) {
+            evaluate(epoch);
+        }
+    }
+
+    private void evaluate(long epoch) {
+        long calls = 0;
+        long errors = 0;
+        long slow = 0;
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch.get() < BUCKETS) {
+                calls += bucket.calls.sum();
+                errors += bucket.errors.sum();
+                slow += bucket.slow.sum();
+            }
+        }
+        if (calls < minCalls) {
+            return;
+        }
+        double errorRate = (double) errors / calls;
+        double slowRate = (double) slow / calls;
+        if (errorRate >= errorRateThreshold || slowRate >= slowRateThreshold) {
+            trip(calls, errorRate, slowRate);
+        }
+    }
+
+    private synchronized void trip(long calls, double errorRate, double slowRate) {
+        if (!available) {
+            return;
+        }
+        available = false;
+        probeSuccesses = 0;
+        trips.increment();
+        log.warn("Redis 判定为不可用，L4 旁路 Redis: calls={}, errorRate={}, slowRate={}",
+                calls, String.format("%.2f", errorRate), String.format("%.2f", slowRate));
+    }
+
+    /**
+     * 不可用期间探测 Redis，连续成功后恢复并清空窗口
+     */
+    private void probe() {
+        if (available) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        boolean success;
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+            success = System.currentTimeMillis() - start < slowCallMs;
+        } catch (Exception e) {
+            log.debug("Redis 探测失败: {}", e.getMessage());
+            success = false;
+        }
+
+        synchronized (this) {
+            probeSuccesses = success ? probeSuccesses + 1 : 0;
+            if (probeSuccesses < PROBE_SUCCESSES_TO_RECOVER) {
+                return;
+            }
+            for (Bucket bucket : buckets) {
+                bucket.reset(-1);
+            }
+            available = true;
+        }
+        log.info("Redis 探测恢复，L4 重新启用 Redis");
+        for (Runnable listener : recoveryListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("Redis 恢复回调执行失败", e);
+            }
+        }
+    }
+
+    /**
+     * 注册恢复可用时的回调
+     *
+     * @param listener 回调
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * 停止探测
+     */
+    public void shutdown() {
+        probeScheduler.shutdownNow();
+    }
+
+    /**
+     * 累计判定为不可用的次数
+     */
+    public long getTripCount() {
+        return trips.sum();
+    }
+
+    /**
+     * 窗口分桶
+     */
+    private static class Bucket {
+        final AtomicLong epoch = new AtomicLong(-1);
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder slow = new LongAdder();
+
+        /**
+         * 分桶属于更早的周期时清零后复用（并发切换时少量计数可能落入旧周期，不影响判定）
+         */
+        void roll(long current) {
+            long previous = epoch.get();
+            if (previous != current && epoch.compareAndSet(previous, current)) {
+                calls.reset();
+                errors.reset();
+                slow.reset();
+            }
+        }
+
+        void reset(long value) {
+            epoch.set(value);
+            calls.reset();
+            errors.reset();
+            slow.reset();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点 key 副本
+ * 热点 key 额外写入 N 个带后缀的副本键（"缓存键#r{i}"，分布在不同 slot），读取时在主键和副本中随机选择，
+ * 把单个热点 key 的读压力分散到多个分片
+ *
+ * 副本与主键位于不同 slot，无法与主键在一个脚本内原子写入：写完副本后再读一次主键，
+ * 主键已被删除或改写时删除刚写入的副本（删除方先删主键再删副本，两者交错时副本总会被其中一方删除）。
+ * 以冷 key 身份写入、之后才变热的 key 没有副本，读到副本未命中而主键命中时按主键的值和剩余 TTL 补写副本。
+ * 删除时按本进程见过的最大副本数删除，调小 hotReplicaCount 后序号更大的旧副本同样会被删除
+ */
+@Slf4j
+public class RedisHotReplicas {
+
+    /**
+     * 同一 key 两次补写副本的最小间隔（毫秒）
+     */
+    private static final long REPAIR_INTERVAL_MS = 10000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 资源 -> 见过的最大副本数
+     */
+    private final Map<String, Integer> maxCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 近期已补写过副本的键
+     */
+    private final Cache<String, Boolean> repaired = Caffeine.newBuilder()
+            .expireAfterWrite(REPAIR_INTERVAL_MS, TimeUnit.MILLISECONDS)
+            .maximumSize(10000)
+            .build();
+
+    public RedisHotReplicas(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 获取副本键
+     *
+     * @param redisKey Redis 键（主键）
+     * @param index    副本序号
+     * @return 副本键
+     */
+    public static String replicaKey(String redisKey, int index) {
+        return redisKey + "#r" + index;
+    }
+
+    /**
+     * 记录资源配置的副本数
+     *
+     * @param resource 资源名称
+     * @param count    副本数
+     */
+    public void configure(String resource, int count) {
+        maxCounts.merge(resource, Math.max(0, count), Math::max);
+    }
+
+    /**
+     * 删除时需要覆盖的副本数（本进程见过的最大副本数）
+     *
+     * @param resource 资源名称
+     * @return 副本数
+     */
+    public int getMaxCount(String resource) {
+        return maxCounts.getOrDefault(resource, 0);
+    }
+
+    /**
+     * 以 pipeline 写入全部副本（与主键相同的值和 TTL），随后确认主键仍是写入的值，否则删除副本
+     *
+     * @param redisKey   Redis 键（主键）
+     * @param replicas   副本数
+     * @param bytes      主键中的原始字节
+     * @param ttlSeconds 过期时间（秒）
+     */
+    public void write(String redisKey, int replicas, byte[] bytes, long ttlSeconds) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < replicas; i++) {
+                connection.set(rawKey(replicaKey(redisKey, i)), bytes,
+                        Expiration.seconds(ttlSeconds), RedisStringCommands.SetOption.UPSERT);
+            }
+            return null;
+        });
+
+        byte[] primary = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey(redisKey)));
+        if (!Arrays.equals(primary, bytes)) {
+            log.debug("写入热点副本期间主键已被删除或改写，删除副本: key={}", redisKey);
+            delete(redisKey, replicas);
+        }
+    }
+
+    /**
+     * 按主键当前的值和剩余 TTL 补写副本（同一 key 在 REPAIR_INTERVAL_MS 内只补写一次）
+     *
+     * @param redisKey Redis 键（主键）
+     * @param replicas 副本数
+     * @return true 已补写
+     */
+    public boolean repair(String redisKey, int replicas) {
+        if (repaired.asMap().putIfAbsent(redisKey, Boolean.TRUE) != null) {
+            return false;
+        }
+        byte[] rawKey = rawKey(redisKey);
+        byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+        Long ttl = redisTemplate.execute((RedisCallback<Long>) connection -> connection.ttl(rawKey));
+        if (bytes == null || ttl == null || ttl <= 0) {
+            return false;
+        }
+        write(redisKey, replicas, bytes, ttl);
+        log.debug("补写热点副本: key={}, replicas={}, ttl={}s", redisKey, replicas, ttl);
+        return true;
+    }
+
+    private void delete(String redisKey, int replicas) {
+        byte[][] keys = new byte[replicas][];
+        for (int i = 0; i < replicas; i++) {
+            keys[i] = rawKey(replicaKey(redisKey, i));
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(keys));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+}
@@ -0,0 +1,327 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * L4 Redis 异步回写器（write-behind）
+ * 回源线程拿到数据后只把写入放入有界队列即返回，由后台线程以 pipeline 批量写入 Redis：
+ * 单机/哨兵模式下整批一次 pipeline 发送，Redis Cluster 模式下按 slot 分组并行发送
+ *
+ * 尚未写入的值保存在本地待写表中，本节点的读取直接返回待写值；同一 key 的多次写入只执行最新一次，
+ * 删除缓存时取消该 key 未执行的写入。已进入 pipeline 的写入无法取消，与删除并发时可能回写旧值，
+ * 需要强一致的资源应配合延迟双删使用
+ */
+@Slf4j
+public class RedisWriteBehind {
+
+    /**
+     * Redis 模板
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 单批最大写入数
+     */
+    private final int maxBatchSize;
+
+    /**
+     * 待执行写入
+     */
+    private final BlockingQueue<PendingWrite> queue;
+
+    /**
+     * 待写表
+     * Key: Redis 键
+     * Value: 该键最新一次尚未完成的写入
+     */
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 写入线程（首次提交时启动）
+     */
+    private volatile Thread worker;
+
+    private volatile boolean running = true;
+
+    /**
+     * 连接模式（首次发送时探测）
+     */
+    private final RedisConnectionMode connectionMode;
+
+    /**
+     * Cluster 模式下并行执行各 slot 分组的线程池（懒加载）
+     */
+    private volatile ThreadPoolExecutor ioExecutor;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public RedisWriteBehind(RedisTemplate<String, Object> redisTemplate, int queueCapacity, int maxBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.connectionMode = new RedisConnectionMode(redisTemplate);
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        log.info("L4 Redis 异步回写器创建: queueCapacity={}, maxBatchSize={}", queueCapacity, maxBatchSize);
+    }
+
+    /**
+     * 提交异步写入
+     *
+     * @param key        Redis 键
+     * @param value      原始值（写入完成前供本节点读取）
+     * @param bytes      写入 Redis 的原始字节
+     * @param ttlSeconds 过期时间（秒）
+     * @return true 已入队，false 队列已满（调用方应同步写入）
+     */
+    public boolean submit(String key, Object value, byte[] bytes, long ttlSeconds) {
+        PendingWrite write = new PendingWrite(key, value, bytes, ttlSeconds);
+        pending.put(key, write);
+        if (!ensureWorker() || !queue.offer(write)) {
+            pending.remove(key, write);
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取尚未写入 Redis 的值
+     *
+     * @param key Redis 键
+     * @return 待写值，没有返回 null
+     */
+    public Object getPendingValue(String key) {
+        PendingWrite write = pending.get(key);
+        return write != null ? write.value : null;
+    }
+
+    /**
+     * 取消该键尚未执行的写入（删除缓存时调用）
+     *
+     * @param key Redis 键
+     */
+    public void cancel(String key) {
+        pending.remove(key);
+    }
+
+    /**
+     * 停止写入线程，剩余写入直接执行
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 首次提交时启动写入线程，没有资源开启异步回写时不创建空闲线程
+     *
+     * @return false 已停止
+     */
+    private boolean ensureWorker() {
+        if (worker == null) {
+            synchronized (this) {
+                if (worker == null && running) {
+                    Thread thread = new Thread(this::runLoop, "hotarmor-l4-write-behind");
+                    thread.setDaemon(true);
+                    thread.start();
+                    worker = thread;
+                }
+            }
+        }
+        return running;
+    }
+
+    private void runLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("L4 Redis 异步回写异常: size={}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批数据：单机模式整批一次 pipeline，Cluster 模式按 slot 分组并行 pipeline
+     * 已被取消或被同一 key 更新的写入覆盖的条目直接跳过
+     *
+     * @param batch 写入列表
+     */
+    private void flush(List<PendingWrite> batch) {
+        List<PendingWrite> live = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            if (pending.get(write.key) == write) {
+                live.add(write);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        if (!connectionMode.isCluster()) {
+            write(live);
+            return;
+        }
+
+        Map<Integer, List<PendingWrite>> bySlot = new HashMap<>();
+        for (PendingWrite write : live) {
+            bySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(write.key), k -> new ArrayList<>()).add(write);
+        }
+        if (bySlot.size() == 1) {
+            write(live);
+            return;
+        }
+        ThreadPoolExecutor executor = getIoExecutor();
+        for (List<PendingWrite> writes : bySlot.values()) {
+            try {
+                executor.execute(() -> write(writes));
+            } catch (RejectedExecutionException e) {
+                write(writes);
+            }
+        }
+    }
+
+    /**
+     * 以一次往返写入一组数据，多条时使用 pipeline
+     *
+     * @param writes 写入列表（Cluster 模式下属于同一 slot）
+     */
+    private void write(List<PendingWrite> writes) {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                boolean pipelined = writes.size() > 1;
+                if (pipelined) {
+                    connection.openPipeline();
+                }
+                for (PendingWrite write : writes) {
+                    connection.set(rawKey(write.key), write.bytes, Expiration.seconds(write.ttlSeconds),
+                            RedisStringCommands.SetOption.UPSERT);
+                }
+                if (pipelined) {
+                    connection.closePipeline();
+                }
+                return null;
+            });
+            written.add(writes.size());
+        } catch (Exception e) {
+            failed.add(writes.size());
+            log.error("L4 Redis 异步回写失败: size={}", writes.size(), e);
+        } finally {
+            for (PendingWrite write : writes) {
+                pending.remove(write.key, write);
+            }
+        }
+    }
+
+    private ThreadPoolExecutor getIoExecutor() {
+        ThreadPoolExecutor executor = ioExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = ioExecutor;
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(1000), r -> {
+                        Thread thread = new Thread(r, "hotarmor-l4-write-behind-io-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    ioExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * 已写入 Redis 的条数
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * 因队列已满转为同步写入的条数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 写入失败的条数
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 待执行的写入
+     */
+    private static class PendingWrite {
+        final String key;
+        final Object value;
+        final byte[] bytes;
+        final long ttlSeconds;
+
+        PendingWrite(String key, Object value, byte[] bytes, long ttlSeconds) {
+            this.key = key;
+            this.value = value;
+            this.bytes = bytes;
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+}
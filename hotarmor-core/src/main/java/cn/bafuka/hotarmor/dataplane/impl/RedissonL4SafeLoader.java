@@ -2,16 +2,43 @@ package cn.bafuka.hotarmor.dataplane.impl;
 
 import cn.bafuka.hotarmor.core.HotArmorContext;
 import cn.bafuka.hotarmor.dataplane.L4SafeLoader;
+import cn.bafuka.hotarmor.exception.HotArmorLoadException;
 import cn.bafuka.hotarmor.model.HotArmorRule;
+import cn.bafuka.hotarmor.spi.LockStrategy;
+import cn.bafuka.hotarmor.spi.ValueCodec;
+import cn.bafuka.hotarmor.spi.impl.RedissonLockStrategy;
 import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
@@ -38,235 +65,2042 @@ public class RedissonL4SafeLoader<V> implements L4SafeLoader<V> {
      */
     private final Map<String, HotArmorRule.L4LoaderConfig> configMap = new ConcurrentHashMap<>();
 
+    /**
+     * 进程内正在进行的回源
+     * 同一 key 的并发回源合并为一次（singleflight），只有一个线程参与分布式锁竞争
+     * Key: Redis 键
+     * Value: 回源结果
+     */
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * "值已就绪"通知频道，消息内容为 Redis 键
+     * 持锁者回写 Redis 后发布，未抢到锁的等待者收到通知后立即读取，不必等到锁释放
+     */
+    private static final String VALUE_READY_CHANNEL = "hotarmor:l4:value-ready";
+
+    /**
+     * 等待"值已就绪"通知的信号
+     * Key: Redis 键
+     * Value: 通知到达时完成；本进程的持锁者完成时携带加载到的值（未回写 Redis 时等待者直接使用）
+     */
+    private final Map<String, CompletableFuture<Object>> readySignals = new ConcurrentHashMap<>();
+
+    /**
+     * 通知 Topic（首次使用时创建）
+     */
+    private volatile RTopic readyTopic;
+
+    /**
+     * 是否已订阅通知
+     */
+    private volatile boolean readySubscribed;
+
+    /**
+     * 从节点读模板（可选，连接工厂配置为读从节点，资源开启 readFromReplicaEnabled 时使用）
+     */
+    private volatile RedisTemplate<String, Object> replicaRedisTemplate;
+
+    /**
+     * 近期写入记录的保留时间（毫秒），即 replicaReadAfterWriteMs 的上限
+     */
+    private static final long RECENT_WRITE_RETENTION_MS = 10000;
+
+    /**
+     * 本节点最近写入或删除的 Redis 键 -> 时间戳（毫秒），窗口内读主节点以保证读到自己的写入
+     */
+    private final Cache<String, Long> recentWrites = Caffeine.newBuilder()
+            .expireAfterWrite(RECENT_WRITE_RETENTION_MS, TimeUnit.MILLISECONDS)
+            .maximumSize(100000)
+            .build();
+
+    /**
+     * Redis 微批执行器（可选，资源开启 batchEnabled 时使用）
+     */
+    private volatile RedisBatchExecutor batchExecutor;
+
+    /**
+     * Redis 异步回写器（可选，资源开启 asyncWriteBackEnabled 时使用）
+     */
+    private volatile RedisWriteBehind writeBehind;
+
+    /**
+     * 回源锁策略
+     */
+    private volatile LockStrategy lockStrategy;
+
+    /**
+     * 缓存租约（资源开启 leaseEnabled 时使用）
+     */
+    private final RedisCacheLease cacheLease;
+
+    /**
+     * 热点副本（资源配置 hotReplicaCount 时使用）
+     */
+    private final RedisHotReplicas hotReplicas;
+
+    /**
+     * 值编解码器（可选，未设置时使用 RedisTemplate 的值序列化器）
+     */
+    private volatile ValueCodec valueCodec;
+
+    /**
+     * 值压缩器（仅开启压缩的资源）
+     * Key: resource 名称
+     */
+    private final Map<String, ValueCompressor> compressors = new ConcurrentHashMap<>();
+
+    /**
+     * 压缩统计
+     * Key: resource 名称
+     */
+    private final Map<String, ValueCompressor.Stats> compressionStats = new ConcurrentHashMap<>();
+
+    /**
+     * 回写准入统计
+     * Key: resource 名称
+     */
+    private final Map<String, AdmissionStats> admissionStats = new ConcurrentHashMap<>();
+
+    /**
+     * 错误缓存（仅开启错误缓存的资源）
+     * Key: resource 名称
+     * Value: 缓存键 -> 窗口内复用的无堆栈异常
+     */
+    private final Map<String, Cache<Object, HotArmorLoadException>> errorCaches = new ConcurrentHashMap<>();
+
+    /**
+     * 每个资源错误缓存的最大 key 数
+     */
+    private static final int ERROR_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * 资源 -> 数据库回源并发限制器
+     */
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 资源 -> 集群回源限流器
+     */
+    private final Map<String, ClusterRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * 集群回源限流令牌桶的 Redis 键前缀
+     */
+    private static final String RATE_LIMIT_KEY_PREFIX = "hotarmor:ratelimit:";
+
+    /**
+     * Redis 读取对冲执行器（按资源）
+     */
+    private final Map<String, RequestHedger> redisHedgers = new ConcurrentHashMap<>();
+
+    /**
+     * 数据库回源对冲执行器（按资源）
+     */
+    private final Map<String, RequestHedger> dbHedgers = new ConcurrentHashMap<>();
+
+    /**
+     * 数据库对冲线程池（懒加载），主请求和对冲请求都在其中执行
+     */
+    private volatile ThreadPoolExecutor hedgeExecutor;
+
+    /**
+     * Redis 对冲调度线程池（懒加载），主读取在调用线程执行，只有延迟触发的对冲读取在其中执行
+     */
+    private volatile ScheduledThreadPoolExecutor hedgeScheduler;
+
+    /**
+     * Redis 旁路（可选，设置健康跟踪器时创建）
+     */
+    private volatile RedisBypass redisBypass;
+
+    /**
+     * 本进程正在异步刷新的 Redis 键
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 异步刷新线程池（首次需要刷新时创建）
+     */
+    private volatile ThreadPoolExecutor refreshExecutor;
+
     public RedissonL4SafeLoader(RedissonClient redissonClient, RedisTemplate<String, Object> redisTemplate) {
         this.redissonClient = redissonClient;
         this.redisTemplate = redisTemplate;
+        this.lockStrategy = new RedissonLockStrategy(redissonClient);
+        this.cacheLease = new RedisCacheLease(redisTemplate);
+        this.hotReplicas = new RedisHotReplicas(redisTemplate);
+    }
+
+    /**
+     * 设置回源锁策略
+     *
+     * @param lockStrategy 锁策略
+     */
+    public void setLockStrategy(LockStrategy lockStrategy) {
+        this.lockStrategy = lockStrategy;
+    }
+
+    /**
+     * 设置 Redis 异步回写器
+     *
+     * @param writeBehind 异步回写器
+     */
+    public void setWriteBehind(RedisWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * 设置 Redis 健康跟踪器，开启 Redis 不可用时的自动旁路（见 {@link RedisBypass}）
+     *
+     * @param redisHealthTracker 健康跟踪器
+     * @param localTtlSeconds    本地替代缓存过期时间（秒）
+     * @param localMaximumSize   本地替代缓存最大条数
+     */
+    public void setRedisHealthTracker(RedisHealthTracker redisHealthTracker, long localTtlSeconds, long localMaximumSize) {
+        this.redisBypass = new RedisBypass(redisHealthTracker, localTtlSeconds, localMaximumSize);
+    }
+
+    /**
+     * 设置从节点读模板
+     *
+     * @param replicaRedisTemplate 连接工厂配置为读从节点的 RedisTemplate
+     */
+    public void setReplicaRedisTemplate(RedisTemplate<String, Object> replicaRedisTemplate) {
+        this.replicaRedisTemplate = replicaRedisTemplate;
+    }
+
+    /**
+     * 设置 Redis 微批执行器
+     *
+     * @param batchExecutor 微批执行器
+     */
+    public void setBatchExecutor(RedisBatchExecutor batchExecutor) {
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * 设置值编解码器
+     *
+     * @param valueCodec 值编解码器
+     */
+    public void setValueCodec(ValueCodec valueCodec) {
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * 注册配置
+     *
+     * @param resource 资源名称
+     * @param config   L4 配置
+     */
+    public void registerConfig(String resource, HotArmorRule.L4LoaderConfig config) {
+        configMap.put(resource, config);
+        hotReplicas.configure(resource, config.getHotReplicaCount());
+        if (config.isCompressEnabled()) {
+            compressors.put(resource, new ValueCompressor(config.getCompressThresholdBytes(), statsFor(resource)));
+        } else {
+            compressors.remove(resource);
+        }
+        if (config.isConcurrencyLimitEnabled()) {
+            AdaptiveConcurrencyLimiter limiter = limiters.get(resource);
+            if (limiter != null) {
+                limiter.reconfigure(config.getConcurrencyMinLimit(), config.getConcurrencyMaxLimit());
+            } else {
+                limiters.put(resource, new AdaptiveConcurrencyLimiter(config.getConcurrencyInitialLimit(),
+                        config.getConcurrencyMinLimit(), config.getConcurrencyMaxLimit()));
+            }
+        } else {
+            limiters.remove(resource);
+        }
+        if (config.isClusterRateLimitEnabled()) {
+            long burst = config.getClusterRateLimitBurst() > 0
+                    ? config.getClusterRateLimitBurst()
+                    : (long) Math.ceil(config.getClusterRateLimitPermitsPerSecond());
+            ClusterRateLimiter rateLimiter = rateLimiters.get(resource);
+            if (rateLimiter != null) {
+                rateLimiter.reconfigure(config.getClusterRateLimitPermitsPerSecond(), burst,
+                        config.getClusterRateLimitPrefetch());
+            } else {
+                rateLimiters.put(resource, new ClusterRateLimiter(redisTemplate, RATE_LIMIT_KEY_PREFIX + resource,
+                        config.getClusterRateLimitPermitsPerSecond(), burst, config.getClusterRateLimitPrefetch()));
+            }
+        } else {
+            rateLimiters.remove(resource);
+        }
+        if (config.isErrorCacheEnabled()) {
+            errorCaches.put(resource, Caffeine.newBuilder()
+                    .expireAfterWrite(config.getErrorCacheTtlMs(), TimeUnit.MILLISECONDS)
+                    .maximumSize(ERROR_CACHE_MAX_SIZE)
+                    .build());
+        } else {
+            errorCaches.remove(resource);
+        }
+        configureHedger(redisHedgers, resource, config, config.isRedisHedgeEnabled());
+        configureHedger(dbHedgers, resource, config, config.isDbHedgeEnabled());
+    }
+
+    private static void configureHedger(Map<String, RequestHedger> hedgers, String resource,
+                                        HotArmorRule.L4LoaderConfig config, boolean enabled) {
+        if (!enabled) {
+            hedgers.remove(resource);
+            return;
+        }
+        RequestHedger hedger = hedgers.get(resource);
+        if (hedger != null) {
+            hedger.reconfigure(config.getHedgeDelayPercentile(), config.getHedgeMinDelayMs(),
+                    config.getHedgeBudgetPercent());
+        } else {
+            hedgers.put(resource, new RequestHedger(config.getHedgeDelayPercentile(),
+                    config.getHedgeMinDelayMs(), config.getHedgeBudgetPercent()));
+        }
+    }
+
+    /**
+     * 获取数据库回源并发限制器
+     *
+     * @param resource 资源名称
+     * @return 并发限制器，未开启返回 null
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter(String resource) {
+        return limiters.get(resource);
+    }
+
+    /**
+     * 获取集群回源限流器
+     *
+     * @param resource 资源名称
+     * @return 集群回源限流器，未开启返回 null
+     */
+    public ClusterRateLimiter getClusterRateLimiter(String resource) {
+        return rateLimiters.get(resource);
+    }
+
+    /**
+     * 获取 Redis 读取对冲执行器
+     *
+     * @param resource 资源名称
+     * @return 对冲执行器，未开启返回 null
+     */
+    public RequestHedger getRedisHedger(String resource) {
+        return redisHedgers.get(resource);
+    }
+
+    /**
+     * 获取数据库回源对冲执行器
+     *
+     * @param resource 资源名称
+     * @return 对冲执行器，未开启返回 null
+     */
+    public RequestHedger getDbHedger(String resource) {
+        return dbHedgers.get(resource);
+    }
+
+    /**
+     * 获取压缩统计
+     *
+     * @param resource 资源名称
+     * @return 压缩统计，从未压缩/解压过返回 null
+     */
+    public ValueCompressor.Stats getCompressionStats(String resource) {
+        return compressionStats.get(resource);
+    }
+
+    /**
+     * 获取回写准入统计
+     *
+     * @param resource 资源名称
+     * @return 准入统计，从未触发准入判定返回 null
+     */
+    public AdmissionStats getAdmissionStats(String resource) {
+        return admissionStats.get(resource);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V load(HotArmorContext context, Function<Object, V> dbLoader) {
+        if (context == null || context.getResource() == null) {
+            return null;
+        }
+
+        // 1. 先查 Redis（热点 key 可读副本）
+        CachedEntry entry = getEntryFromRedis(context, true);
+        V value = entry != null ? (V) entry.value : null;
+        if (value != null) {
+            log.debug("L4 回源命中 Redis: resource={}, key={}", context.getResource(), context.getKey());
+            if (needsRefresh(context, entry, System.currentTimeMillis())) {
+                // 逻辑过期或概率提前刷新：直接返回当前值，后台异步刷新
+                scheduleRefresh(context, dbLoader, entry.expireAt);
+            }
+            return value;
+        }
+
+        // 2. Redis 未命中，进程内合并同一 key 的并发回源
+        String flightKey = getRedisKey(context);
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(flightKey, future);
+        if (existing != null) {
+            return awaitInFlight(context, existing, dbLoader);
+        }
+
+        try {
+            value = loadGuarded(context, dbLoader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, future);
+        }
+    }
+
+    /**
+     * 判断命中的值是否需要异步刷新
+     * 已逻辑过期时必定刷新；开启概率提前刷新时按 XFetch 判定：
+     * now - cost * beta * ln(rand) >= expireAt，回源越慢、越接近过期，刷新概率越高
+     *
+     * @param context 上下文
+     * @param entry   缓存条目
+     * @param now     当前时间戳（毫秒）
+     * @return true 需要刷新
+     */
+    private boolean needsRefresh(HotArmorContext context, CachedEntry entry, long now) {
+        if (entry.expireAt <= 0) {
+            return false;
+        }
+        if (entry.isExpired(now)) {
+            return true;
+        }
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (config == null || !config.isEarlyRefreshEnabled() || entry.costMs <= 0) {
+            return false;
+        }
+        double gap = -entry.costMs * config.getEarlyRefreshBeta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= entry.expireAt;
+    }
+
+    /**
+     * 异步刷新
+     * 同一进程内同一 key 只提交一次；刷新线程非阻塞抢锁，抢不到说明其他节点正在刷新
+     *
+     * @param context          上下文
+     * @param dbLoader         数据库加载函数
+     * @param observedExpireAt 读到的值的逻辑过期时间，用于判断值是否已被其他节点刷新
+     */
+    private void scheduleRefresh(HotArmorContext context, Function<Object, V> dbLoader, long observedExpireAt) {
+        String redisKey = getRedisKey(context);
+        if (!refreshing.add(redisKey)) {
+            return;
+        }
+
+        // 刷新线程使用独立的上下文，不修改仍在请求线程中使用的上下文
+        HotArmorContext refreshContext = copyForRefresh(context);
+        try {
+            getRefreshExecutor().execute(() -> {
+                try {
+                    refresh(refreshContext, dbLoader, redisKey, observedExpireAt);
+                } finally {
+                    refreshing.remove(redisKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(redisKey);
+            log.warn("L4 异步刷新队列已满，跳过本次刷新: resource={}, key={}",
+                    context.getResource(), context.getKey());
+        }
+    }
+
+    /**
+     * 复制刷新所需的请求信息（回源耗时等由刷新线程写入的字段不复制）
+     */
+    private static HotArmorContext copyForRefresh(HotArmorContext context) {
+        return HotArmorContext.builder()
+                .resource(context.getResource())
+                .key(context.getKey())
+                .args(context.getArgs())
+                .targetClass(context.getTargetClass())
+                .methodName(context.getMethodName())
+                .valueType(context.getValueType())
+                .parameterTypes(context.getParameterTypes())
+                .fallbackMethod(context.getFallbackMethod())
+                .accessFrequency(context.getAccessFrequency())
+                .hotspot(context.isHotspot())
+                .build();
+    }
+
+    /**
+     * 刷新 Redis 中的值（在刷新线程中执行）
+     *
+     * @param context          上下文
+     * @param dbLoader         数据库加载函数
+     * @param redisKey         Redis 键
+     * @param observedExpireAt 读到的值的逻辑过期时间
+     */
+    private void refresh(HotArmorContext context, Function<Object, V> dbLoader, String redisKey,
+                         long observedExpireAt) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        long leaseTimeMs = config != null ? config.getLockLeaseTimeMs() : 5000;
+        LockStrategy.Lock lock = null;
+        FillResult fill = FillResult.SKIPPED;
+        V value = null;
+        try {
+            lock = lockStrategy.tryLock(redisKey, 0, leaseTimeMs);
+            if (lock == null) {
+                log.debug("L4 异步刷新已由其他节点执行: resource={}, key={}",
+                        context.getResource(), context.getKey());
+                return;
+            }
+
+            // 二次检查，过期时间变化说明其他节点刚完成刷新
+            CachedEntry entry = getEntryFromRedis(context, false);
+            if (entry != null && entry.value != null && entry.expireAt != observedExpireAt) {
+                return;
+            }
+
+            value = loadFromDb(context, dbLoader);
+            if (value != null) {
+                // 刷新的是仍在被读取的值，不再做回写准入
+                fill = fillAndUnlock(context, lock, value, false);
+                log.debug("L4 异步刷新完成: resource={}, key={}, cost={}ms",
+                        context.getResource(), context.getKey(), context.getLoadCostMs());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("L4 异步刷新失败，继续使用旧值: resource={}, key={}",
+                    context.getResource(), context.getKey(), e);
+        } finally {
+            if (lock != null) {
+                publishValueReady(redisKey, value, fill.written);
+                if (!fill.released) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private ThreadPoolExecutor getRefreshExecutor() {
+        ThreadPoolExecutor executor = refreshExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = refreshExecutor;
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(2, 8, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(1000), r -> {
+                        Thread thread = new Thread(r, "hotarmor-l4-refresh-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+                    refreshExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 获取数据库对冲线程池
+     * 不排队：线程数达到上限时主请求在调用线程执行、对冲请求放弃
+     */
+    private ThreadPoolExecutor getHedgeExecutor() {
+        ThreadPoolExecutor executor = hedgeExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = hedgeExecutor;
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(0, 64, 60, TimeUnit.SECONDS,
+                            new SynchronousQueue<>(), r -> {
+                        Thread thread = new Thread(r, "hotarmor-l4-hedge-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+                    hedgeExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 获取 Redis 对冲调度线程池
+     * 主读取先返回时取消尚未触发的对冲任务，不在队列中堆积
+     */
+    private ScheduledThreadPoolExecutor getHedgeScheduler() {
+        ScheduledThreadPoolExecutor executor = hedgeScheduler;
+        if (executor == null) {
+            synchronized (this) {
+                executor = hedgeScheduler;
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ScheduledThreadPoolExecutor(4, r -> {
+                        Thread thread = new Thread(r, "hotarmor-l4-hedge-scheduler-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    hedgeScheduler = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 关闭异步刷新线程池和对冲线程池
+     */
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 等待进程内其他线程的回源结果
+     * 等待时间上限为锁等待时间 + 锁租约时间，超时后自行回源
+     *
+     * @param context  上下文
+     * @param future   进行中的回源
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     */
+    private V awaitInFlight(HotArmorContext context, CompletableFuture<V> future, Function<Object, V> dbLoader) {
+        log.debug("L4 回源合并，等待进程内进行中的加载: resource={}, key={}",
+                context.getResource(), context.getKey());
+
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        long timeoutMs = config != null ? config.getLockWaitTimeMs() + config.getLockLeaseTimeMs() : 8000;
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("L4 回源合并等待被中断: resource={}, key={}", context.getResource(), context.getKey(), e);
+            return loadFromDb(context, dbLoader);
+        } catch (TimeoutException e) {
+            log.warn("L4 回源合并等待超时，自行回源: resource={}, key={}, timeout={}ms",
+                    context.getResource(), context.getKey(), timeoutMs);
+            return loadGuarded(context, dbLoader);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 按资源配置在租约或分布式锁保护下回源
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     */
+    private V loadGuarded(HotArmorContext context, Function<Object, V> dbLoader) {
+        if (isRedisBypassed()) {
+            return loadBypassingRedis(context, dbLoader);
+        }
+        if (isLeaseEnabled(context.getResource())) {
+            return loadWithLease(context, dbLoader);
+        }
+        return isColdKey(context) ? loadDirect(context, dbLoader) : loadWithLock(context, dbLoader);
+    }
+
+    /**
+     * 是否为无需加回源锁的冷 key
+     * 热点 key、频率未知的 key 以及未配置阈值的资源始终加锁
+     *
+     * @param context 上下文
+     * @return true 冷 key
+     */
+    private boolean isColdKey(HotArmorContext context) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        return config != null && isBelowFrequency(context, config.getLockFrequencyThreshold());
+    }
+
+    /**
+     * 非热点 key 的访问频率估计是否低于阈值
+     *
+     * @param context   上下文
+     * @param threshold 频率阈值，0 表示不判定
+     * @return true 低于阈值
+     */
+    private static boolean isBelowFrequency(HotArmorContext context, long threshold) {
+        if (threshold <= 0 || context.isHotspot()) {
+            return false;
+        }
+        long frequency = context.getAccessFrequency();
+        return frequency >= 0 && frequency < threshold;
+    }
+
+    /**
+     * 按回写准入策略计算回写 TTL
+     * 非热点且访问频率低于 admissionFrequencyThreshold 的冷 key 不回写，或改用 admissionColdTtlSeconds
+     *
+     * @param context    上下文
+     * @param ttlSeconds 原回写 TTL（秒）
+     * @return 实际回写 TTL（秒），-1 表示不回写
+     */
+    private long admitTtl(HotArmorContext context, long ttlSeconds) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (config == null || config.getAdmissionFrequencyThreshold() <= 0) {
+            return ttlSeconds;
+        }
+
+        AdmissionStats stats = admissionStats.computeIfAbsent(context.getResource(), k -> new AdmissionStats());
+        if (!isBelowFrequency(context, config.getAdmissionFrequencyThreshold())) {
+            stats.admitted.increment();
+            return ttlSeconds;
+        }
+        if (config.getAdmissionColdTtlSeconds() <= 0) {
+            stats.skipped.increment();
+            log.debug("L4 冷 key 未通过回写准入，不回写 Redis: resource={}, key={}, frequency={}",
+                    context.getResource(), context.getKey(), context.getAccessFrequency());
+            return -1;
+        }
+        stats.shortened.increment();
+        return Math.min(ttlSeconds, config.getAdmissionColdTtlSeconds());
+    }
+
+    /**
+     * 不加分布式锁直接回源并回写 Redis（冷 key，进程内仍已合并）
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     */
+    private V loadDirect(HotArmorContext context, Function<Object, V> dbLoader) {
+        log.debug("L4 冷 key 跳过回源锁: resource={}, key={}, frequency={}",
+                context.getResource(), context.getKey(), context.getAccessFrequency());
+        V value = loadFromDb(context, dbLoader);
+        if (value != null) {
+            writeBack(context, value);
+        }
+        return value;
+    }
+
+    /**
+     * Redis 不可用时回源：不加分布式锁（进程内已合并），结果写入本地替代缓存
+     */
+    private V loadBypassingRedis(HotArmorContext context, Function<Object, V> dbLoader) {
+        log.debug("L4 Redis 不可用，跳过 Redis 和回源锁: resource={}, key={}",
+                context.getResource(), context.getKey());
+        V value = loadFromDb(context, dbLoader);
+        if (value != null) {
+            redisBypass.putLocal(getRedisKey(context), value);
+        }
+        return value;
+    }
+
+    /**
+     * Redis 是否被判定为不可用（未设置健康跟踪器时始终可用）
+     */
+    private boolean isRedisBypassed() {
+        RedisBypass bypass = redisBypass;
+        return bypass != null && bypass.isActive();
+    }
+
+    /**
+     * 记录一次 Redis 调用结果到健康跟踪器
+     *
+     * @param startNanos 开始时间（System.nanoTime）
+     * @param failed     是否失败
+     */
+    private void recordRedisCall(long startNanos, boolean failed) {
+        RedisBypass bypass = redisBypass;
+        if (bypass != null) {
+            bypass.record(startNanos, failed);
+        }
+    }
+
+    @Override
+    public boolean isLeaseEnabled(String resource) {
+        HotArmorRule.L4LoaderConfig config = resource != null ? configMap.get(resource) : null;
+        return config != null && config.isLeaseEnabled();
+    }
+
+    /**
+     * 在租约保护下回源
+     * 获得租约者查 DB 并回填（租约期间被失效则放弃回填）；未获得租约者等待回填通知后重试，
+     * 在 valueReadyTimeoutMs 内仍未拿到值则直接查 DB 且不回填，避免写入可能已过时的值
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     */
+    @SuppressWarnings("unchecked")
+    private V loadWithLease(HotArmorContext context, Function<Object, V> dbLoader) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        String redisKey = getRedisKey(context);
+        long deadline = System.currentTimeMillis() + config.getValueReadyTimeoutMs();
+
+        try {
+            while (true) {
+                RedisCacheLease.Result result = cacheLease.acquire(redisKey, config.getLeaseTtlMs());
+                if (result.getValue() != null) {
+                    CachedEntry entry = decodeEntry(context, result.getValue());
+                    if (entry != null) {
+                        return (V) entry.value;
+                    }
+                }
+
+                if (result.getToken() != null) {
+                    return loadAndFill(context, dbLoader, redisKey, result.getToken());
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                V value = awaitValueReady(context, Math.min(remaining, config.getLeaseRetryMs()));
+                if (value != null) {
+                    return value;
+                }
+            }
+        } catch (HotArmorLoadException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("L4 租约回源异常: resource={}, key={}", context.getResource(), context.getKey(), e);
+            return loadFromDb(context, dbLoader);
+        }
+
+        log.warn("L4 等待租约持有者回填超时，直接查询 DB（不回填）: resource={}, key={}, timeout={}ms",
+                context.getResource(), context.getKey(), config.getValueReadyTimeoutMs());
+        return loadFromDb(context, dbLoader);
+    }
+
+    /**
+     * 持有租约时查 DB 并回填
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @param redisKey Redis 键
+     * @param token    租约令牌
+     * @return 数据
+     */
+    private V loadAndFill(HotArmorContext context, Function<Object, V> dbLoader, String redisKey, byte[] token) {
+        boolean filled = false;
+        V value = null;
+        try {
+            value = loadFromDb(context, dbLoader);
+            HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+            long ttl = value != null ? admitTtl(context, config.getRedisTtlSeconds()) : -1;
+            if (ttl > 0) {
+                EncodedValue encoded = encodeValue(context, value, ttl);
+                markWritten(context, redisKey);
+                filled = cacheLease.fill(redisKey, token, encoded.bytes, encoded.ttlSeconds);
+                if (filled) {
+                    writeReplicas(context, redisKey, encoded);
+                } else {
+                    log.info("L4 租约已失效，放弃回填: resource={}, key={}", context.getResource(), context.getKey());
+                }
+            }
+            return value;
+        } finally {
+            if (!filled) {
+                try {
+                    cacheLease.release(redisKey, token);
+                } catch (Exception e) {
+                    log.warn("L4 释放租约失败: resource={}, key={}", context.getResource(), context.getKey(), e);
+                }
+            }
+            publishValueReady(redisKey, value, filled);
+        }
+    }
+
+    /**
+     * 在分布式锁保护下回源
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     */
+    private V loadWithLock(HotArmorContext context, Function<Object, V> dbLoader) {
+        V value;
+        String redisKey = getRedisKey(context);
+
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (config == null) {
+            // 未配置，直接查 DB
+            return loadFromDb(context, dbLoader);
+        }
+
+        try {
+            // 尝试获取锁
+            LockStrategy.Lock lock = lockStrategy.tryLock(redisKey, config.getLockWaitTimeMs(), config.getLockLeaseTimeMs());
+
+            if (lock != null) {
+                FillResult fill = FillResult.SKIPPED;
+                value = null;
+                try {
+                    // 获取到锁，Double-Check
+                    value = getFromRedis(context, false);
+                    if (value != null) {
+                        log.debug("L4 回源二次检查命中 Redis: resource={}, key={}",
+                                context.getResource(), context.getKey());
+                        return value;
+                    }
+
+                    // 仍然未命中，查询 DB
+                    value = loadFromDb(context, dbLoader);
+
+                    // 回写 Redis（锁策略支持时与解锁合并为一次往返）
+                    if (value != null) {
+                        fill = fillAndUnlock(context, lock, value, true);
+                    }
+
+                    return value;
+
+                } finally {
+                    // 只有真正回写后才通知其他节点重读 Redis；未回写（空值、未通过准入）时只把值交给本进程的等待者
+                    publishValueReady(redisKey, value, fill.written);
+                    if (!fill.released) {
+                        lock.unlock();
+                    }
+                }
+            } else {
+                // 未获取到锁，说明有其他线程正在加载数据
+                // 等待持锁者的"值已就绪"通知，而不是立即降级查 DB
+                log.debug("L4 回源未获取到锁，等待其他线程完成加载: resource={}, key={}",
+                        context.getResource(), context.getKey());
+
+                value = awaitValueReady(context, config.getValueReadyTimeoutMs());
+                if (value != null) {
+                    return value;
+                }
+
+                // 等待超时或持锁者未加载到数据，降级查 DB
+                log.warn("等待超时，降级查询 DB: resource={}, key={}, timeout={}ms",
+                        context.getResource(), context.getKey(), config.getValueReadyTimeoutMs());
+
+                // 降级时查询 DB
+                value = loadFromDb(context, dbLoader);
+
+                // 降级加载的数据也应该回写 Redis，使用较短的 TTL（避免后续请求继续查 DB）
+                // 使用较短的 TTL（60 秒），避免降级数据长期存在
+                long fallbackTtl = value != null ? admitTtl(context, 60) : -1;
+                if (fallbackTtl > 0 && !submitWriteBehind(context, redisKey, value, fallbackTtl)) {
+                    try {
+                        writeValue(context, redisKey, value, fallbackTtl);
+                        log.debug("降级数据已回写 Redis: resource={}, key={}, ttl={}s",
+                                context.getResource(), context.getKey(), fallbackTtl);
+                    } catch (Exception e) {
+                        log.error("降级数据回写 Redis 失败: resource={}, key={}",
+                                context.getResource(), context.getKey(), e);
+                    }
+                }
+
+                return value;
+            }
+
+        } catch (InterruptedException e) {
+            log.error("L4 回源被中断: resource={}, key={}", context.getResource(), context.getKey(), e);
+            Thread.currentThread().interrupt();
+            return loadFromDb(context, dbLoader);
+
+        } catch (HotArmorLoadException e) {
+            // 超出集群速率、并发限制或命中错误缓存，不再重复回源
+            throw e;
+
+        } catch (Exception e) {
+            log.error("L4 回源异常: resource={}, key={}", context.getResource(), context.getKey(), e);
+            return loadFromDb(context, dbLoader);
+        }
+    }
+
+    /**
+     * 持锁者回写 Redis
+     * 锁策略支持 writeAndUnlock 时写入与解锁在一次往返内原子完成，否则普通写入，由调用方解锁
+     *
+     * @param context   上下文
+     * @param lock      已持有的锁
+     * @param value     值
+     * @param admission 是否做回写准入
+     * @return 是否已回写、锁是否已随写入释放
+     */
+    private FillResult fillAndUnlock(HotArmorContext context, LockStrategy.Lock lock, V value, boolean admission) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        long ttl = config != null ? config.getRedisTtlSeconds() : 300;
+        if (admission) {
+            ttl = admitTtl(context, ttl);
+            if (ttl <= 0) {
+                return FillResult.SKIPPED;
+            }
+        }
+        if (!lock.supportsWriteAndUnlock()) {
+            return writeToRedis(context, value, ttl) ? FillResult.WRITTEN : FillResult.SKIPPED;
+        }
+
+        String redisKey = getRedisKey(context);
+        try {
+            EncodedValue encoded = encodeValue(context, value, ttl);
+            markWritten(context, redisKey);
+            byte[] rawKey = rawKey(redisKey);
+            boolean written = lock.writeAndUnlock(rawKey, encoded.bytes, encoded.ttlSeconds,
+                    () -> redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(rawKey,
+                            encoded.bytes, Expiration.seconds(encoded.ttlSeconds), RedisStringCommands.SetOption.UPSERT)));
+            if (written) {
+                writeReplicas(context, redisKey, encoded);
+                return FillResult.WRITTEN_AND_UNLOCKED;
+            }
+            log.warn("L4 回源锁已过期或被其他持有者获取，放弃回写: resource={}, key={}",
+                    context.getResource(), context.getKey());
+            return FillResult.UNLOCKED;
+        } catch (Exception e) {
+            log.error("写入 Redis 失败: resource={}, key={}", context.getResource(), context.getKey(), e);
+            return FillResult.SKIPPED;
+        }
+    }
+
+    /**
+     * 等待持锁者回写 Redis
+     * 收到通知后立即读取；同时按 100ms 起步、最大 500ms 的间隔兜底检查 Redis，防止通知丢失；
+     * 本进程的持锁者未回写 Redis 时直接使用其交出的值
+     *
+     * @param context   上下文
+     * @param timeoutMs 最长等待时间
+     * @return Redis 中的数据，超时或持锁者未加载到数据返回 null
+     * @throws InterruptedException 等待被中断
+     */
+    @SuppressWarnings("unchecked")
+    private V awaitValueReady(HotArmorContext context, long timeoutMs) throws InterruptedException {
+        String redisKey = getRedisKey(context);
+        CompletableFuture<Object> signal = readySignals.computeIfAbsent(redisKey, k -> new CompletableFuture<>());
+        subscribeValueReady();
+
+        try {
+            // 注册信号后再检查一次，避免错过注册前的回写（持有者先写主键，只读主键）
+            V value = getFromRedis(context, false);
+            if (value != null) {
+                return value;
+            }
+
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            long checkIntervalMs = 100;
+            long remaining;
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                boolean notified;
+                try {
+                    Object handedOver = signal.get(Math.min(checkIntervalMs, remaining), TimeUnit.MILLISECONDS);
+                    if (handedOver != null) {
+                        return (V) handedOver;
+                    }
+                    notified = true;
+                } catch (TimeoutException e) {
+                    notified = false;
+                } catch (ExecutionException e) {
+                    notified = true;
+                }
+
+                value = getFromRedis(context, false);
+                if (value != null) {
+                    log.debug("等待成功，从 Redis 获取到数据: notified={}, resource={}, key={}",
+                            notified, context.getResource(), context.getKey());
+                    return value;
+                }
+                if (notified) {
+                    // 持锁者已完成但未回写（数据为空），无需继续等待
+                    return null;
+                }
+                checkIntervalMs = Math.min(checkIntervalMs * 2, 500);
+            }
+            return null;
+
+        } finally {
+            readySignals.remove(redisKey, signal);
+        }
+    }
+
+    /**
+     * 订阅"值已就绪"通知（只订阅一次）
+     * 订阅失败时等待者退化为按间隔检查 Redis
+     */
+    private void subscribeValueReady() {
+        if (readySubscribed) {
+            return;
+        }
+        synchronized (this) {
+            if (readySubscribed) {
+                return;
+            }
+            readySubscribed = true;
+            RTopic topic = getReadyTopic();
+            if (topic == null) {
+                return;
+            }
+            try {
+                topic.addListener(String.class, (channel, redisKey) -> completeReadySignal(redisKey, null));
+                log.info("订阅 L4 值就绪通知: channel={}", VALUE_READY_CHANNEL);
+            } catch (Exception e) {
+                log.warn("订阅 L4 值就绪通知失败，退化为轮询 Redis: channel={}", VALUE_READY_CHANNEL, e);
+            }
+        }
+    }
+
+    /**
+     * 发布"值已就绪"通知
+     * 本进程的等待者直接拿到加载的值；只有已回写 Redis 时才通知其他节点重读，
+     * 否则其他节点的等待者收到通知后读到空值会各自回源
+     *
+     * @param redisKey Redis 键
+     * @param value    加载到的值，可能为 null
+     * @param written  是否已回写 Redis
+     */
+    private void publishValueReady(String redisKey, Object value, boolean written) {
+        completeReadySignal(redisKey, value);
+        if (!written) {
+            return;
+        }
+
+        RTopic topic = getReadyTopic();
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.publishAsync(redisKey);
+        } catch (Exception e) {
+            log.warn("发布 L4 值就绪通知失败: key={}", redisKey, e);
+        }
+    }
+
+    private void completeReadySignal(String redisKey, Object value) {
+        CompletableFuture<Object> signal = readySignals.remove(redisKey);
+        if (signal != null) {
+            signal.complete(value);
+        }
+    }
+
+    private RTopic getReadyTopic() {
+        RTopic topic = readyTopic;
+        if (topic == null) {
+            try {
+                topic = redissonClient.getTopic(VALUE_READY_CHANNEL, StringCodec.INSTANCE);
+                readyTopic = topic;
+            } catch (Exception e) {
+                log.warn("获取 L4 值就绪通知 Topic 失败: channel={}", VALUE_READY_CHANNEL, e);
+            }
+        }
+        return topic;
+    }
+
+    @Override
+    public V getFromRedis(HotArmorContext context) {
+        return getFromRedis(context, true);
+    }
+
+    /**
+     * 读取 Redis 中的值
+     *
+     * @param context 上下文
+     * @param routed  是否允许热点 key 读副本；回源内部的二次检查和等待回填只读主键
+     * @return 数据，不存在或读取失败返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private V getFromRedis(HotArmorContext context, boolean routed) {
+        if (context == null || context.getResource() == null) {
+            return null;
+        }
+
+        try {
+            String redisKey = getRedisKey(context);
+            Object pending = pendingValue(context, redisKey);
+            if (pending != null) {
+                return (V) pending;
+            }
+            CachedEntry entry = readTracked(context, redisKey, routed);
+            return entry == null ? null : (V) entry.value;
+        } catch (Exception e) {
+            log.error("从 Redis 获取数据失败: resource={}, key={}",
+                    context.getResource(), context.getKey(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void putToRedis(HotArmorContext context, V value) {
+        if (context == null || context.getResource() == null || value == null) {
+            return;
+        }
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        writeToRedis(context, value, config != null ? config.getRedisTtlSeconds() : 300);
+    }
+
+    /**
+     * 回源结果经准入判定后回写 Redis
+     *
+     * @param context 上下文
+     * @param value   值
+     */
+    private void writeBack(HotArmorContext context, V value) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        long ttl = admitTtl(context, config != null ? config.getRedisTtlSeconds() : 300);
+        if (ttl > 0 && !submitWriteBehind(context, getRedisKey(context), value, ttl)) {
+            writeToRedis(context, value, ttl);
+        }
+    }
+
+    /**
+     * 提交异步回写
+     * 资源未开启异步回写、热点 key 需要同步写副本或队列已满时返回 false，由调用方同步写入
+     *
+     * @param context    上下文
+     * @param redisKey   Redis 键
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒）
+     * @return true 已提交
+     */
+    private boolean submitWriteBehind(HotArmorContext context, String redisKey, Object value, long ttlSeconds) {
+        RedisWriteBehind writer = writeBehind;
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (writer == null || config == null || !config.isAsyncWriteBackEnabled()
+                || replicaCount(context, redisKey, true) > 0) {
+            return false;
+        }
+        try {
+            EncodedValue encoded = encodeValue(context, value, ttlSeconds);
+            markWritten(context, redisKey);
+            return writer.submit(redisKey, value, encoded.bytes, encoded.ttlSeconds);
+        } catch (Exception e) {
+            log.warn("提交异步回写失败，改为同步写入: resource={}, key={}", context.getResource(), context.getKey(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取本节点尚未写入 Redis 的值
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键
+     * @return 待写值，没有返回 null
+     */
+    private Object pendingValue(HotArmorContext context, String redisKey) {
+        RedisWriteBehind writer = writeBehind;
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        return writer != null && config != null && config.isAsyncWriteBackEnabled()
+                ? writer.getPendingValue(redisKey) : null;
+    }
+
+    /**
+     * 写入 Redis，失败只记录日志；Redis 不可用时写入本地替代缓存
+     *
+     * @param context    上下文
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒）
+     */
+    private boolean writeToRedis(HotArmorContext context, V value, long ttlSeconds) {
+        if (isRedisBypassed()) {
+            redisBypass.putLocal(getRedisKey(context), value);
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            writeValue(context, getRedisKey(context), value, ttlSeconds);
+            recordRedisCall(start, false);
+            log.debug("L4 回源写入 Redis: resource={}, key={}, ttl={}s",
+                    context.getResource(), context.getKey(), ttlSeconds);
+            return true;
+
+        } catch (Exception e) {
+            recordRedisCall(start, true);
+            log.error("写入 Redis 失败: resource={}, key={}",
+                    context.getResource(), context.getKey(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void deleteFromRedis(HotArmorContext context) {
+        if (context == null || context.getResource() == null) {
+            return;
+        }
+
+        try {
+            String redisKey = getRedisKey(context);
+            markWritten(context, redisKey);
+            RedisWriteBehind writer = writeBehind;
+            if (writer != null) {
+                // 取消尚未执行的异步回写，避免删除后被旧值覆盖
+                writer.cancel(redisKey);
+            }
+            RedisBypass bypass = redisBypass;
+            if (bypass != null) {
+                bypass.invalidate(redisKey);
+            }
+            List<String> keys = new ArrayList<>();
+            keys.add(redisKey);
+            if (isLeaseEnabled(context.getResource())) {
+                // 同时删除租约，作废失效前发出的租约，阻止其回填旧值
+                keys.add(RedisCacheLease.leaseKey(redisKey));
+            }
+            Cache<Object, HotArmorLoadException> errorCache = errorCaches.get(context.getResource());
+            if (errorCache != null && context.getKey() != null) {
+                // 数据已变更，之前记住的失败不再适用
+                errorCache.invalidate(context.getKey());
+                if (configMap.get(context.getResource()).isErrorCacheRedisEnabled()) {
+                    keys.add(errorKey(redisKey));
+                }
+            }
+            if (keys.size() == 1) {
+                redisTemplate.delete(redisKey);
+            } else {
+                redisTemplate.delete(keys);
+            }
+            // 副本是否存在取决于写入时的热点判定，删除时不论当前是否热点都删除全部副本；
+            // 先删主键再删副本，与并发的副本写入交错时副本总会被其中一方删除
+            int replicas = replicaCount(context, redisKey, false);
+            if (replicas > 0) {
+                List<String> replicaKeys = new ArrayList<>(replicas);
+                for (int i = 0; i < replicas; i++) {
+                    replicaKeys.add(RedisHotReplicas.replicaKey(redisKey, i));
+                }
+                redisTemplate.delete(replicaKeys);
+            }
+            log.debug("L4 回源从 Redis 删除: resource={}, key={}",
+                    context.getResource(), context.getKey());
+
+        } catch (Exception e) {
+            log.error("从 Redis 删除失败: resource={}, key={}",
+                    context.getResource(), context.getKey(), e);
+        }
+    }
+
+    @Override
+    public String getRedisKey(HotArmorContext context) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        String prefix = config != null ? config.getRedisKeyPrefix() : "hotarmor:";
+        return prefix + context.getResource() + ":" + context.getKey();
+    }
+
+    /**
+     * 读取 Redis 中的值（含逻辑过期时间），读取失败返回 null
+     *
+     * @param context 上下文
+     * @param routed  是否允许热点 key 读副本
+     * @return 缓存条目，不存在返回 null
+     */
+    private CachedEntry getEntryFromRedis(HotArmorContext context, boolean routed) {
+        try {
+            String redisKey = getRedisKey(context);
+            Object pending = pendingValue(context, redisKey);
+            if (pending != null) {
+                return new CachedEntry(pending, 0, 0);
+            }
+            return readTracked(context, redisKey, routed);
+        } catch (Exception e) {
+            log.error("从 Redis 获取数据失败: resource={}, key={}",
+                    context.getResource(), context.getKey(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取缓存条目并记录到健康跟踪器；Redis 不可用时只读本地替代缓存
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键（主键）
+     * @param routed   是否按读路由读取
+     * @return 缓存条目，不存在返回 null
+     * @throws Exception 读取失败
+     */
+    private CachedEntry readTracked(HotArmorContext context, String redisKey, boolean routed) throws Exception {
+        RedisBypass bypass = redisBypass;
+        if (bypass == null) {
+            return readHedged(context, redisKey, routed);
+        }
+        if (bypass.isActive()) {
+            Object local = bypass.getLocal(redisKey);
+            return local == null ? null : new CachedEntry(local, 0, 0);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            CachedEntry entry = readHedged(context, redisKey, routed);
+            failed = false;
+            return entry;
+        } finally {
+            recordRedisCall(start, failed);
+        }
+    }
+
+    /**
+     * 读取缓存条目，资源开启 Redis 对冲时主读取超过对冲延迟仍未返回则再读一次，先返回者胜出
+     * 主读取在调用线程执行，对冲读取先返回时中断调用线程上的主读取
+     * 对冲读取不走微批：路由读取读主节点时读从节点（本节点近期未写入该键时），其余情况重试主节点
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键（主键）
+     * @param routed   是否按读路由读取
+     * @return 缓存条目，不存在返回 null
+     * @throws Exception 读取失败
+     */
+    private CachedEntry readHedged(HotArmorContext context, String redisKey, boolean routed) throws Exception {
+        RequestHedger hedger = redisHedgers.get(context.getResource());
+        if (hedger == null) {
+            return routed ? readRouted(context, redisKey) : readEntry(context, redisKey, redisTemplate);
+        }
+        return hedger.call(getHedgeScheduler(),
+                () -> routed ? readRouted(context, redisKey) : readEntry(context, redisKey, redisTemplate),
+                () -> readEntry(context, redisKey, hedgeTemplate(context, redisKey, routed), false));
+    }
+
+    /**
+     * 选择对冲读取使用的模板
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键
+     * @param routed   主读取是否按读路由读取
+     * @return RedisTemplate
+     */
+    private RedisTemplate<String, Object> hedgeTemplate(HotArmorContext context, String redisKey, boolean routed) {
+        RedisTemplate<String, Object> replica = replicaRedisTemplate;
+        if (!routed || replica == null || readTemplate(context, redisKey) == replica) {
+            return redisTemplate;
+        }
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        Long writtenAt = recentWrites.getIfPresent(redisKey);
+        if (writtenAt != null && System.currentTimeMillis() - writtenAt < config.getReplicaReadAfterWriteMs()) {
+            return redisTemplate;
+        }
+        return replica;
+    }
+
+    /**
+     * 按读路由读取：热点 key 在主键和副本键中随机选择一个读取，副本键未命中时回退到主键；
+     * 开启从节点读时读 Redis 从节点
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键（主键）
+     * @return 缓存条目，不存在返回 null
+     */
+    private CachedEntry readRouted(HotArmorContext context, String redisKey) {
+        RedisTemplate<String, Object> template = readTemplate(context, redisKey);
+        int replicas = replicaCount(context, redisKey, true);
+        if (replicas > 0) {
+            int pick = ThreadLocalRandom.current().nextInt(replicas + 1);
+            if (pick < replicas) {
+                String replicaKey = RedisHotReplicas.replicaKey(redisKey, pick);
+                RedisBatchExecutor executor = template == redisTemplate ? batchExecutorFor(context) : null;
+                byte[] bytes = executor != null
+                        ? executor.getBytes(replicaKey)
+                        : template.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey(replicaKey)));
+                CachedEntry entry = bytes == null ? null : decodeEntry(context, bytes);
+                if (entry != null) {
+                    return entry;
+                }
+                entry = readEntry(context, redisKey, template);
+                if (entry != null) {
+                    // 主键命中而副本未命中：该 key 以冷 key 身份写入或副本已失效，后台补写副本
+                    scheduleReplicaRepair(context, redisKey, replicas);
+                }
+                return entry;
+            }
+        }
+        return readEntry(context, redisKey, template);
+    }
+
+    /**
+     * 在刷新线程中补写热点副本，队列已满时跳过
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键（主键）
+     * @param replicas 副本数
+     */
+    private void scheduleReplicaRepair(HotArmorContext context, String redisKey, int replicas) {
+        try {
+            getRefreshExecutor().execute(() -> {
+                try {
+                    hotReplicas.repair(redisKey, replicas);
+                } catch (Exception e) {
+                    log.warn("补写热点副本失败: resource={}, key={}", context.getResource(), context.getKey(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("L4 刷新队列已满，跳过补写热点副本: resource={}, key={}", context.getResource(), context.getKey());
+        }
+    }
+
+    /**
+     * 选择普通读取使用的模板
+     * 资源开启从节点读、已设置从节点读模板且本节点近期未写入该键时读从节点，否则读主节点
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键
+     * @return RedisTemplate
+     */
+    private RedisTemplate<String, Object> readTemplate(HotArmorContext context, String redisKey) {
+        RedisTemplate<String, Object> replica = replicaRedisTemplate;
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (replica == null || config == null || !config.isReadFromReplicaEnabled()) {
+            return redisTemplate;
+        }
+        Long writtenAt = recentWrites.getIfPresent(redisKey);
+        if (writtenAt != null && System.currentTimeMillis() - writtenAt < config.getReplicaReadAfterWriteMs()) {
+            return redisTemplate;
+        }
+        return replica;
+    }
+
+    /**
+     * 记录本节点对该键的写入或删除（仅开启从节点读或 Redis 对冲的资源）
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键
+     */
+    private void markWritten(HotArmorContext context, String redisKey) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (config != null && (config.isReadFromReplicaEnabled() || config.isRedisHedgeEnabled())
+                && config.getReplicaReadAfterWriteMs() > 0) {
+            recentWrites.put(redisKey, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 热点副本数
+     * 缓存键带 hash tag 时副本与主键必然位于同一 slot，不做扇出
+     *
+     * @param context    上下文
+     * @param redisKey   Redis 键（主键）
+     * @param hotOnly    是否只对热点 key 生效（读写时为 true；删除时为 false，按见过的最大副本数）
+     * @return 副本数，0 表示不使用副本
+     */
+    private int replicaCount(HotArmorContext context, String redisKey, boolean hotOnly) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (config == null) {
+            return 0;
+        }
+        int count = hotOnly ? (context.isHotspot() ? config.getHotReplicaCount() : 0)
+                : hotReplicas.getMaxCount(context.getResource());
+        if (count <= 0) {
+            return 0;
+        }
+        int open = redisKey.indexOf('{');
+        boolean tagged = open >= 0 && redisKey.indexOf('}', open + 1) > open + 1;
+        return tagged ? 0 : count;
+    }
+
+    /**
+     * 热点 key 写入主键后同步写入全部副本（与主键相同的值和 TTL），失败只记录日志
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键（主键）
+     * @param encoded  已编码的值
+     */
+    private void writeReplicas(HotArmorContext context, String redisKey, EncodedValue encoded) {
+        int replicas = replicaCount(context, redisKey, true);
+        if (replicas <= 0) {
+            return;
+        }
+        try {
+            hotReplicas.write(redisKey, replicas, encoded.bytes, encoded.ttlSeconds);
+        } catch (Exception e) {
+            log.warn("写入热点副本失败: resource={}, key={}, replicas={}",
+                    context.getResource(), context.getKey(), replicas, e);
+        }
     }
 
     /**
-     * 注册配置
+     * 读取 Redis 中的值
+     * 配置了值编解码器、开启压缩或逻辑过期时按原始字节读取、拆封、解压并解码，
+     * 否则直接使用 RedisTemplate 的值序列化器
      *
-     * @param resource 资源名称
-     * @param config   L4 配置
+     * @param context  上下文
+     * @param redisKey Redis 键
+     * @param template 读取使用的模板（主节点模板时可走微批）
+     * @return 缓存条目，不存在返回 null
      */
-    public void registerConfig(String resource, HotArmorRule.L4LoaderConfig config) {
-        configMap.put(resource, config);
+    private CachedEntry readEntry(HotArmorContext context, String redisKey, RedisTemplate<String, Object> template) {
+        return readEntry(context, redisKey, template, true);
     }
 
-    @Override
-    public V load(HotArmorContext context, Function<Object, V> dbLoader) {
-        if (context == null || context.getResource() == null) {
-            return null;
-        }
-
-        // 1. 先查 Redis
-        V value = getFromRedis(context);
-        if (value != null) {
-            log.debug("L4 回源命中 Redis: resource={}, key={}", context.getResource(), context.getKey());
-            return value;
+    /**
+     * 读取 Redis 中的值
+     *
+     * @param context  上下文
+     * @param redisKey Redis 键
+     * @param template 读取使用的模板
+     * @param batched  主节点模板时是否允许走微批
+     * @return 缓存条目，不存在返回 null
+     */
+    private CachedEntry readEntry(HotArmorContext context, String redisKey, RedisTemplate<String, Object> template,
+                                  boolean batched) {
+        RedisBatchExecutor executor = batched && template == redisTemplate ? batchExecutorFor(context) : null;
+        ValueCodec codec = valueCodec;
+        ValueCompressor compressor = compressors.get(context.getResource());
+        if (codec == null && compressor == null && !usesEnvelope(context)) {
+            Object value = executor != null ? executor.get(redisKey) : template.opsForValue().get(redisKey);
+            return value == null ? null : new CachedEntry(value, 0, 0);
         }
 
-        // 2. Redis 未命中，使用分布式锁防止击穿
-        String lockKey = getLockKey(context);
-        RLock lock = redissonClient.getLock(lockKey);
+        byte[] bytes = executor != null
+                ? executor.getBytes(redisKey)
+                : template.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey(redisKey)));
+        return bytes == null ? null : decodeEntry(context, bytes);
+    }
 
-        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
-        if (config == null) {
-            // 未配置，直接查 DB
-            return loadFromDb(context, dbLoader);
+    /**
+     * 解码 Redis 中的原始字节：拆封、解压并解码
+     *
+     * @param context 上下文
+     * @param bytes   原始字节
+     * @return 缓存条目，解码结果为 null 时返回 null
+     */
+    private CachedEntry decodeEntry(HotArmorContext context, byte[] bytes) {
+        ValueCodec codec = valueCodec;
+        ValueCompressor compressor = compressors.get(context.getResource());
+        long expireAt = 0;
+        long costMs = 0;
+        if (ExpiryEnvelope.isWrapped(bytes)) {
+            expireAt = ExpiryEnvelope.expireAt(bytes);
+            costMs = ExpiryEnvelope.costMs(bytes);
+            bytes = ExpiryEnvelope.unwrap(bytes);
         }
 
-        try {
-            // 尝试获取锁
-            boolean locked = lock.tryLock(config.getLockWaitTimeMs(), config.getLockLeaseTimeMs(), TimeUnit.MILLISECONDS);
-
-            if (locked) {
-                try {
-                    // 获取到锁，Double-Check
-                    value = getFromRedis(context);
-                    if (value != null) {
-                        log.debug("L4 回源二次检查命中 Redis: resource={}, key={}",
-                                context.getResource(), context.getKey());
-                        return value;
-                    }
+        // 压缩与未压缩的值可能共存（阈值以下或关闭压缩前写入的值），按头部标记判断
+        if (ValueCompressor.isCompressed(bytes)) {
+            if (compressor == null) {
+                compressor = new ValueCompressor(Integer.MAX_VALUE, statsFor(context.getResource()));
+            }
+            bytes = compressor.decompress(bytes);
+        }
+        Object value = codec != null ? codec.decode(bytes, context.getValueType()) : valueSerializer().deserialize(bytes);
+        return value == null ? null : new CachedEntry(value, expireAt, costMs);
+    }
 
-                    // 仍然未命中，查询 DB
-                    value = loadFromDb(context, dbLoader);
+    /**
+     * 写入 Redis
+     *
+     * @param context    上下文
+     * @param redisKey   Redis 键
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒），逻辑过期模式下为逻辑过期时间
+     */
+    private void writeValue(HotArmorContext context, String redisKey, Object value, long ttlSeconds) {
+        markWritten(context, redisKey);
+        RedisBatchExecutor executor = batchExecutorFor(context);
+        if (valueCodec == null && !compressors.containsKey(context.getResource()) && !usesEnvelope(context)) {
+            if (executor != null) {
+                executor.set(redisKey, value, ttlSeconds, TimeUnit.SECONDS);
+            } else {
+                redisTemplate.opsForValue().set(redisKey, value, ttlSeconds, TimeUnit.SECONDS);
+            }
+            if (replicaCount(context, redisKey, true) > 0) {
+                writeReplicas(context, redisKey, encodeValue(context, value, ttlSeconds));
+            }
+            return;
+        }
 
-                    // 回写 Redis
-                    if (value != null) {
-                        putToRedis(context, value);
-                    }
+        EncodedValue encoded = encodeValue(context, value, ttlSeconds);
+        if (executor != null) {
+            executor.setBytes(redisKey, encoded.bytes, encoded.ttlSeconds, TimeUnit.SECONDS);
+        } else {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(rawKey(redisKey), encoded.bytes,
+                    Expiration.seconds(encoded.ttlSeconds), RedisStringCommands.SetOption.UPSERT));
+        }
+        writeReplicas(context, redisKey, encoded);
+    }
 
-                    return value;
+    /**
+     * 将值编码为写入 Redis 的原始字节：编码、按阈值压缩，需要时加上过期信封
+     *
+     * @param context    上下文
+     * @param value      值
+     * @param ttlSeconds 过期时间（秒），逻辑过期模式下为逻辑过期时间
+     * @return 原始字节及实际的 Redis TTL
+     */
+    private EncodedValue encodeValue(HotArmorContext context, Object value, long ttlSeconds) {
+        ValueCodec codec = valueCodec;
+        ValueCompressor compressor = compressors.get(context.getResource());
+        byte[] encoded = codec != null ? codec.encode(value, context.getValueType()) : valueSerializer().serialize(value);
+        byte[] bytes = compressor != null ? compressor.compress(encoded) : encoded;
 
-                } finally {
-                    lock.unlock();
-                }
-            } else {
-                // 未获取到锁，说明有其他线程正在加载数据
-                // 使用重试机制等待其他线程完成加载，而不是立即降级查 DB
-                log.debug("L4 回源未获取到锁，等待其他线程完成加载: resource={}, key={}",
-                        context.getResource(), context.getKey());
+        // 嵌入过期时间与回源耗时；逻辑过期模式下物理 TTL 使用更长的 logicalExpireHardTtlSeconds
+        // （降级回写、冷 key 准入等较短的 TTL 不延长，避免这些值长期占用 Redis）
+        long redisTtl = ttlSeconds;
+        if (usesEnvelope(context)) {
+            HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+            bytes = ExpiryEnvelope.wrap(bytes, System.currentTimeMillis() + ttlSeconds * 1000,
+                    config.isEarlyRefreshEnabled() ? context.getLoadCostMs() : 0);
+            if (config.isLogicalExpireEnabled() && ttlSeconds >= config.getRedisTtlSeconds()) {
+                redisTtl = Math.max(ttlSeconds, config.getLogicalExpireHardTtlSeconds());
+            }
+        }
+        return new EncodedValue(bytes, redisTtl);
+    }
 
-                // 重试配置
-                int maxRetries = 5;  // 最多重试 5 次
-                int retryCount = 0;
-                long retryDelayMs = 100;  // 初始延迟 100ms
+    /**
+     * 是否需要为值加上过期信封（逻辑过期或概率提前刷新）
+     */
+    private boolean usesEnvelope(HotArmorContext context) {
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        return config != null && (config.isLogicalExpireEnabled() || config.isEarlyRefreshEnabled());
+    }
 
-                while (retryCount < maxRetries) {
-                    Thread.sleep(retryDelayMs);
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String redisKey) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(redisKey);
+    }
 
-                    // 重新检查 Redis
-                    value = getFromRedis(context);
-                    if (value != null) {
-                        log.debug("重试成功，从 Redis 获取到数据: retry={}, resource={}, key={}",
-                                retryCount + 1, context.getResource(), context.getKey());
-                        return value;
-                    }
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
 
-                    retryCount++;
-                    // 指数退避，但最大不超过 500ms
-                    retryDelayMs = Math.min(retryDelayMs * 2, 500);
-                }
+    private ValueCompressor.Stats statsFor(String resource) {
+        return compressionStats.computeIfAbsent(resource, k -> new ValueCompressor.Stats());
+    }
 
-                // 重试多次后仍未获取到数据，降级查 DB
-                log.warn("等待超时，降级查询 DB: resource={}, key={}, retries={}",
-                        context.getResource(), context.getKey(), maxRetries);
+    /**
+     * 获取资源可用的微批执行器
+     *
+     * @param context 上下文
+     * @return 微批执行器，未启用返回 null
+     */
+    private RedisBatchExecutor batchExecutorFor(HotArmorContext context) {
+        RedisBatchExecutor executor = batchExecutor;
+        if (executor == null) {
+            return null;
+        }
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        return config != null && config.isBatchEnabled() ? executor : null;
+    }
 
-                // 降级时查询 DB
-                value = loadFromDb(context, dbLoader);
+    /**
+     * 从数据库加载数据
+     * 开启错误缓存时窗口内已失败的 key 直接抛出缓存的异常；
+     * 开启集群限流时先获取集群令牌，开启并发限制时再获取回源许可，任一失败都不再访问数据库
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     * @throws HotArmorLoadException 命中错误缓存、开启错误缓存时回源失败、超出集群速率或并发限制
+     */
+    private V loadFromDb(HotArmorContext context, Function<Object, V> dbLoader) {
+        HotArmorLoadException cachedError = getCachedError(context);
+        if (cachedError != null) {
+            log.debug("L4 命中错误缓存，跳过数据库回源: resource={}, key={}, reason={}",
+                    context.getResource(), context.getKey(), cachedError.getReason());
+            throw cachedError;
+        }
 
-                // 降级加载的数据也应该回写 Redis，使用较短的 TTL（避免后续请求继续查 DB）
-                if (value != null) {
-                    try {
-                        // 使用较短的 TTL（60 秒），避免降级数据长期存在
-                        String redisKey = getRedisKey(context);
-                        redisTemplate.opsForValue().set(redisKey, value, 60, TimeUnit.SECONDS);
-                        log.debug("降级数据已回写 Redis: resource={}, key={}, ttl=60s",
-                                context.getResource(), context.getKey());
-                    } catch (Exception e) {
-                        log.error("降级数据回写 Redis 失败: resource={}, key={}",
-                                context.getResource(), context.getKey(), e);
-                    }
-                }
+        // Redis 不可用时集群令牌桶无法访问，跳过集群限流（仍受本地并发限制约束）
+        ClusterRateLimiter rateLimiter = isRedisBypassed() ? null : rateLimiters.get(context.getResource());
+        if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+            log.warn("L4 回源超出集群速率限制，快速失败: resource={}, key={}",
+                    context.getResource(), context.getKey());
+            throw new HotArmorLoadException(
+                    String.format("DB load cluster rate limit exceeded: resource=%s, key=%s",
+                            context.getResource(), context.getKey()),
+                    null, context, HotArmorLoadException.LoadFailureReason.RATE_LIMITED);
+        }
 
-                return value;
-            }
+        AdaptiveConcurrencyLimiter limiter = limiters.get(context.getResource());
+        if (limiter == null) {
+            return doLoadFromDb(context, dbLoader);
+        }
 
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        boolean acquired;
+        try {
+            acquired = limiter.acquire(config.getConcurrencyQueueTimeoutMs());
         } catch (InterruptedException e) {
-            log.error("L4 回源被中断: resource={}, key={}", context.getResource(), context.getKey(), e);
             Thread.currentThread().interrupt();
-            return loadFromDb(context, dbLoader);
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("L4 回源超出并发限制，快速失败: resource={}, key={}, limit={}",
+                    context.getResource(), context.getKey(), limiter.getLimit());
+            throw new HotArmorLoadException(
+                    String.format("DB load concurrency limit exceeded: resource=%s, key=%s",
+                            context.getResource(), context.getKey()),
+                    null, context, HotArmorLoadException.LoadFailureReason.CONCURRENCY_LIMITED);
+        }
 
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            V value = timedLoad(context, dbLoader);
+            success = true;
+            return value;
         } catch (Exception e) {
-            log.error("L4 回源异常: resource={}, key={}", context.getResource(), context.getKey(), e);
-            return loadFromDb(context, dbLoader);
+            return handleLoadFailure(context, e);
+        } finally {
+            limiter.release(System.nanoTime() - start, success);
         }
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public V getFromRedis(HotArmorContext context) {
-        if (context == null || context.getResource() == null) {
-            return null;
-        }
-
+    private V doLoadFromDb(HotArmorContext context, Function<Object, V> dbLoader) {
         try {
-            String redisKey = getRedisKey(context);
-            Object value = redisTemplate.opsForValue().get(redisKey);
-            return (V) value;
+            return timedLoad(context, dbLoader);
         } catch (Exception e) {
-            log.error("从 Redis 获取数据失败: resource={}, key={}",
-                    context.getResource(), context.getKey(), e);
-            return null;
+            return handleLoadFailure(context, e);
         }
     }
 
-    @Override
-    public void putToRedis(HotArmorContext context, V value) {
-        if (context == null || context.getResource() == null || value == null) {
-            return;
-        }
+    /**
+     * 调用数据库加载函数并记录回源耗时
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     * @throws Exception 加载失败
+     */
+    private V timedLoad(HotArmorContext context, Function<Object, V> dbLoader) throws Exception {
+        context.setLoadCostMs(0);
+        log.debug("L4 回源从数据库加载: resource={}, key={}",
+                context.getResource(), context.getKey());
 
-        try {
-            String redisKey = getRedisKey(context);
-            HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
-            int ttl = config != null ? config.getRedisTtlSeconds() : 300;
+        long start = System.currentTimeMillis();
+        V value = applyLoader(context, dbLoader);
+        context.setLoadCostMs(Math.max(1, System.currentTimeMillis() - start));
 
-            redisTemplate.opsForValue().set(redisKey, value, ttl, TimeUnit.SECONDS);
-            log.debug("L4 回源写入 Redis: resource={}, key={}, ttl={}s",
-                    context.getResource(), context.getKey(), ttl);
+        if (value != null) {
+            log.debug("L4 回源数据库加载成功: resource={}, key={}",
+                    context.getResource(), context.getKey());
+        } else {
+            log.debug("L4 回源数据库返回空值: resource={}, key={}",
+                    context.getResource(), context.getKey());
+        }
+        return value;
+    }
 
-        } catch (Exception e) {
-            log.error("写入 Redis 失败: resource={}, key={}",
-                    context.getResource(), context.getKey(), e);
+    /**
+     * 处理回源失败：开启错误缓存时记录并抛出，否则返回 null（按空值处理）
+     *
+     * @param context 上下文
+     * @param e       失败原因
+     * @return null
+     * @throws HotArmorLoadException 开启错误缓存时
+     */
+    private V handleLoadFailure(HotArmorContext context, Exception e) {
+        log.error("L4 回源数据库加载失败: resource={}, key={}",
+                context.getResource(), context.getKey(), e);
+        if (cacheError(context, e)) {
+            throw e instanceof HotArmorLoadException ? (HotArmorLoadException) e
+                    : new HotArmorLoadException(String.format("Failed to load from DB: resource=%s, key=%s",
+                            context.getResource(), context.getKey()),
+                    e, context, HotArmorLoadException.LoadFailureReason.UNKNOWN);
         }
+        return null;
     }
 
-    @Override
-    public void deleteFromRedis(HotArmorContext context) {
-        if (context == null || context.getResource() == null) {
-            return;
+    /**
+     * 调用数据库加载函数，资源开启数据库对冲时超过对冲延迟仍未返回则再调用一次，先返回者胜出
+     * JDBC 调用不响应中断，两次调用都在对冲线程池中执行，加载函数看不到调用线程的 ThreadLocal 上下文
+     *
+     * @param context  上下文
+     * @param dbLoader 数据库加载函数
+     * @return 数据
+     * @throws Exception 加载失败
+     */
+    private V applyLoader(HotArmorContext context, Function<Object, V> dbLoader) throws Exception {
+        RequestHedger hedger = dbHedgers.get(context.getResource());
+        if (hedger == null) {
+            return dbLoader.apply(context.getKey());
         }
+        Callable<V> call = () -> dbLoader.apply(context.getKey());
+        return hedger.callPooled(getHedgeExecutor(), call, call);
+    }
 
-        try {
-            String redisKey = getRedisKey(context);
-            redisTemplate.delete(redisKey);
-            log.debug("L4 回源从 Redis 删除: resource={}, key={}",
-                    context.getResource(), context.getKey());
+    /**
+     * 查询错误缓存：先查本地，未命中且开启 Redis 共享时查询 Redis 中的失败记录
+     *
+     * @param context 上下文
+     * @return 窗口内的失败，没有返回 null
+     */
+    private HotArmorLoadException getCachedError(HotArmorContext context) {
+        Cache<Object, HotArmorLoadException> errorCache = errorCaches.get(context.getResource());
+        if (errorCache == null || context.getKey() == null) {
+            return null;
+        }
+        HotArmorLoadException cached = errorCache.getIfPresent(context.getKey());
+        HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
+        if (cached != null || !config.isErrorCacheRedisEnabled() || isRedisBypassed()) {
+            return cached;
+        }
 
+        try {
+            byte[] rawErrorKey = rawKey(errorKey(getRedisKey(context)));
+            byte[] reason = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawErrorKey));
+            if (reason != null) {
+                cached = newCachedError(context, HotArmorLoadException.LoadFailureReason.valueOf(
+                        new String(reason, StandardCharsets.UTF_8)));
+                errorCache.put(context.getKey(), cached);
+            }
         } catch (Exception e) {
-            log.error("从 Redis 删除失败: resource={}, key={}",
-                    context.getResource(), context.getKey(), e);
+            log.warn("从 Redis 读取错误缓存失败: resource={}, key={}", context.getResource(), context.getKey(), e);
         }
+        return cached;
     }
 
-    @Override
-    public String getRedisKey(HotArmorContext context) {
+    /**
+     * 记录回源失败
+     *
+     * @param context 上下文
+     * @param error   回源异常
+     * @return true 已记录（资源开启了错误缓存）
+     */
+    private boolean cacheError(HotArmorContext context, Exception error) {
+        Cache<Object, HotArmorLoadException> errorCache = errorCaches.get(context.getResource());
+        if (errorCache == null || context.getKey() == null) {
+            return false;
+        }
+
+        HotArmorLoadException.LoadFailureReason reason = error instanceof HotArmorLoadException
+                ? ((HotArmorLoadException) error).getReason()
+                : HotArmorLoadException.LoadFailureReason.UNKNOWN;
+        errorCache.put(context.getKey(), newCachedError(context, reason));
+
         HotArmorRule.L4LoaderConfig config = configMap.get(context.getResource());
-        String prefix = config != null ? config.getRedisKeyPrefix() : "hotarmor:";
-        return prefix + context.getResource() + ":" + context.getKey();
+        if (config.isErrorCacheRedisEnabled() && !isRedisBypassed()) {
+            try {
+                byte[] rawErrorKey = rawKey(errorKey(getRedisKey(context)));
+                byte[] value = reason.name().getBytes(StandardCharsets.UTF_8);
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(rawErrorKey, value,
+                        Expiration.milliseconds(config.getErrorCacheTtlMs()), RedisStringCommands.SetOption.UPSERT));
+            } catch (Exception e) {
+                log.warn("写入 Redis 错误缓存失败: resource={}, key={}", context.getResource(), context.getKey(), e);
+            }
+        }
+        return true;
     }
 
     /**
-     * 获取分布式锁的键
-     *
-     * @param context 上下文
-     * @return 锁键
+     * 创建窗口内复用的无堆栈异常（只保留资源名和缓存键，不持有请求上下文）
      */
-    private String getLockKey(HotArmorContext context) {
-        return "lock:" + getRedisKey(context);
+    private static HotArmorLoadException newCachedError(HotArmorContext context,
+                                                        HotArmorLoadException.LoadFailureReason reason) {
+        HotArmorContext errorContext = HotArmorContext.builder()
+                .resource(context.getResource())
+                .key(context.getKey())
+                .build();
+        return HotArmorLoadException.stackless(
+                String.format("DB load failed recently, cached: resource=%s, key=%s, reason=%s",
+                        context.getResource(), context.getKey(), reason),
+                errorContext, reason);
     }
 
     /**
-     * 从数据库加载数据
+     * 获取错误缓存在 Redis 中的键
      *
-     * @param context  上下文
-     * @param dbLoader 数据库加载函数
-     * @return 数据
+     * @param redisKey 缓存键
+     * @return 错误缓存键
      */
-    private V loadFromDb(HotArmorContext context, Function<Object, V> dbLoader) {
-        try {
-            log.debug("L4 回源从数据库加载: resource={}, key={}",
-                    context.getResource(), context.getKey());
+    private static String errorKey(String redisKey) {
+        return redisKey + ":error";
+    }
 
-            V value = dbLoader.apply(context.getKey());
+    /**
+     * 回写准入统计
+     */
+    public static class AdmissionStats {
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder shortened = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
 
-            if (value != null) {
-                log.debug("L4 回源数据库加载成功: resource={}, key={}",
-                        context.getResource(), context.getKey());
-            } else {
-                log.debug("L4 回源数据库返回空值: resource={}, key={}",
-                        context.getResource(), context.getKey());
-            }
+        /**
+         * 通过准入、按正常 TTL 回写的次数
+         */
+        public long getAdmittedCount() {
+            return admitted.sum();
+        }
 
-            return value;
+        /**
+         * 冷 key 按较短 TTL 回写的次数
+         */
+        public long getShortenedCount() {
+            return shortened.sum();
+        }
 
-        } catch (Exception e) {
-            log.error("L4 回源数据库加载失败: resource={}, key={}",
-                    context.getResource(), context.getKey(), e);
-            return null;
+        /**
+         * 冷 key 跳过回写的次数
+         */
+        public long getSkippedCount() {
+            return skipped.sum();
+        }
+    }
+
+    /**
+     * 持锁者回写结果
+     */
+    private enum FillResult {
+        /**
+         * 未回写（未通过准入或写入失败），锁仍需调用方释放
+         */
+        SKIPPED(false, false),
+        /**
+         * 已回写，锁仍需调用方释放
+         */
+        WRITTEN(true, false),
+        /**
+         * 锁已失效未回写，锁已释放
+         */
+        UNLOCKED(false, true),
+        /**
+         * 已回写且锁已随写入释放
+         */
+        WRITTEN_AND_UNLOCKED(true, true);
+
+        private final boolean written;
+        private final boolean released;
+
+        FillResult(boolean written, boolean released) {
+            this.written = written;
+            this.released = released;
+        }
+    }
+
+    /**
+     * 编码后待写入 Redis 的值
+     */
+    private static class EncodedValue {
+        private final byte[] bytes;
+        private final long ttlSeconds;
+
+        EncodedValue(byte[] bytes, long ttlSeconds) {
+            this.bytes = bytes;
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    /**
+     * Redis 中的缓存条目
+     */
+    private static class CachedEntry {
+        /**
+         * 缓存值
+         */
+        private final Object value;
+
+        /**
+         * 逻辑过期时间戳（毫秒），0 表示没有逻辑过期时间
+         */
+        private final long expireAt;
+
+        /**
+         * 写入该值时的回源耗时（毫秒），0 表示未记录
+         */
+        private final long costMs;
+
+        CachedEntry(Object value, long expireAt, long costMs) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.costMs = costMs;
+        }
+
+        boolean isExpired(long now) {
+            return expireAt > 0 && now >= expireAt;
         }
     }
 }
@@ -0,0 +1,381 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求执行器（单个资源、单类操作）
+ * 主请求超过对冲延迟仍未返回时再发出一次对冲请求，先成功返回的结果胜出；
+ * 对冲延迟取最近主请求耗时的指定分位数（不低于最小延迟），样本不足时不对冲
+ *
+ * {@link #call} 的主请求在调用线程执行，只有延迟触发的对冲请求进入线程池，对冲先成功时中断调用线程上的主请求；
+ * {@link #callPooled} 的主请求也在线程池中执行，用于不响应中断的操作（如 JDBC）
+ *
+ * 额外请求受预算约束：每个请求积累 budgetPercent% 个对冲额度，每次对冲消耗一个，
+ * 长期额外负载不超过 budgetPercent%，额度上限为 MAX_BURST 次对冲
+ * 只应用于幂等操作：对冲后两个请求都会执行完成
+ */
+public class RequestHedger {
+
+    /**
+     * 保留的耗时样本数
+     */
+    private static final int SAMPLE_SIZE = 256;
+
+    /**
+     * 开始对冲前至少需要的样本数，同时也是重新计算对冲延迟的间隔
+     */
+    private static final int MIN_SAMPLES = 64;
+
+    /**
+     * 额度单位：一次对冲消耗 100 个单位，每个请求积累 budgetPercent 个单位
+     */
+    private static final long CREDITS_PER_HEDGE = 100;
+
+    /**
+     * 额度上限（对冲次数）
+     */
+    private static final long MAX_BURST = 10;
+
+    /**
+     * 最近主请求耗时（微秒），环形覆盖
+     */
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    /**
+     * 当前对冲延迟（微秒），-1 表示样本不足
+     */
+    private volatile long delayMicros = -1;
+
+    private final AtomicLong credits = new AtomicLong(CREDITS_PER_HEDGE * MAX_BURST);
+
+    private volatile double percentile;
+    private volatile long minDelayMs;
+    private volatile int budgetPercent;
+
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public RequestHedger(double percentile, long minDelayMs, int budgetPercent) {
+        reconfigure(percentile, minDelayMs, budgetPercent);
+    }
+
+    /**
+     * 更新参数（规则变更时调用，保留已有样本和额度）
+     */
+    public void reconfigure(double percentile, long minDelayMs, int budgetPercent) {
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.budgetPercent = budgetPercent;
+    }
+
+    /**
+     * 执行请求：主请求在调用线程执行，超过对冲延迟后在 scheduler 中发出对冲请求
+     * 对冲请求先成功时中断调用线程，响应中断的客户端（如 Lettuce 同步命令）随即放弃等待主请求；
+     * 不响应中断时等主请求返回后仍使用对冲结果。调用线程在主请求期间收到的其他中断会被一并清除
+     *
+     * @param scheduler 延迟触发并执行对冲请求的线程池
+     * @param primary   主请求
+     * @param hedge     对冲请求（重试或读其他节点）
+     * @return 先成功返回的结果
+     * @throws Exception 两个请求都失败时抛出后失败者的异常；不对冲时抛出主请求的异常
+     */
+    public <T> T call(ScheduledExecutorService scheduler, Callable<T> primary, Callable<T> hedge) throws Exception {
+        accrue();
+        long delay = delayMicros;
+        if (delay < 0) {
+            return callInline(primary);
+        }
+
+        Race<T> race = new Race<>(Thread.currentThread(), hedge);
+        ScheduledFuture<?> trigger;
+        try {
+            trigger = scheduler.schedule(race::runHedge, delay, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            return callInline(primary);
+        }
+
+        T value = null;
+        Exception error = null;
+        boolean primaryFirst;
+        long start = System.nanoTime();
+        try {
+            value = primary.call();
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            // 被对冲中断的主请求只记录到中断为止的耗时（实际耗时的下限）
+            record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            primaryFirst = race.finishPrimary();
+            trigger.cancel(false);
+        }
+
+        if (primaryFirst) {
+            if (error == null) {
+                return value;
+            }
+            if (!race.isLaunched() || race.hedgeResult.isCompletedExceptionally()) {
+                throw error;
+            }
+            // 主请求失败而对冲请求仍在执行，等待对冲结果
+            T hedgeValue = await(race.hedgeResult);
+            hedgeWins.increment();
+            return hedgeValue;
+        }
+        hedgeWins.increment();
+        return race.hedgeResult.getNow(null);
+    }
+
+    /**
+     * 执行请求：主请求和对冲请求都在线程池中执行
+     * 线程池拒绝主请求时在当前线程执行，拒绝对冲请求时只等待主请求
+     *
+     * @param executor 执行主请求和对冲请求的线程池
+     * @param primary  主请求
+     * @param hedge    对冲请求（重试或读其他节点）
+     * @return 先成功返回的结果
+     * @throws Exception 两个请求都失败时抛出后失败者的异常；不对冲时抛出主请求的异常
+     */
+    public <T> T callPooled(Executor executor, Callable<T> primary, Callable<T> hedge) throws Exception {
+        accrue();
+        long delay = delayMicros;
+        if (delay < 0) {
+            return callInline(primary);
+        }
+
+        CompletableFuture<T> primaryFuture;
+        try {
+            primaryFuture = submit(executor, primary, true);
+        } catch (RejectedExecutionException e) {
+            return callInline(primary);
+        }
+
+        try {
+            return primaryFuture.get(delay, TimeUnit.MICROSECONDS);
+        } catch (TimeoutException e) {
+            // 主请求超过对冲延迟，尝试对冲
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+
+        if (!tryConsume()) {
+            return await(primaryFuture);
+        }
+        CompletableFuture<T> hedgeFuture;
+        try {
+            hedgeFuture = submit(executor, hedge, false);
+        } catch (RejectedExecutionException e) {
+            return await(primaryFuture);
+        }
+        hedged.increment();
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primaryFuture.whenComplete((value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+        hedgeFuture.whenComplete((value, error) -> {
+            if (error == null) {
+                if (winner.complete(value)) {
+                    hedgeWins.increment();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+        return await(winner);
+    }
+
+    /**
+     * 记录一次主请求耗时，每 MIN_SAMPLES 个样本重新计算对冲延迟
+     *
+     * @param latencyMicros 耗时（微秒）
+     */
+    public void record(long latencyMicros) {
+        long index = sampleCount.getAndIncrement();
+        samples.set((int) (index % SAMPLE_SIZE), latencyMicros);
+        if ((index + 1) % MIN_SAMPLES == 0) {
+            recompute(Math.min(index + 1, SAMPLE_SIZE));
+        }
+    }
+
+    private void recompute(long size) {
+        long[] sorted = new long[(int) size];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        long value = sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+        delayMicros = Math.max(value, TimeUnit.MILLISECONDS.toMicros(minDelayMs));
+    }
+
+    private void accrue() {
+        long max = CREDITS_PER_HEDGE * MAX_BURST;
+        long current;
+        do {
+            current = credits.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!credits.compareAndSet(current, Math.min(max, current + budgetPercent)));
+    }
+
+    private boolean tryConsume() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDITS_PER_HEDGE) {
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDITS_PER_HEDGE));
+        return true;
+    }
+
+    private <T> T callInline(Callable<T> primary) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return primary.call();
+        } finally {
+            record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Executor executor, Callable<T> task, boolean timed) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                if (timed) {
+                    record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                }
+            }
+        });
+        return future;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    /**
+     * 调用线程上的主请求与延迟触发的对冲请求之间的竞争
+     * 胜负在锁内判定，对冲胜出时的中断也在锁内发出，调用线程拿到锁后清除中断不会遗漏
+     */
+    private final class Race<T> {
+
+        private final Thread caller;
+        private final Callable<T> hedge;
+        private final CompletableFuture<T> hedgeResult = new CompletableFuture<>();
+
+        private boolean launched;
+        private boolean decided;
+        private boolean hedgeFirst;
+
+        Race(Thread caller, Callable<T> hedge) {
+            this.caller = caller;
+            this.hedge = hedge;
+        }
+
+        void runHedge() {
+            synchronized (this) {
+                if (decided || !tryConsume()) {
+                    return;
+                }
+                launched = true;
+            }
+            hedged.increment();
+            try {
+                T value = hedge.call();
+                synchronized (this) {
+                    hedgeResult.complete(value);
+                    if (!decided) {
+                        decided = true;
+                        hedgeFirst = true;
+                        caller.interrupt();
+                    }
+                }
+            } catch (Throwable e) {
+                hedgeResult.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 主请求返回后调用
+         *
+         * @return true 主请求先完成；false 对冲请求已胜出（同时清除对冲发出的中断）
+         */
+        synchronized boolean finishPrimary() {
+            if (hedgeFirst) {
+                Thread.interrupted();
+                return false;
+            }
+            decided = true;
+            return true;
+        }
+
+        synchronized boolean isLaunched() {
+            return launched;
+        }
+    }
+
+    /**
+     * 当前对冲延迟（微秒），-1 表示样本不足、尚未开始对冲
+     */
+    public long getDelayMicros() {
+        return delayMicros;
+    }
+
+    /**
+     * 累计发出的对冲请求数
+     */
+    public long getHedgedCount() {
+        return hedged.sum();
+    }
+
+    /**
+     * 累计对冲请求先于主请求返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+}
@@ -2,6 +2,7 @@ package cn.bafuka.hotarmor.dataplane.impl;
 
 import cn.bafuka.hotarmor.core.HotArmorContext;
 import cn.bafuka.hotarmor.dataplane.L3HotspotDetector;
+import cn.bafuka.hotarmor.model.HotArmorRule;
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphU;
@@ -12,14 +13,21 @@ import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRuleManager;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * L3 热点探测器实现
- * 基于 Sentinel 热点参数流控
+ * 基于 Sentinel 热点参数流控，可选叠加趋势探测（速率加速时提前判定热点）
+ * 和自适应阈值（按 key 速率分布的分位数动态调整 Sentinel 阈值）
  */
 @Slf4j
 public class SentinelL3HotspotDetector implements L3HotspotDetector {
@@ -31,6 +39,72 @@ public class SentinelL3HotspotDetector implements L3HotspotDetector {
      */
     private final Map<String, ParamFlowRule> ruleMap = new ConcurrentHashMap<>();
 
+    /**
+     * L3 配置缓存
+     */
+    private final Map<String, HotArmorRule.L3HotspotConfig> configMap = new ConcurrentHashMap<>();
+
+    /**
+     * 趋势探测的速率跟踪器
+     * Key: resource 名称
+     * Value: 速率跟踪器
+     */
+    private final Map<String, KeyRateTracker> trackerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 计算自适应阈值所需的最少活跃 key 数
+     */
+    private static final int MIN_ADAPTIVE_SAMPLES = 10;
+
+    /**
+     * 自适应阈值的速率跟踪器（1 秒一个桶）
+     * Key: resource 名称
+     * Value: 速率跟踪器
+     */
+    private final Map<String, KeyRateTracker> adaptiveTrackerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 各资源的自适应阈值计算任务
+     */
+    private final Map<String, ScheduledFuture<?>> adaptiveTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 自适应阈值调度器（首次启用自适应阈值时创建）
+     */
+    private volatile ScheduledExecutorService adaptiveScheduler;
+
+    /**
+     * 注册 L3 扩展配置（趋势探测、自适应阈值等）
+     *
+     * @param resource 资源名称
+     * @param config   L3 配置
+     */
+    public synchronized void registerConfig(String resource, HotArmorRule.L3HotspotConfig config) {
+        if (config == null) {
+            configMap.remove(resource);
+            trackerMap.remove(resource);
+            disableAdaptive(resource);
+            return;
+        }
+
+        HotArmorRule.L3HotspotConfig oldConfig = configMap.put(resource, config);
+        if (!config.isTrendEnabled()) {
+            trackerMap.remove(resource);
+        } else if (oldConfig == null || !oldConfig.isTrendEnabled()
+                || oldConfig.getTrendBucketMs() != config.getTrendBucketMs()) {
+            // 至少保留 3 个桶：当前桶 + 两个用于比较的完整桶
+            trackerMap.put(resource, new KeyRateTracker(config.getTrendBucketMs(), 3));
+            log.info("启用 L3 趋势探测: resource={}, bucketMs={}, slopeThreshold={}, minQps={}",
+                    resource, config.getTrendBucketMs(), config.getTrendSlopeThreshold(), config.getTrendMinQps());
+        }
+
+        if (config.isAdaptiveEnabled()) {
+            enableAdaptive(resource, config);
+        } else {
+            disableAdaptive(resource);
+        }
+    }
+
     @Override
     public boolean isHotspot(HotArmorContext context) {
         if (context == null || context.getResource() == null) {
@@ -39,13 +113,23 @@ public class SentinelL3HotspotDetector implements L3HotspotDetector {
 
         String resource = context.getResource();
         Entry entry = null;
+        // L2 采样计数时，一次访问按采样权重计入，等效于按采样率折算阈值
+        int weight = Math.max(1, context.getSampleWeight());
+
+        // 记录速率分布，供自适应阈值计算
+        recordRate(context, weight);
 
         try {
             // 使用 Sentinel 进行热点参数检测
             // 参数索引 0 表示使用 context.getKey() 作为热点参数
-            entry = SphU.entry(resource, EntryType.OUT, 1, context.getKey());
+            entry = SphU.entry(resource, EntryType.OUT, weight, context.getKey());
 
-            // 未被限流，返回 false（不是热点）
+            // 未被限流，再看速率趋势
+            if (isAccelerating(context)) {
+                return true;
+            }
+
+            // 返回 false（不是热点）
             log.debug("L3 探测通过: resource={}, key={}", resource, context.getKey());
             return false;
 
@@ -56,13 +140,33 @@ public class SentinelL3HotspotDetector implements L3HotspotDetector {
 
         } finally {
             if (entry != null) {
-                entry.exit(1, context.getKey());
+                entry.exit(weight, context.getKey());
             }
         }
     }
 
     @Override
-    public void updateRule(String resource, double qpsThreshold, int durationInSec) {
+    public void recordAccess(HotArmorContext context) {
+        if (context != null && context.getResource() != null) {
+            recordRate(context, 1);
+        }
+    }
+
+    /**
+     * 记录 key 的访问速率，供自适应阈值计算
+     *
+     * @param context 上下文信息
+     * @param count   访问次数
+     */
+    private void recordRate(HotArmorContext context, int count) {
+        KeyRateTracker adaptiveTracker = adaptiveTrackerMap.get(context.getResource());
+        if (adaptiveTracker != null && context.getKey() != null) {
+            adaptiveTracker.record(context.getKey(), System.currentTimeMillis(), count);
+        }
+    }
+
+    @Override
+    public synchronized void updateRule(String resource, double qpsThreshold, int durationInSec) {
         log.info("更新 L3 Sentinel 规则: resource={}, qpsThreshold={}, durationInSec={}",
                 resource, qpsThreshold, durationInSec);
 
@@ -80,9 +184,12 @@ public class SentinelL3HotspotDetector implements L3HotspotDetector {
     }
 
     @Override
-    public void removeRule(String resource) {
+    public synchronized void removeRule(String resource) {
         log.info("移除 L3 Sentinel 规则: resource={}", resource);
         ruleMap.remove(resource);
+        configMap.remove(resource);
+        trackerMap.remove(resource);
+        disableAdaptive(resource);
         loadRulesToSentinel();
     }
 
@@ -95,6 +202,160 @@ public class SentinelL3HotspotDetector implements L3HotspotDetector {
         return 0.0;
     }
 
+    /**
+     * 趋势探测：记录本次访问，判断短窗口速率是否在加速
+     *
+     * @param context 上下文信息
+     * @return true 表示速率加速超过斜率阈值
+     */
+    private boolean isAccelerating(HotArmorContext context) {
+        KeyRateTracker tracker = trackerMap.get(context.getResource());
+        HotArmorRule.L3HotspotConfig config = configMap.get(context.getResource());
+        if (tracker == null || config == null || context.getKey() == null) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        KeyRateTracker.RateWindow window = tracker.record(context.getKey(), now, Math.max(1, context.getSampleWeight()));
+
+        double recentQps = tracker.recentQps(window, now);
+        if (recentQps < config.getTrendMinQps()) {
+            return false;
+        }
+
+        double slope = tracker.slope(window, now);
+        if (slope >= config.getTrendSlopeThreshold()) {
+            log.info("L3 趋势探测触发（速率加速！）: resource={}, key={}, recentQps={}, slope={}",
+                    context.getResource(), context.getKey(), recentQps, slope);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 重新计算一次自适应阈值
+     * 取各 key 最近窗口 QPS 的分位数，按上下限裁剪后更新 Sentinel 规则
+     * 统计包含 L1 命中（见 {@link #recordAccess}），已晋升的热点 key 不会因不再经过 L3 而拉低分位数
+     * 由调度器周期调用，也可手动触发（用于测试或运维）
+     *
+     * @param resource 资源名称
+     */
+    public void recomputeAdaptiveThreshold(String resource) {
+        HotArmorRule.L3HotspotConfig config = configMap.get(resource);
+        KeyRateTracker tracker = adaptiveTrackerMap.get(resource);
+        ParamFlowRule currentRule = ruleMap.get(resource);
+        if (config == null || tracker == null || currentRule == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Collection<KeyRateTracker.RateWindow> windows = tracker.asMap().values();
+        double[] rates = new double[windows.size()];
+        int n = 0;
+        for (KeyRateTracker.RateWindow window : windows) {
+            double qps = tracker.windowQps(window, now);
+            if (qps > 0 && n < rates.length) {
+                rates[n++] = qps;
+            }
+        }
+
+        if (n < MIN_ADAPTIVE_SAMPLES) {
+            // 样本过少时分位数没有统计意义，保持当前阈值
+            return;
+        }
+
+        Arrays.sort(rates, 0, n);
+        int index = (int) Math.ceil(config.getAdaptivePercentile() / 100.0 * n) - 1;
+        double percentileQps = rates[Math.max(0, Math.min(index, n - 1))];
+        double threshold = Math.max(config.getAdaptiveMinQps(), Math.min(config.getAdaptiveMaxQps(), percentileQps));
+
+        // 变化小于 5% 时不重新加载规则，避免频繁刷新 Sentinel
+        double current = currentRule.getCount();
+        if (Math.abs(threshold - current) < current * 0.05) {
+            return;
+        }
+
+        ParamFlowRule rule = new ParamFlowRule(resource)
+                .setParamIdx(0)
+                .setGrade(RuleConstant.FLOW_GRADE_QPS)
+                .setCount(threshold)
+                .setDurationInSec(currentRule.getDurationInSec());
+        synchronized (this) {
+            // 计算期间规则被更新或移除时放弃本次调整，避免覆盖新规则
+            if (ruleMap.get(resource) != currentRule) {
+                return;
+            }
+            ruleMap.put(resource, rule);
+            ParamFlowRuleManager.loadRules(new ArrayList<>(ruleMap.values()));
+        }
+
+        log.info("L3 自适应阈值已调整: resource={}, p{}={}, threshold: {} -> {}, keys={}",
+                resource, config.getAdaptivePercentile(), percentileQps, current, threshold, n);
+    }
+
+    /**
+     * 获取当前生效的 QPS 阈值（自适应模式下为动态计算结果）
+     *
+     * @param resource 资源名称
+     * @return QPS 阈值，未配置返回 -1
+     */
+    public double getEffectiveQpsThreshold(String resource) {
+        ParamFlowRule rule = ruleMap.get(resource);
+        return rule == null ? -1 : rule.getCount();
+    }
+
+    /**
+     * 关闭自适应阈值调度器
+     */
+    public void shutdown() {
+        if (adaptiveScheduler != null) {
+            adaptiveScheduler.shutdownNow();
+        }
+    }
+
+    private void enableAdaptive(String resource, HotArmorRule.L3HotspotConfig config) {
+        // 统计窗口覆盖 durationInSec，另加一个未完成的当前桶
+        int bucketCount = Math.max(2, config.getDurationInSec() + 1);
+        KeyRateTracker tracker = adaptiveTrackerMap.get(resource);
+        if (tracker == null || tracker.getBucketCount() != bucketCount) {
+            adaptiveTrackerMap.put(resource, new KeyRateTracker(1000, bucketCount));
+        }
+
+        if (adaptiveScheduler == null) {
+            adaptiveScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "hotarmor-l3-adaptive");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        ScheduledFuture<?> oldTask = adaptiveTasks.remove(resource);
+        if (oldTask != null) {
+            oldTask.cancel(false);
+        }
+
+        long interval = config.getAdaptiveIntervalSeconds();
+        adaptiveTasks.put(resource, adaptiveScheduler.scheduleAtFixedRate(() -> {
+            try {
+                recomputeAdaptiveThreshold(resource);
+            } catch (Exception e) {
+                log.error("L3 自适应阈值计算失败: resource={}", resource, e);
+            }
+        }, interval, interval, TimeUnit.SECONDS));
+
+        log.info("启用 L3 自适应阈值: resource={}, percentile={}, min={}, max={}, interval={}s",
+                resource, config.getAdaptivePercentile(), config.getAdaptiveMinQps(),
+                config.getAdaptiveMaxQps(), interval);
+    }
+
+    private void disableAdaptive(String resource) {
+        adaptiveTrackerMap.remove(resource);
+        ScheduledFuture<?> task = adaptiveTasks.remove(resource);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
     /**
      * 将所有规则加载到 Sentinel
      */
@@ -0,0 +1,202 @@
+package cn.bafuka.hotarmor.dataplane.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis 值压缩器
+ * 超过阈值的值使用 Deflate 压缩，并加上头部标记，压缩与未压缩的值可以在 Redis 中共存：
+ *
+ * <pre>
+ * | 0xA7 | 'H' | flags | 原始长度(4 字节) | 压缩数据 |
+ * </pre>
+ *
+ * 未压缩的值不带头部，读取时通过魔数判断是否需要解压
+ */
+public class ValueCompressor {
+
+    private static final byte MAGIC_0 = (byte) 0xA7;
+    private static final byte MAGIC_1 = 'H';
+
+    /**
+     * Deflate 压缩标记
+     */
+    private static final byte FLAG_DEFLATE = 0x01;
+
+    private static final int HEADER_LENGTH = 7;
+
+    /**
+     * 压缩数据不小于原始数据的该比例时放弃压缩
+     */
+    private static final double MIN_SAVING_RATIO = 0.9;
+
+    private final int thresholdBytes;
+
+    private final Stats stats;
+
+    public ValueCompressor(int thresholdBytes, Stats stats) {
+        this.thresholdBytes = thresholdBytes;
+        this.stats = stats;
+    }
+
+    /**
+     * 按阈值压缩
+     *
+     * @param raw 原始字节
+     * @return 压缩后的字节（带头部），未达到阈值或压缩收益不足时返回原始字节
+     */
+    public byte[] compress(byte[] raw) {
+        if (raw == null || raw.length < thresholdBytes) {
+            return raw;
+        }
+
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + HEADER_LENGTH);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(FLAG_DEFLATE);
+            out.write(raw.length >>> 24);
+            out.write(raw.length >>> 16);
+            out.write(raw.length >>> 8);
+            out.write(raw.length);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            byte[] compressed = out.toByteArray();
+            stats.compressNanos.add(System.nanoTime() - start);
+
+            if (compressed.length >= raw.length * MIN_SAVING_RATIO) {
+                stats.skipped.increment();
+                return raw;
+            }
+            stats.compressed.increment();
+            stats.originalBytes.add(raw.length);
+            stats.compressedBytes.add(compressed.length);
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压（未压缩的值原样返回）
+     *
+     * @param bytes Redis 中的字节
+     * @return 原始字节
+     */
+    public byte[] decompress(byte[] bytes) {
+        if (!isCompressed(bytes)) {
+            return bytes;
+        }
+
+        long start = System.nanoTime();
+        int length = ((bytes[3] & 0xFF) << 24) | ((bytes[4] & 0xFF) << 16)
+                | ((bytes[5] & 0xFF) << 8) | (bytes[6] & 0xFF);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != length) {
+                throw new IllegalStateException("Corrupted compressed value, expected " + length + " bytes, got " + offset);
+            }
+            stats.decompressNanos.add(System.nanoTime() - start);
+            stats.decompressed.increment();
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 是否为压缩格式
+     *
+     * @param bytes Redis 中的字节
+     * @return true 带压缩头部
+     */
+    public static boolean isCompressed(byte[] bytes) {
+        return bytes != null && bytes.length > HEADER_LENGTH
+                && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1 && (bytes[2] & FLAG_DEFLATE) != 0;
+    }
+
+    /**
+     * 压缩统计
+     */
+    public static class Stats {
+        private final LongAdder compressed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder decompressed = new LongAdder();
+        private final LongAdder originalBytes = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+        private final LongAdder compressNanos = new LongAdder();
+        private final LongAdder decompressNanos = new LongAdder();
+
+        /**
+         * 压缩次数
+         */
+        public long getCompressedCount() {
+            return compressed.sum();
+        }
+
+        /**
+         * 因收益不足放弃压缩的次数
+         */
+        public long getSkippedCount() {
+            return skipped.sum();
+        }
+
+        /**
+         * 解压次数
+         */
+        public long getDecompressedCount() {
+            return decompressed.sum();
+        }
+
+        /**
+         * 累计节省的字节数
+         */
+        public long getBytesSaved() {
+            return originalBytes.sum() - compressedBytes.sum();
+        }
+
+        /**
+         * 压缩累计耗时（纳秒，包含放弃压缩的尝试）
+         */
+        public long getCompressNanos() {
+            return compressNanos.sum();
+        }
+
+        /**
+         * 解压累计耗时（纳秒）
+         */
+        public long getDecompressNanos() {
+            return decompressNanos.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats{compressed=%d, skipped=%d, decompressed=%d, bytesSaved=%d, "
+                            + "compressMs=%.2f, decompressMs=%.2f}",
+                    getCompressedCount(), getSkippedCount(), getDecompressedCount(), getBytesSaved(),
+                    getCompressNanos() / 1e6, getDecompressNanos() / 1e6);
+        }
+    }
+}
@@ -29,6 +29,28 @@ public class HotArmorLoadException extends RuntimeException {
         this.reason = reason;
     }
 
+    /**
+     * 不填充堆栈、不记录 suppressed 的构造方法，用于同一实例被反复抛出的场景（如错误缓存）
+     */
+    protected HotArmorLoadException(String message, HotArmorContext context, LoadFailureReason reason) {
+        super(message, null, false, false);
+        this.context = context;
+        this.reason = reason;
+    }
+
+    /**
+     * 创建无堆栈的加载异常
+     * 创建开销远低于普通异常，实例可在多个请求间复用
+     *
+     * @param message 异常信息
+     * @param context 上下文
+     * @param reason  失败原因
+     * @return 加载异常
+     */
+    public static HotArmorLoadException stackless(String message, HotArmorContext context, LoadFailureReason reason) {
+        return new HotArmorLoadException(message, context, reason);
+    }
+
     public HotArmorContext getContext() {
         return context;
     }
@@ -56,6 +78,21 @@ public class HotArmorLoadException extends RuntimeException {
          */
         LOCK_FAILURE("获取锁失败"),
 
+        /**
+         * 超出回源并发限制
+         */
+        CONCURRENCY_LIMITED("超出回源并发限制"),
+
+        /**
+         * 超出集群回源速率限制
+         */
+        RATE_LIMITED("超出集群回源速率限制"),
+
+        /**
+         * 回源已熔断且无可用的降级结果
+         */
+        CIRCUIT_OPEN("回源已熔断"),
+
         /**
          * Redis 错误
          */
@@ -1,10 +1,13 @@
 package cn.bafuka.hotarmor.model;
 
+import cn.bafuka.hotarmor.exception.HotArmorLoadException;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -47,6 +50,11 @@ public class HotArmorRule {
      */
     private ConsistencyConfig consistencyConfig;
 
+    /**
+     * 回源熔断配置
+     */
+    private CircuitBreakerConfig circuitBreakerConfig;
+
     /**
      * L1 本地缓存配置
      */
@@ -78,6 +86,32 @@ public class HotArmorRule {
          */
         @Builder.Default
         private boolean enabled = true;
+
+        /**
+         * 是否启用粘性热点
+         * 近期判定为热点的 key 在 L1 过期后跳过 L2/L3 直接重新晋升，降温后主动从 L1 驱逐
+         */
+        @Builder.Default
+        private boolean stickyEnabled = false;
+
+        /**
+         * 热点状态保留时间（秒），超过该时间无访问则遗忘热点状态
+         */
+        @Builder.Default
+        private long stickySeconds = 300;
+
+        /**
+         * 降级 QPS 阈值，热点 key 的访问 QPS 低于该值时判定为冷数据并从 L1 驱逐
+         * 应低于 L3 qpsThreshold，两者之间的区间形成迟滞，避免频繁晋升/降级抖动
+         */
+        @Builder.Default
+        private double demoteQpsThreshold = 10.0;
+
+        /**
+         * 降级检查周期（秒）
+         */
+        @Builder.Default
+        private int demoteCheckIntervalSeconds = 10;
     }
 
     /**
@@ -105,6 +139,27 @@ public class HotArmorRule {
          */
         @Builder.Default
         private boolean enabled = true;
+
+        /**
+         * L2/L3 计数采样率 (0, 1]，1 表示每次访问都计数
+         * 采样命中的访问按 1/采样率 加权计数，阈值语义保持不变
+         * 启用自适应采样时作为采样率下限
+         */
+        @Builder.Default
+        private double sampleRate = 1.0;
+
+        /**
+         * 是否启用自适应采样
+         * 流量越大采样率越低，流量回落时逐步提高采样率直至全量计数
+         */
+        @Builder.Default
+        private boolean adaptiveSampling = false;
+
+        /**
+         * 自适应采样的目标计数 QPS（单资源每秒期望实际计数的访问次数）
+         */
+        @Builder.Default
+        private double sampleTargetQps = 1000.0;
     }
 
     /**
@@ -132,6 +187,87 @@ public class HotArmorRule {
          */
         @Builder.Default
         private boolean enabled = true;
+
+        /**
+         * 是否启用集群热点探测
+         * 各节点周期性上报本地 Top-K 访问频次，汇总出全局视图后判定热点
+         */
+        @Builder.Default
+        private boolean clusterEnabled = false;
+
+        /**
+         * 集群维度 QPS 阈值（所有节点汇总后的 QPS），小于等于 0 时沿用 qpsThreshold
+         */
+        @Builder.Default
+        private double clusterQpsThreshold = 0;
+
+        /**
+         * 每个节点每个同步周期上报的 Top-K 数量
+         */
+        @Builder.Default
+        private int clusterTopK = 100;
+
+        /**
+         * 集群汇总同步周期（毫秒）
+         */
+        @Builder.Default
+        private long clusterSyncIntervalMs = 1000;
+
+        /**
+         * 是否启用趋势探测
+         * 短窗口速率加速超过斜率阈值时提前判定为热点，无需等待绝对 QPS 达到阈值
+         */
+        @Builder.Default
+        private boolean trendEnabled = false;
+
+        /**
+         * 趋势统计的时间桶宽度（毫秒）
+         */
+        @Builder.Default
+        private long trendBucketMs = 100;
+
+        /**
+         * 速率斜率阈值（QPS/秒），最近两个时间桶的速率差超过该值视为加速
+         */
+        @Builder.Default
+        private double trendSlopeThreshold = 1000.0;
+
+        /**
+         * 趋势判定的最低 QPS，避免低流量抖动被误判
+         */
+        @Builder.Default
+        private double trendMinQps = 20.0;
+
+        /**
+         * 是否启用自适应阈值
+         * 根据资源内各 key 的实时速率分布计算分位数，作为 Sentinel 的 QPS 阈值
+         */
+        @Builder.Default
+        private boolean adaptiveEnabled = false;
+
+        /**
+         * 自适应阈值的分位数（0~100），例如 99.9 表示只晋升速率最高的 0.1% 的 key
+         */
+        @Builder.Default
+        private double adaptivePercentile = 99.0;
+
+        /**
+         * 自适应阈值下限（QPS）
+         */
+        @Builder.Default
+        private double adaptiveMinQps = 10.0;
+
+        /**
+         * 自适应阈值上限（QPS）
+         */
+        @Builder.Default
+        private double adaptiveMaxQps = 10000.0;
+
+        /**
+         * 自适应阈值重新计算周期（秒）
+         */
+        @Builder.Default
+        private int adaptiveIntervalSeconds = 5;
     }
 
     /**
@@ -165,6 +301,239 @@ public class HotArmorRule {
          */
         @Builder.Default
         private long lockLeaseTimeMs = 5000;
+
+        /**
+         * 未抢到锁时等待持锁者回写 Redis 的最长时间（毫秒），超时后降级查 DB
+         */
+        @Builder.Default
+        private long valueReadyTimeoutMs = 1500;
+
+        /**
+         * 是否启用 Redis 微批（并发的单 key GET/SET 合并为 MGET/pipeline）
+         */
+        @Builder.Default
+        private boolean batchEnabled = false;
+
+        /**
+         * 是否压缩大值（Deflate，带头部标记，压缩与未压缩的值可共存）
+         */
+        @Builder.Default
+        private boolean compressEnabled = false;
+
+        /**
+         * 压缩阈值（字节），编码后不小于该大小的值才压缩
+         */
+        @Builder.Default
+        private int compressThresholdBytes = 4096;
+
+        /**
+         * 是否启用逻辑过期
+         * 启用后 redisTtlSeconds 作为逻辑过期时间嵌入值中，过期后仍返回旧值并异步刷新
+         */
+        @Builder.Default
+        private boolean logicalExpireEnabled = false;
+
+        /**
+         * 逻辑过期模式下的物理 TTL（秒），用于最终清理长期无人访问的值
+         */
+        @Builder.Default
+        private int logicalExpireHardTtlSeconds = 86400;
+
+        /**
+         * 是否启用概率提前刷新（XFetch）
+         * 启用后值中记录回源耗时，读者在过期前按概率触发一次异步刷新，避免过期瞬间集中回源
+         */
+        @Builder.Default
+        private boolean earlyRefreshEnabled = false;
+
+        /**
+         * 概率提前刷新系数，越大越倾向提前刷新（1.0 为论文推荐值）
+         */
+        @Builder.Default
+        private double earlyRefreshBeta = 1.0;
+
+        /**
+         * 是否启用数据库回源自适应并发限制
+         * 根据回源耗时动态调整单资源并发上限，超出上限的回源排队等待，超时快速失败
+         */
+        @Builder.Default
+        private boolean concurrencyLimitEnabled = false;
+
+        /**
+         * 初始并发上限
+         */
+        @Builder.Default
+        private int concurrencyInitialLimit = 20;
+
+        /**
+         * 并发上限下界
+         */
+        @Builder.Default
+        private int concurrencyMinLimit = 2;
+
+        /**
+         * 并发上限上界（建议不超过数据库连接池大小）
+         */
+        @Builder.Default
+        private int concurrencyMaxLimit = 200;
+
+        /**
+         * 超出上限时的排队超时（毫秒），0 表示不排队直接失败
+         */
+        @Builder.Default
+        private long concurrencyQueueTimeoutMs = 100;
+
+        /**
+         * 是否启用租约回填（替代回源锁）
+         * 未命中时原子地发放租约，只有租约持有者可以回填，删除缓存会作废未完成的租约；
+         * 启用后一致性配置中的延迟双删自动跳过
+         */
+        @Builder.Default
+        private boolean leaseEnabled = false;
+
+        /**
+         * 租约有效期（毫秒），应大于一次数据库回源的耗时
+         */
+        @Builder.Default
+        private long leaseTtlMs = 3000;
+
+        /**
+         * 未获得租约时的重试间隔（毫秒），总等待时间受 valueReadyTimeoutMs 限制
+         */
+        @Builder.Default
+        private long leaseRetryMs = 50;
+
+        /**
+         * 加回源锁的访问频率阈值（L2 计数窗口内的访问次数）
+         * 频率低于阈值的冷 key 并发回源的概率很低，跳过分布式锁直接回源（仍保留进程内合并）；
+         * 热点 key 和频率未知（未启用 L2）的 key 始终加锁；0 表示始终加锁
+         */
+        @Builder.Default
+        private long lockFrequencyThreshold = 0;
+
+        /**
+         * 回写 Redis 的准入频率阈值（L2 计数窗口内的访问次数）
+         * 频率低于阈值的非热点 key 视为一次性访问，不回写或按 admissionColdTtlSeconds 回写；0 表示不做准入
+         */
+        @Builder.Default
+        private long admissionFrequencyThreshold = 0;
+
+        /**
+         * 未通过准入的冷 key 的回写 TTL（秒），0 表示不回写
+         */
+        @Builder.Default
+        private int admissionColdTtlSeconds = 0;
+
+        /**
+         * 是否启用错误缓存
+         * 数据库回源失败后在 errorCacheTtlMs 内记住该 key 的失败，期间直接抛出 HotArmorLoadException，不再访问数据库；
+         * 启用后回源失败不再返回空值，而是抛出 HotArmorLoadException
+         */
+        @Builder.Default
+        private boolean errorCacheEnabled = false;
+
+        /**
+         * 错误缓存时间（毫秒）
+         */
+        @Builder.Default
+        private long errorCacheTtlMs = 1000;
+
+        /**
+         * 是否同时将失败记录写入 Redis，使其他节点在窗口内也不再回源
+         */
+        @Builder.Default
+        private boolean errorCacheRedisEnabled = false;
+
+        /**
+         * 是否启用集群级回源限流
+         * 所有节点共享 Redis 中的令牌桶，超出速率的回源快速失败（由切面返回旧值、降级方法结果或抛出异常）
+         */
+        @Builder.Default
+        private boolean clusterRateLimitEnabled = false;
+
+        /**
+         * 集群每秒允许的数据库回源次数
+         */
+        @Builder.Default
+        private double clusterRateLimitPermitsPerSecond = 1000;
+
+        /**
+         * 令牌桶容量（允许的突发回源数），0 表示与每秒速率相同
+         */
+        @Builder.Default
+        private long clusterRateLimitBurst = 0;
+
+        /**
+         * 每次从 Redis 预取的令牌数，应远小于"速率 / 节点数"
+         */
+        @Builder.Default
+        private int clusterRateLimitPrefetch = 5;
+
+        /**
+         * 热点副本数
+         * 热点 key 额外写入 N 个带后缀的副本键（"缓存键#r{i}"，分布在不同 slot），读热点 key 时随机选择主键或副本；
+         * 缓存键带 hash tag 时不生效；0 表示不使用副本
+         */
+        @Builder.Default
+        private int hotReplicaCount = 0;
+
+        /**
+         * 是否从 Redis 从节点读取（需要提供名为 hotArmorReplicaRedisTemplate 的读从节点 RedisTemplate）
+         * 持锁后的二次检查、等待回填以及本节点写入/删除后的 replicaReadAfterWriteMs 内仍读主节点
+         */
+        @Builder.Default
+        private boolean readFromReplicaEnabled = false;
+
+        /**
+         * 本节点写入或删除某个键后，在该时间内（毫秒）读取该键仍走主节点，最大 10000
+         */
+        @Builder.Default
+        private long replicaReadAfterWriteMs = 1000;
+
+        /**
+         * 是否异步回写 Redis
+         * 只作用于不持锁的回写（冷 key 免锁回源、等锁超时后的降级回写）：放入后台队列以 pipeline 批量写入，
+         * 写入完成前本节点直接读取待写值
+         * 持锁回写（以及租约回填）始终同步执行，保证解锁和"值已就绪"通知发生在写入之后；
+         * lockFrequencyThreshold 为默认值 0 时所有未命中都走持锁路径，开启本选项几乎没有效果，
+         * 需同时配置 lockFrequencyThreshold
+         */
+        @Builder.Default
+        private boolean asyncWriteBackEnabled = false;
+
+        /**
+         * 是否对冲 Redis 读取
+         * 读取超过对冲延迟仍未返回时再发出一次读取（设置了从节点读模板时读另一类节点，否则重试主节点），先返回者胜出；
+         * 主读取在调用线程执行，对冲读取先返回时中断主读取
+         */
+        @Builder.Default
+        private boolean redisHedgeEnabled = false;
+
+        /**
+         * 是否对冲数据库回源
+         * 注意：开启后被注解的方法（回源时的 joinPoint.proceed()）在对冲线程池中执行，且可能被调用两次，
+         * 因此该方法必须幂等，并且不能依赖线程绑定的上下文——调用线程的事务、安全上下文、MDC 等 ThreadLocal 在其中均不可见
+         */
+        @Builder.Default
+        private boolean dbHedgeEnabled = false;
+
+        /**
+         * 对冲延迟取最近耗时的该分位数（0-100）
+         */
+        @Builder.Default
+        private double hedgeDelayPercentile = 95;
+
+        /**
+         * 最小对冲延迟（毫秒）
+         */
+        @Builder.Default
+        private long hedgeMinDelayMs = 2;
+
+        /**
+         * 对冲预算：额外请求占总请求的百分比上限（1-50）
+         */
+        @Builder.Default
+        private int hedgeBudgetPercent = 5;
     }
 
     /**
@@ -206,4 +575,76 @@ public class HotArmorRule {
         @Builder.Default
         private boolean enablePromotionBroadcast = true;
     }
+
+    /**
+     * 回源熔断配置
+     * 数据库回源按失败原因统计失败率，熔断期间直接返回最近一次的已知值或降级方法结果
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CircuitBreakerConfig {
+        /**
+         * 是否启用熔断
+         */
+        @Builder.Default
+        private boolean enabled = false;
+
+        /**
+         * 计入失败的原因
+         */
+        @Builder.Default
+        private List<HotArmorLoadException.LoadFailureReason> failureReasons = Arrays.asList(
+                HotArmorLoadException.LoadFailureReason.DATABASE_ERROR,
+                HotArmorLoadException.LoadFailureReason.TIMEOUT);
+
+        /**
+         * 触发熔断的失败率（0-1）
+         */
+        @Builder.Default
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 统计窗口内触发熔断所需的最小请求数
+         */
+        @Builder.Default
+        private int minimumRequests = 20;
+
+        /**
+         * 统计窗口（毫秒）
+         */
+        @Builder.Default
+        private long windowMs = 10000;
+
+        /**
+         * 熔断持续时间（毫秒），到期后进入半开状态
+         */
+        @Builder.Default
+        private long openDurationMs = 5000;
+
+        /**
+         * 半开状态下放行的探测请求数，全部成功后关闭熔断
+         */
+        @Builder.Default
+        private int halfOpenProbes = 3;
+
+        /**
+         * 最近已知值的本地保留数量（熔断时兜底返回，key 失效时同步清除）
+         */
+        @Builder.Default
+        private int lastKnownValueSize = 10000;
+
+        /**
+         * 最近已知值的保留时间（毫秒，写入后开始计时），超过后不再作为兜底返回
+         */
+        @Builder.Default
+        private long lastKnownValueTtlMs = 600000;
+
+        /**
+         * 熔断未打开时回源失败是否也返回最近已知值（默认只在熔断打开或半开期间返回）
+         */
+        @Builder.Default
+        private boolean serveLastKnownOnFailure = false;
+    }
 }
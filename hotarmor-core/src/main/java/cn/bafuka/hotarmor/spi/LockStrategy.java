@@ -0,0 +1,67 @@
+package cn.bafuka.hotarmor.spi;
+
+/**
+ * L4 回源锁策略 SPI 接口
+ * 用于缓存击穿保护：同一缓存键同一时刻只允许一个持锁者回源并回写 Redis
+ *
+ * 实现类需要线程安全；返回的锁可能与获取线程绑定（如 Redisson 可重入锁），须在同一线程释放
+ */
+public interface LockStrategy {
+
+    /**
+     * 尝试获取缓存键对应的锁
+     *
+     * @param redisKey    缓存的 Redis 键（实现自行决定锁键名）
+     * @param waitTimeMs  最长等待时间（毫秒），0 表示只尝试一次
+     * @param leaseTimeMs 锁自动过期时间（毫秒）
+     * @return 锁，获取失败返回 null
+     * @throws InterruptedException 等待被中断
+     */
+    Lock tryLock(String redisKey, long waitTimeMs, long leaseTimeMs) throws InterruptedException;
+
+    /**
+     * 锁策略类型标识
+     *
+     * @return 类型名称（如 "redisson"）
+     */
+    String getType();
+
+    /**
+     * 已获取的锁
+     */
+    interface Lock {
+
+        /**
+         * 释放锁
+         */
+        void unlock();
+
+        /**
+         * 是否支持在一次往返内原子地写入缓存值并释放锁
+         *
+         * @return true {@link #writeAndUnlock} 为原子实现
+         */
+        default boolean supportsWriteAndUnlock() {
+            return false;
+        }
+
+        /**
+         * 写入缓存值并释放锁，无论是否写入，调用后锁都已释放
+         * 默认实现先执行 write 普通写入再解锁；原子实现只在锁仍归自己时写入（锁已过期或被其他持有者获取时不写入）
+         *
+         * @param rawKey     缓存的 Redis 键（原始字节）
+         * @param value      缓存值（原始字节）
+         * @param ttlSeconds 缓存过期时间（秒）
+         * @param write      普通写入（默认实现使用）
+         * @return true 已写入
+         */
+        default boolean writeAndUnlock(byte[] rawKey, byte[] value, long ttlSeconds, Runnable write) {
+            try {
+                write.run();
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+    }
+}
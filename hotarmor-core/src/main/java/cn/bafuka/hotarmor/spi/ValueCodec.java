@@ -0,0 +1,35 @@
+package cn.bafuka.hotarmor.spi;
+
+/**
+ * 值编解码器 SPI 接口
+ * 用于 L4 Redis 读写和热点晋升广播中缓存值的编解码，替代 RedisTemplate 配置的通用序列化器
+ *
+ * 实现类需要线程安全
+ */
+public interface ValueCodec {
+
+    /**
+     * 编码
+     *
+     * @param value 缓存值
+     * @param type  值的声明类型（如被缓存方法的返回类型），未知时为 null
+     * @return 编码后的字节
+     */
+    byte[] encode(Object value, Class<?> type);
+
+    /**
+     * 解码
+     *
+     * @param bytes 编码后的字节
+     * @param type  值的声明类型，需与编码时一致，未知时为 null
+     * @return 缓存值
+     */
+    Object decode(byte[] bytes, Class<?> type);
+
+    /**
+     * 编解码器类型标识
+     *
+     * @return 类型名称（如 "protostuff"）
+     */
+    String getType();
+}
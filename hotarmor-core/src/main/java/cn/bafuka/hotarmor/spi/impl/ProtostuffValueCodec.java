@@ -0,0 +1,118 @@
+package cn.bafuka.hotarmor.spi.impl;
+
+import cn.bafuka.hotarmor.spi.ValueCodec;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于 Protostuff 的二进制值编解码器
+ *
+ * 声明类型已知且为普通 POJO 时，按运行时 schema（首次使用时生成并缓存）直接编码字段，
+ * 不写入任何类型字符串；基础类型、集合、多态值等退化为包装编码（携带类型信息）。
+ * 编码结果首字节为格式标记，用于解码时区分两种格式
+ */
+public class ProtostuffValueCodec implements ValueCodec {
+
+    /**
+     * 按声明类型的 schema 直接编码
+     */
+    private static final byte FORMAT_SCHEMA = 1;
+
+    /**
+     * 包装编码（携带类型信息）
+     */
+    private static final byte FORMAT_WRAPPED = 2;
+
+    private static final Schema<ValueWrapper> WRAPPER_SCHEMA = RuntimeSchema.getSchema(ValueWrapper.class);
+
+    /**
+     * 编码缓冲区（每个线程复用）
+     */
+    private static final ThreadLocal<LinkedBuffer> BUFFER = ThreadLocal.withInitial(() -> LinkedBuffer.allocate(512));
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+
+        LinkedBuffer buffer = BUFFER.get();
+        try {
+            if (type != null && type == value.getClass() && isSchemaType(type)) {
+                Schema<Object> schema = (Schema<Object>) RuntimeSchema.getSchema(type);
+                return withFormat(FORMAT_SCHEMA, ProtostuffIOUtil.toByteArray(value, schema, buffer));
+            }
+            return withFormat(FORMAT_WRAPPED, ProtostuffIOUtil.toByteArray(new ValueWrapper(value), WRAPPER_SCHEMA, buffer));
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object decode(byte[] bytes, Class<?> type) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        switch (bytes[0]) {
+            case FORMAT_SCHEMA:
+                if (type == null) {
+                    throw new IllegalArgumentException("Value type is required to decode schema-encoded value");
+                }
+                Schema<Object> schema = (Schema<Object>) RuntimeSchema.getSchema(type);
+                Object message = schema.newMessage();
+                ProtostuffIOUtil.mergeFrom(bytes, 1, bytes.length - 1, message, schema);
+                return message;
+            case FORMAT_WRAPPED:
+                ValueWrapper wrapper = WRAPPER_SCHEMA.newMessage();
+                ProtostuffIOUtil.mergeFrom(bytes, 1, bytes.length - 1, wrapper, WRAPPER_SCHEMA);
+                return wrapper.value;
+            default:
+                throw new IllegalArgumentException("Unknown value codec format: " + bytes[0]);
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "protostuff";
+    }
+
+    /**
+     * 是否可以按 schema 直接编码（普通 POJO）
+     */
+    private static boolean isSchemaType(Class<?> type) {
+        return !type.isPrimitive()
+                && !type.isArray()
+                && !type.isEnum()
+                && !type.isInterface()
+                && !Modifier.isAbstract(type.getModifiers())
+                && !type.getName().startsWith("java.");
+    }
+
+    private static byte[] withFormat(byte format, byte[] body) {
+        byte[] result = new byte[body.length + 1];
+        result[0] = format;
+        System.arraycopy(body, 0, result, 1, body.length);
+        return result;
+    }
+
+    /**
+     * 包装类型，用于编码没有固定 schema 的值
+     */
+    static class ValueWrapper {
+        Object value;
+
+        ValueWrapper() {
+        }
+
+        ValueWrapper(Object value) {
+            this.value = value;
+        }
+    }
+}
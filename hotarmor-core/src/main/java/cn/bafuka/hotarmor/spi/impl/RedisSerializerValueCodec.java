@@ -0,0 +1,32 @@
+package cn.bafuka.hotarmor.spi.impl;
+
+import cn.bafuka.hotarmor.spi.ValueCodec;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 基于 RedisSerializer 的值编解码器
+ * 复用 RedisTemplate 配置的值序列化器（如 GenericJackson2JsonRedisSerializer），声明类型不参与编解码
+ */
+public class RedisSerializerValueCodec implements ValueCodec {
+
+    private final RedisSerializer<Object> serializer;
+
+    public RedisSerializerValueCodec(RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public byte[] encode(Object value, Class<?> type) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes, Class<?> type) {
+        return serializer.deserialize(bytes);
+    }
+
+    @Override
+    public String getType() {
+        return "serializer";
+    }
+}
@@ -0,0 +1,34 @@
+package cn.bafuka.hotarmor.spi.impl;
+
+import cn.bafuka.hotarmor.spi.LockStrategy;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redisson 可重入锁的锁策略（默认）
+ * 锁键为 "lock:" + 缓存键；锁与获取线程绑定，等待期间通过 Redisson 的 pub/sub 唤醒
+ */
+public class RedissonLockStrategy implements LockStrategy {
+
+    private final RedissonClient redissonClient;
+
+    public RedissonLockStrategy(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public Lock tryLock(String redisKey, long waitTimeMs, long leaseTimeMs) throws InterruptedException {
+        RLock lock = redissonClient.getLock("lock:" + redisKey);
+        if (!lock.tryLock(waitTimeMs, leaseTimeMs, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        return lock::unlock;
+    }
+
+    @Override
+    public String getType() {
+        return "redisson";
+    }
+}
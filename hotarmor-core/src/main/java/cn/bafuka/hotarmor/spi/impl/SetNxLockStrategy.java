@@ -0,0 +1,123 @@
+package cn.bafuka.hotarmor.spi.impl;
+
+import cn.bafuka.hotarmor.spi.LockStrategy;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 SET NX PX 的轻量锁策略
+ * 加锁为一次 SET NX PX（值为随机令牌），回写与解锁合并为一次 Lua 脚本，一次未命中只需 2 次往返；
+ * 没有看门狗、可重入和解锁通知（等待者由 L4 的"值已就绪"通知唤醒）
+ *
+ * 锁键为 "{缓存键}:lock"，借助 hash tag 与缓存键位于同一 slot，Redis Cluster 下 Lua 脚本同样可用；
+ * 缓存键本身含 '{' 时无法保证同 slot，回写与解锁退化为两次操作
+ */
+public class SetNxLockStrategy implements LockStrategy {
+
+    /**
+     * 令牌匹配时删除锁
+     */
+    private static final byte[] UNLOCK_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 锁仍归自己时写入缓存值并释放锁；锁已过期说明持有期间可能发生了删除或其他节点的回写，不再写入
+     */
+    private static final byte[] WRITE_AND_UNLOCK_SCRIPT = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3]) "
+            + "redis.call('del', KEYS[1]) "
+            + "return 1 else return 0 end").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 等待锁时的最大轮询间隔（毫秒）
+     */
+    private static final long MAX_POLL_INTERVAL_MS = 50;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public SetNxLockStrategy(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Lock tryLock(String redisKey, long waitTimeMs, long leaseTimeMs) throws InterruptedException {
+        boolean sameSlot = redisKey.indexOf('{') < 0;
+        String lockKey = sameSlot ? "{" + redisKey + "}:lock" : "lock:" + redisKey;
+        byte[] rawLockKey = rawKey(lockKey);
+        byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+        long deadline = System.currentTimeMillis() + waitTimeMs;
+        long interval = 5;
+        while (true) {
+            Boolean acquired = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.set(
+                    rawLockKey, token, Expiration.milliseconds(leaseTimeMs), RedisStringCommands.SetOption.SET_IF_ABSENT));
+            if (Boolean.TRUE.equals(acquired)) {
+                return new TokenLock(rawLockKey, token, sameSlot);
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            // 带抖动的指数退避，避免等待者同时重试
+            Thread.sleep(Math.min(remaining, interval + ThreadLocalRandom.current().nextLong(interval)));
+            interval = Math.min(interval * 2, MAX_POLL_INTERVAL_MS);
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "setnx";
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * 令牌锁
+     */
+    private class TokenLock implements Lock {
+
+        private final byte[] rawLockKey;
+        private final byte[] token;
+        private final boolean sameSlot;
+
+        TokenLock(byte[] rawLockKey, byte[] token, boolean sameSlot) {
+            this.rawLockKey = rawLockKey;
+            this.token = token;
+            this.sameSlot = sameSlot;
+        }
+
+        @Override
+        public void unlock() {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.eval(UNLOCK_SCRIPT, ReturnType.INTEGER, 1, rawLockKey, token));
+        }
+
+        @Override
+        public boolean supportsWriteAndUnlock() {
+            return sameSlot;
+        }
+
+        @Override
+        public boolean writeAndUnlock(byte[] rawKey, byte[] value, long ttlSeconds, Runnable write) {
+            if (!sameSlot) {
+                return Lock.super.writeAndUnlock(rawKey, value, ttlSeconds, write);
+            }
+            byte[] ttl = String.valueOf(ttlSeconds).getBytes(StandardCharsets.UTF_8);
+            Long written = redisTemplate.execute((RedisCallback<Long>) connection -> connection.eval(
+                    WRITE_AND_UNLOCK_SCRIPT, ReturnType.INTEGER, 2, rawLockKey, rawKey, token, value, ttl));
+            return written != null && written == 1L;
+        }
+    }
+}
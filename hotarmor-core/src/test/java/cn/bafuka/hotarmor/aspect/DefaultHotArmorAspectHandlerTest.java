@@ -1,18 +1,22 @@
 package cn.bafuka.hotarmor.aspect;
 
 import cn.bafuka.hotarmor.aspect.impl.DefaultHotArmorAspectHandler;
+import cn.bafuka.hotarmor.aspect.impl.LoadCircuitBreakerRegistry;
 import cn.bafuka.hotarmor.consistency.ConsistencyManager;
 import cn.bafuka.hotarmor.core.HotArmorContext;
 import cn.bafuka.hotarmor.dataplane.L1CacheEngine;
 import cn.bafuka.hotarmor.dataplane.L2NoiseFilter;
 import cn.bafuka.hotarmor.dataplane.L3HotspotDetector;
 import cn.bafuka.hotarmor.dataplane.L4SafeLoader;
+import cn.bafuka.hotarmor.exception.HotArmorLoadException;
+import cn.bafuka.hotarmor.model.HotArmorRule;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.sql.SQLException;
 import java.util.function.Function;
 
 import static org.junit.Assert.*;
@@ -196,6 +200,35 @@ public class DefaultHotArmorAspectHandlerTest {
         verify(l1CacheEngine).put(context, "hotValue");
     }
 
+    /**
+     * 测试近期热点 key 跳过 L2/L3 直接重新晋升
+     */
+    @Test
+    public void testHandleCache_RecentlyHot_BypassL2L3() throws Throwable {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("hotKey")
+                .build();
+
+        when(l1CacheEngine.get(context)).thenReturn(null);
+        when(l1CacheEngine.isRecentlyHot(context)).thenReturn(true);
+
+        when(joinPoint.proceed()).thenReturn("hotValue");
+        when(l4SafeLoader.load(eq(context), any())).thenAnswer(invocation -> {
+            Function<Object, Object> loader = invocation.getArgument(1);
+            return loader.apply(context.getKey());
+        });
+
+        Object result = aspectHandler.handleCache(joinPoint, context);
+
+        assertEquals("hotValue", result);
+        // 跳过 L2/L3
+        verify(l2NoiseFilter, never()).shouldPass(any());
+        verify(l3HotspotDetector, never()).isHotspot(any());
+        // 直接晋升到 L1
+        verify(l1CacheEngine).put(context, "hotValue");
+    }
+
     /**
      * 测试 L4 返回 null 时不晋升
      */
@@ -392,4 +425,126 @@ public class DefaultHotArmorAspectHandlerTest {
             throw e;
         }
     }
+
+    /**
+     * 测试回源熔断：失败率超过阈值后不再访问数据库，返回最近已知值或降级方法结果
+     */
+    @Test
+    public void testCircuitBreaker_ServeLastKnownAndFallback() throws Throwable {
+        LoadCircuitBreakerRegistry registry = new LoadCircuitBreakerRegistry();
+        registry.onRuleAdded(HotArmorRule.builder()
+                .resource("test:resource")
+                .circuitBreakerConfig(HotArmorRule.CircuitBreakerConfig.builder()
+                        .enabled(true)
+                        .minimumRequests(3)
+                        .failureRateThreshold(0.5)
+                        .openDurationMs(60000)
+                        .build())
+                .build());
+        aspectHandler.setCircuitBreakerRegistry(registry);
+
+        when(l1CacheEngine.get(any())).thenReturn(null);
+        when(l2NoiseFilter.shouldPass(any())).thenReturn(false);
+        // 模拟 L4 吞掉数据库异常返回 null
+        when(l4SafeLoader.load(any(), any())).thenAnswer(invocation -> {
+            HotArmorContext ctx = invocation.getArgument(0);
+            Function<Object, Object> loader = invocation.getArgument(1);
+            try {
+                return loader.apply(ctx.getKey());
+            } catch (HotArmorLoadException e) {
+                return null;
+            }
+        });
+
+        HotArmorContext key1 = HotArmorContext.builder().resource("test:resource").key("key1").build();
+        HotArmorContext key2 = HotArmorContext.builder().resource("test:resource").key("key2").build();
+
+        // 成功加载一次，记住最近已知值
+        when(joinPoint.proceed()).thenReturn("v1");
+        assertEquals("v1", aspectHandler.handleCache(joinPoint, key1));
+
+        // 两次数据库错误：3 次请求中 2 次失败，熔断打开
+        when(joinPoint.proceed()).thenThrow(new SQLException("db down"));
+        assertNull(aspectHandler.handleCache(joinPoint, key2));
+        assertNull(aspectHandler.handleCache(joinPoint, key2));
+        assertEquals(LoadCircuitBreakerRegistry.State.OPEN, registry.get("test:resource").getState());
+
+        // 熔断期间返回最近已知值，不访问 L4/数据库
+        clearInvocations(joinPoint, l4SafeLoader);
+        assertEquals("v1", aspectHandler.handleCache(joinPoint, key1));
+        verify(l4SafeLoader, never()).load(any(), any());
+        verify(joinPoint, never()).proceed();
+
+        // 无最近已知值时调用降级方法
+        HotArmorContext key3 = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key3")
+                .targetClass(FallbackService.class)
+                .parameterTypes(new Class<?>[]{String.class})
+                .fallbackMethod("fallback")
+                .build();
+        when(joinPoint.getTarget()).thenReturn(new FallbackService());
+        when(joinPoint.getArgs()).thenReturn(new Object[]{"key3"});
+        assertEquals("fallback:key3", aspectHandler.handleCache(joinPoint, key3));
+        verify(joinPoint, never()).proceed();
+    }
+
+    /**
+     * 测试熔断关闭时回源失败不返回最近已知值，key 失效后最近已知值被清除
+     */
+    @Test
+    public void testCircuitBreaker_LastKnownOnlyWhenOpenAndEvicted() throws Throwable {
+        LoadCircuitBreakerRegistry registry = new LoadCircuitBreakerRegistry();
+        registry.onRuleAdded(HotArmorRule.builder()
+                .resource("test:resource")
+                .circuitBreakerConfig(HotArmorRule.CircuitBreakerConfig.builder()
+                        .enabled(true)
+                        .minimumRequests(3)
+                        .failureRateThreshold(0.5)
+                        .openDurationMs(60000)
+                        .build())
+                .build());
+        aspectHandler.setCircuitBreakerRegistry(registry);
+
+        when(l1CacheEngine.get(any())).thenReturn(null);
+        when(l2NoiseFilter.shouldPass(any())).thenReturn(false);
+        when(l4SafeLoader.load(any(), any())).thenAnswer(invocation -> {
+            HotArmorContext ctx = invocation.getArgument(0);
+            Function<Object, Object> loader = invocation.getArgument(1);
+            try {
+                return loader.apply(ctx.getKey());
+            } catch (HotArmorLoadException e) {
+                return null;
+            }
+        });
+
+        HotArmorContext key1 = HotArmorContext.builder().resource("test:resource").key("key1").build();
+        when(joinPoint.proceed()).thenReturn("v1");
+        assertEquals("v1", aspectHandler.handleCache(joinPoint, key1));
+
+        // 熔断关闭：失败按空值返回，不返回旧值
+        when(joinPoint.proceed()).thenThrow(new SQLException("db down"));
+        assertNull(aspectHandler.handleCache(joinPoint, key1));
+
+        // 第二次失败打开熔断，返回最近已知值
+        assertEquals("v1", aspectHandler.handleCache(joinPoint, key1));
+        assertEquals(LoadCircuitBreakerRegistry.State.OPEN, registry.get("test:resource").getState());
+
+        // key 失效后不再返回旧值
+        registry.onInvalidate(key1);
+        assertNull(registry.get("test:resource").getLastKnownValue("key1"));
+    }
+
+    /**
+     * 降级方法测试桩
+     */
+    static class FallbackService {
+        public String load(String id) {
+            return "db:" + id;
+        }
+
+        public String fallback(String id) {
+            return "fallback:" + id;
+        }
+    }
 }
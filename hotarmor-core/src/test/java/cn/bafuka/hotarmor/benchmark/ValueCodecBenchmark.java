@@ -0,0 +1,132 @@
+package cn.bafuka.hotarmor.benchmark;
+
+import cn.bafuka.hotarmor.spi.ValueCodec;
+import cn.bafuka.hotarmor.spi.impl.ProtostuffValueCodec;
+import cn.bafuka.hotarmor.spi.impl.RedisSerializerValueCodec;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 值编解码器基准测试：Protostuff 二进制编码 vs GenericJackson2JsonRedisSerializer
+ *
+ * 运行方式：在 IDE 中执行 main 方法，或
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=cn.bafuka.hotarmor.benchmark.ValueCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCodecBenchmark {
+
+    /**
+     * 商品 SKU 数量，控制 DTO 大小
+     */
+    @Param({"1", "50"})
+    private int skuCount;
+
+    private ValueCodec protostuff;
+    private ValueCodec jackson;
+
+    private ProductDetail value;
+    private byte[] protostuffBytes;
+    private byte[] jacksonBytes;
+
+    @Setup
+    public void setUp() {
+        protostuff = new ProtostuffValueCodec();
+        jackson = new RedisSerializerValueCodec(new GenericJackson2JsonRedisSerializer());
+
+        value = new ProductDetail();
+        value.setId(10001L);
+        value.setName("HotArmor 测试商品");
+        value.setDescription("用于编解码基准测试的商品详情，包含多个 SKU 和属性");
+        value.setPrice(new BigDecimal("5999.00"));
+        value.setStock(1000);
+        value.setOnSale(true);
+        value.setUpdateTime(System.currentTimeMillis());
+        List<Sku> skus = new ArrayList<>();
+        for (int i = 0; i < skuCount; i++) {
+            Sku sku = new Sku();
+            sku.setSkuId(20000L + i);
+            sku.setSpec("颜色:黑色;容量:" + (64 << (i % 4)) + "G");
+            sku.setPrice(new BigDecimal("5999.00").add(BigDecimal.valueOf(i)));
+            sku.setStock(100 + i);
+            skus.add(sku);
+        }
+        value.setSkus(skus);
+
+        protostuffBytes = protostuff.encode(value, ProductDetail.class);
+        jacksonBytes = jackson.encode(value, ProductDetail.class);
+        System.out.printf("%n[skuCount=%d] protostuff=%d bytes, jackson=%d bytes%n",
+                skuCount, protostuffBytes.length, jacksonBytes.length);
+    }
+
+    @Benchmark
+    public byte[] protostuffEncode() {
+        return protostuff.encode(value, ProductDetail.class);
+    }
+
+    @Benchmark
+    public Object protostuffDecode() {
+        return protostuff.decode(protostuffBytes, ProductDetail.class);
+    }
+
+    @Benchmark
+    public byte[] jacksonEncode() {
+        return jackson.encode(value, ProductDetail.class);
+    }
+
+    @Benchmark
+    public Object jacksonDecode() {
+        return jackson.decode(jacksonBytes, ProductDetail.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ValueCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    @Data
+    public static class ProductDetail {
+        private Long id;
+        private String name;
+        private String description;
+        private BigDecimal price;
+        private Integer stock;
+        private Boolean onSale;
+        private Long updateTime;
+        private List<Sku> skus;
+    }
+
+    @Data
+    public static class Sku {
+        private Long skuId;
+        private String spec;
+        private BigDecimal price;
+        private Integer stock;
+    }
+}
@@ -0,0 +1,93 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.AdaptiveConcurrencyLimiter;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * AdaptiveConcurrencyLimiter 单元测试
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    /**
+     * 测试达到上限后排队超时被拒绝
+     */
+    @Test
+    public void testRejectWhenLimitReached() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertTrue(limiter.acquire(0));
+        assertTrue(limiter.acquire(0));
+
+        long start = System.currentTimeMillis();
+        assertFalse(limiter.acquire(50));
+        assertTrue(System.currentTimeMillis() - start >= 40);
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    /**
+     * 测试排队等待期间有许可释放时获取成功
+     */
+    @Test
+    public void testQueuedAcquireSucceedsAfterRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10);
+        assertTrue(limiter.acquire(0));
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        });
+        releaser.start();
+
+        assertTrue(limiter.acquire(2000));
+        releaser.join();
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    /**
+     * 测试回源耗时平稳时上限增长，耗时上升或失败时收缩
+     */
+    @Test
+    public void testLimitAdaptsToLatency() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+        long fast = TimeUnit.MILLISECONDS.toNanos(10);
+
+        // 满负载、耗时平稳：上限增长
+        for (int round = 0; round < 20; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                assertTrue(limiter.acquire(0));
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(fast, true);
+            }
+        }
+        int grown = limiter.getLimit();
+        assertTrue("Limit should grow under stable latency, got " + grown, grown > 10);
+
+        // 耗时显著上升：上限收缩
+        for (int i = 0; i < grown; i++) {
+            assertTrue(limiter.acquire(0));
+        }
+        for (int i = 0; i < grown; i++) {
+            limiter.release(fast * 10, true);
+        }
+        int shrunk = limiter.getLimit();
+        assertTrue("Limit should shrink when latency rises, got " + shrunk, shrunk < grown);
+
+        // 失败：乘性减小，但不低于下界
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire(0));
+            limiter.release(fast, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+}
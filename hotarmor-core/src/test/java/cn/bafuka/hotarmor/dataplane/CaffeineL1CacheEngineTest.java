@@ -389,4 +389,139 @@ public class CaffeineL1CacheEngineTest {
         assertNotNull(stats);
         assertTrue(stats.contains("缓存未找到"));
     }
+
+    /**
+     * 测试粘性热点：L1 失效后仍保持热点状态
+     */
+    @Test
+    public void testStickyHotAfterInvalidate() {
+        HotArmorRule.L1CacheConfig config = HotArmorRule.L1CacheConfig.builder()
+                .maximumSize(1000)
+                .expireAfterWrite(60)
+                .timeUnit(TimeUnit.SECONDS)
+                .stickyEnabled(true)
+                .stickySeconds(300)
+                .demoteQpsThreshold(1.0)
+                .demoteCheckIntervalSeconds(60)
+                .build();
+
+        String resource = "test:resource";
+        cacheEngine.getOrCreateCache(resource, config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+
+        assertFalse(cacheEngine.isRecentlyHot(context));
+
+        cacheEngine.put(context, "value1");
+        assertTrue(cacheEngine.isRecentlyHot(context));
+
+        // L1 值失效后，热点状态仍然保留
+        cacheEngine.invalidate(context);
+        assertNull(cacheEngine.get(context));
+        assertTrue(cacheEngine.isRecentlyHot(context));
+
+        cacheEngine.shutdown();
+    }
+
+    /**
+     * 测试降级：访问量低于降级阈值的热点 key 被主动驱逐
+     */
+    @Test
+    public void testDemoteColdKeys() {
+        HotArmorRule.L1CacheConfig config = HotArmorRule.L1CacheConfig.builder()
+                .maximumSize(1000)
+                .expireAfterWrite(60)
+                .timeUnit(TimeUnit.SECONDS)
+                .stickyEnabled(true)
+                .stickySeconds(300)
+                .demoteQpsThreshold(1000000.0)
+                .demoteCheckIntervalSeconds(60)
+                .build();
+
+        String resource = "test:resource";
+        cacheEngine.getOrCreateCache(resource, config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+
+        cacheEngine.put(context, "value1");
+        cacheEngine.get(context);
+
+        // 访问量远低于降级阈值
+        cacheEngine.demoteColdKeys(resource);
+
+        assertFalse(cacheEngine.isRecentlyHot(context));
+        assertNull(cacheEngine.get(context));
+
+        cacheEngine.shutdown();
+    }
+
+    /**
+     * 测试未启用粘性热点时不跟踪状态
+     */
+    @Test
+    public void testStickyDisabled() {
+        HotArmorRule.L1CacheConfig config = HotArmorRule.L1CacheConfig.builder()
+                .maximumSize(1000)
+                .expireAfterWrite(60)
+                .timeUnit(TimeUnit.SECONDS)
+                .build();
+
+        String resource = "test:resource";
+        cacheEngine.getOrCreateCache(resource, config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+
+        cacheEngine.put(context, "value1");
+        assertFalse(cacheEngine.isRecentlyHot(context));
+    }
+
+    /**
+     * 测试热更新粘性热点参数时不清空缓存和热点状态
+     */
+    @Test
+    public void testReconfigureStickyInPlace() {
+        HotArmorRule.L1CacheConfig config = HotArmorRule.L1CacheConfig.builder()
+                .maximumSize(1000)
+                .expireAfterWrite(60)
+                .timeUnit(TimeUnit.SECONDS)
+                .stickyEnabled(true)
+                .stickySeconds(300)
+                .demoteQpsThreshold(1.0)
+                .demoteCheckIntervalSeconds(60)
+                .build();
+
+        String resource = "test:resource";
+        cacheEngine.getOrCreateCache(resource, config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+        cacheEngine.put(context, "value1");
+
+        HotArmorRule.L1CacheConfig updated = HotArmorRule.L1CacheConfig.builder()
+                .maximumSize(1000)
+                .expireAfterWrite(60)
+                .timeUnit(TimeUnit.SECONDS)
+                .stickyEnabled(true)
+                .stickySeconds(600)
+                .demoteQpsThreshold(5.0)
+                .demoteCheckIntervalSeconds(30)
+                .build();
+        cacheEngine.getOrCreateCache(resource, updated);
+
+        assertEquals("value1", cacheEngine.get(context));
+        assertTrue(cacheEngine.isRecentlyHot(context));
+
+        cacheEngine.shutdown();
+    }
 }
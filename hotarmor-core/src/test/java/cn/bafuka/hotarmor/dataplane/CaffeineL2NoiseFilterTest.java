@@ -396,4 +396,72 @@ public class CaffeineL2NoiseFilterTest {
         assertEquals("Count should be exactly " + (threadCount * accessPerThread),
                 threadCount * accessPerThread, finalCount);
     }
+
+    /**
+     * 测试采样计数：计数按权重累加，通过时上下文携带采样权重
+     */
+    @Test
+    public void testSampledCounting() {
+        HotArmorRule.L2FilterConfig config = HotArmorRule.L2FilterConfig.builder()
+                .windowSeconds(10)
+                .threshold(100)
+                .enabled(true)
+                .sampleRate(0.1)
+                .build();
+
+        String resource = "test:resource";
+        noiseFilter.getOrCreateCounter(resource, config);
+        assertEquals(10, noiseFilter.getSampleWeight(resource));
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+
+        int passed = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (noiseFilter.shouldPass(context)) {
+                passed++;
+            }
+        }
+
+        // 计数始终是权重的整数倍，且接近实际访问次数
+        long count = noiseFilter.getCount(context);
+        assertEquals(0, count % 10);
+        assertTrue("Weighted count should approximate real accesses, got: " + count,
+                count > 1000 && count < 3000);
+        assertTrue(passed > 0);
+        // 大部分访问未命中采样，不会进入 L3
+        assertTrue(passed < 1000);
+        assertEquals(10, context.getSampleWeight());
+    }
+
+    /**
+     * 测试默认采样率为全量计数
+     */
+    @Test
+    public void testDefaultSampleRateCountsEveryAccess() {
+        HotArmorRule.L2FilterConfig config = HotArmorRule.L2FilterConfig.builder()
+                .windowSeconds(10)
+                .threshold(3)
+                .enabled(true)
+                .adaptiveSampling(true)
+                .build();
+
+        String resource = "test:resource";
+        noiseFilter.getOrCreateCounter(resource, config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource(resource)
+                .key("key1")
+                .build();
+
+        // 自适应采样在流量统计窗口结束前保持全量计数
+        assertFalse(noiseFilter.shouldPass(context));
+        assertFalse(noiseFilter.shouldPass(context));
+        assertTrue(noiseFilter.shouldPass(context));
+        assertEquals(3, noiseFilter.getCount(context));
+        assertEquals(1, noiseFilter.getSampleWeight(resource));
+        assertEquals(1, context.getSampleWeight());
+    }
 }
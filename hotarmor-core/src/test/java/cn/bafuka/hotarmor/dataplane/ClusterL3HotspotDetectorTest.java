@@ -0,0 +1,202 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.dataplane.impl.ClusterL3HotspotDetector;
+import cn.bafuka.hotarmor.model.HotArmorRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ClusterL3HotspotDetector 单元测试
+ * 使用单机模式（无 Redis）验证汇总与全局判定逻辑
+ */
+public class ClusterL3HotspotDetectorTest {
+
+    private ClusterL3HotspotDetector detector;
+
+    @Mock
+    private L3HotspotDetector localDetector;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        detector = new ClusterL3HotspotDetector(localDetector, null);
+    }
+
+    @After
+    public void tearDown() {
+        detector.shutdown();
+    }
+
+    /**
+     * 测试未启用集群模式时直接委托本地探测器
+     */
+    @Test
+    public void testClusterDisabled_DelegatesToLocal() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .qpsThreshold(100)
+                .clusterEnabled(false)
+                .build();
+        detector.registerConfig("test:resource", config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+        when(localDetector.isHotspot(context)).thenReturn(true);
+
+        assertTrue(detector.isHotspot(context));
+        verify(localDetector).isHotspot(context);
+    }
+
+    /**
+     * 测试汇总后超过集群阈值的 key 被判定为热点
+     */
+    @Test
+    public void testGlobalHotKeyPromoted() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .qpsThreshold(100)
+                .clusterEnabled(true)
+                .clusterQpsThreshold(5)
+                .clusterTopK(10)
+                .clusterSyncIntervalMs(60000)
+                .build();
+        detector.registerConfig("test:resource", config);
+
+        HotArmorContext hot = HotArmorContext.builder().resource("test:resource").key("hotKey").build();
+        HotArmorContext cold = HotArmorContext.builder().resource("test:resource").key("coldKey").build();
+        when(localDetector.isHotspot(any())).thenReturn(false);
+
+        // 周期 60s，阈值 5 QPS => 至少 300 次访问
+        for (int i = 0; i < 300; i++) {
+            detector.isHotspot(hot);
+        }
+        detector.isHotspot(cold);
+
+        detector.syncResource("test:resource");
+
+        assertTrue(detector.getGlobalHotKeys("test:resource").contains("hotKey"));
+        assertFalse(detector.getGlobalHotKeys("test:resource").contains("coldKey"));
+        assertTrue(detector.isHotspot(hot));
+        assertFalse(detector.isHotspot(cold));
+    }
+
+    /**
+     * 测试 L2 抽样放行的访问按抽样权重计入集群窗口
+     */
+    @Test
+    public void testSampleWeightCounted() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .qpsThreshold(100)
+                .clusterEnabled(true)
+                .clusterQpsThreshold(5)
+                .clusterTopK(10)
+                .clusterSyncIntervalMs(60000)
+                .build();
+        detector.registerConfig("test:resource", config);
+        when(localDetector.isHotspot(any())).thenReturn(false);
+
+        // 抽样率 1/10：30 次放行代表 300 次访问，达到 300 次的集群阈值
+        HotArmorContext sampled = HotArmorContext.builder()
+                .resource("test:resource").key("sampledKey").sampleWeight(10).build();
+        for (int i = 0; i < 30; i++) {
+            detector.isHotspot(sampled);
+        }
+        HotArmorContext unsampled = HotArmorContext.builder().resource("test:resource").key("plainKey").build();
+        for (int i = 0; i < 30; i++) {
+            detector.isHotspot(unsampled);
+        }
+
+        detector.syncResource("test:resource");
+
+        assertTrue(detector.getGlobalHotKeys("test:resource").contains("sampledKey"));
+        assertFalse(detector.getGlobalHotKeys("test:resource").contains("plainKey"));
+    }
+
+    /**
+     * 测试晋升后只命中 L1 的全局热点在下一周期仍保持为热点
+     */
+    @Test
+    public void testL1HitsKeepKeyGloballyHot() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .qpsThreshold(100)
+                .clusterEnabled(true)
+                .clusterQpsThreshold(5)
+                .clusterTopK(10)
+                .clusterSyncIntervalMs(60000)
+                .build();
+        detector.registerConfig("test:resource", config);
+        when(localDetector.isHotspot(any())).thenReturn(false);
+
+        HotArmorContext hot = HotArmorContext.builder().resource("test:resource").key("hotKey").build();
+        for (int i = 0; i < 300; i++) {
+            detector.isHotspot(hot);
+        }
+        detector.syncResource("test:resource");
+        assertTrue(detector.isHotspot(hot));
+
+        // 晋升后的访问全部命中 L1，不再经过 isHotspot
+        for (int i = 0; i < 300; i++) {
+            detector.recordAccess(hot);
+        }
+        detector.syncResource("test:resource");
+
+        assertTrue(detector.getGlobalHotKeys("test:resource").contains("hotKey"));
+        verify(localDetector, times(300)).recordAccess(hot);
+    }
+
+    /**
+     * 测试 Top-K 之外的 key 不会进入全局视图
+     */
+    @Test
+    public void testTopKLimit() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .clusterEnabled(true)
+                .clusterQpsThreshold(0.001)
+                .clusterTopK(1)
+                .clusterSyncIntervalMs(1000)
+                .build();
+        detector.registerConfig("test:resource", config);
+
+        HotArmorContext first = HotArmorContext.builder().resource("test:resource").key("k1").build();
+        HotArmorContext second = HotArmorContext.builder().resource("test:resource").key("k2").build();
+
+        for (int i = 0; i < 10; i++) {
+            detector.isHotspot(first);
+        }
+        detector.isHotspot(second);
+
+        detector.syncResource("test:resource");
+
+        assertEquals(1, detector.getGlobalHotKeys("test:resource").size());
+        assertTrue(detector.getGlobalHotKeys("test:resource").contains("k1"));
+    }
+
+    /**
+     * 测试注销后清空全局视图
+     */
+    @Test
+    public void testUnregisterClearsView() {
+        HotArmorRule.L3HotspotConfig config = HotArmorRule.L3HotspotConfig.builder()
+                .clusterEnabled(true)
+                .clusterQpsThreshold(0.001)
+                .clusterSyncIntervalMs(1000)
+                .build();
+        detector.registerConfig("test:resource", config);
+
+        HotArmorContext context = HotArmorContext.builder().resource("test:resource").key("k1").build();
+        detector.isHotspot(context);
+        detector.syncResource("test:resource");
+        assertFalse(detector.getGlobalHotKeys("test:resource").isEmpty());
+
+        detector.unregisterConfig("test:resource");
+
+        assertTrue(detector.getGlobalHotKeys("test:resource").isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.ClusterRateLimiter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ClusterRateLimiter 单元测试
+ */
+public class ClusterRateLimiterTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getKeySerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+    }
+
+    /**
+     * 测试按批预取令牌：一次 Redis 调用发放的令牌在本地消费完之前不再访问 Redis
+     */
+    @Test
+    public void testPrefetchBatch() {
+        when(connection.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class)))
+                .thenReturn(5L);
+        ClusterRateLimiter limiter = new ClusterRateLimiter(redisTemplate, "hotarmor:ratelimit:test", 100, 100, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        verify(connection, times(1)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+
+        assertTrue(limiter.tryAcquire());
+        verify(connection, times(2)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+    }
+
+    /**
+     * 测试集群令牌耗尽时拒绝，且在补充出令牌前不重复访问 Redis
+     */
+    @Test
+    public void testRejectWhenBucketEmpty() {
+        when(connection.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class)))
+                .thenReturn(0L);
+        ClusterRateLimiter limiter = new ClusterRateLimiter(redisTemplate, "hotarmor:ratelimit:test", 1, 1, 1);
+
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getRejectedCount());
+        verify(connection, times(1)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+    }
+
+    /**
+     * 测试 Redis 不可用时放行
+     */
+    @Test
+    public void testFailOpenWhenRedisUnavailable() {
+        when(connection.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class)))
+                .thenThrow(new IllegalStateException("Redis down"));
+        ClusterRateLimiter limiter = new ClusterRateLimiter(redisTemplate, "hotarmor:ratelimit:test", 100, 100, 5);
+
+        assertTrue(limiter.tryAcquire());
+        assertEquals(0, limiter.getRejectedCount());
+    }
+}
@@ -0,0 +1,85 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.KeyRateTracker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * KeyRateTracker 单元测试
+ */
+public class KeyRateTrackerTest {
+
+    /**
+     * 测试最近时间桶速率计算
+     */
+    @Test
+    public void testRecentQps() {
+        KeyRateTracker tracker = new KeyRateTracker(100, 3);
+
+        // 第 10 个桶内 5 次访问
+        KeyRateTracker.RateWindow window = null;
+        for (int i = 0; i < 5; i++) {
+            window = tracker.record("key1", 1000 + i);
+        }
+
+        // 进入第 11 个桶后，最近完整桶为第 10 个：5 次 / 100ms = 50 QPS
+        assertEquals(50.0, tracker.recentQps(window, 1100), 0.001);
+        assertEquals(0.0, tracker.previousQps(window, 1100), 0.001);
+    }
+
+    /**
+     * 测试速率加速时斜率为正
+     */
+    @Test
+    public void testSlopeAccelerating() {
+        KeyRateTracker tracker = new KeyRateTracker(100, 3);
+
+        KeyRateTracker.RateWindow window = null;
+        // 第 10 个桶 2 次，第 11 个桶 20 次
+        for (int i = 0; i < 2; i++) {
+            window = tracker.record("key1", 1000 + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            window = tracker.record("key1", 1100 + i);
+        }
+
+        // (200 QPS - 20 QPS) / 0.1s = 1800 QPS/s
+        assertEquals(1800.0, tracker.slope(window, 1200), 0.001);
+    }
+
+    /**
+     * 测试过期的时间桶不会计入
+     */
+    @Test
+    public void testStaleBucketIgnored() {
+        KeyRateTracker tracker = new KeyRateTracker(100, 3);
+
+        KeyRateTracker.RateWindow window = null;
+        for (int i = 0; i < 10; i++) {
+            window = tracker.record("key1", 1000 + i);
+        }
+
+        // 很久之后，旧桶不应再被视为最近桶
+        assertEquals(0.0, tracker.recentQps(window, 5000), 0.001);
+        assertEquals(0.0, tracker.windowQps(window, 5000), 0.001);
+    }
+
+    /**
+     * 测试不同 key 独立统计
+     */
+    @Test
+    public void testIndependentKeys() {
+        KeyRateTracker tracker = new KeyRateTracker(100, 3);
+
+        KeyRateTracker.RateWindow w1 = tracker.record("key1", 1000);
+        KeyRateTracker.RateWindow w2 = null;
+        for (int i = 0; i < 3; i++) {
+            w2 = tracker.record("key2", 1000 + i);
+        }
+
+        assertEquals(10.0, tracker.recentQps(w1, 1100), 0.001);
+        assertEquals(30.0, tracker.recentQps(w2, 1100), 0.001);
+        assertEquals(2, tracker.asMap().size());
+    }
+}
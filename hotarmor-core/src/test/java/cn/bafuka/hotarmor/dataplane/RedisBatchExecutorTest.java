@@ -0,0 +1,218 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.RedisBatchExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisBatchExecutor 单元测试
+ */
+public class RedisBatchExecutorTest {
+
+    private RedisBatchExecutor executor;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        doReturn(serializer).when(redisTemplate).getKeySerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        // 较大的窗口，保证并发请求落入同一批次
+        executor = new RedisBatchExecutor(redisTemplate, 50_000, 128);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 测试单个读请求
+     */
+    @Test
+    public void testSingleGet() {
+        when(connection.get(bytes("key1"))).thenReturn(bytes("value1"));
+
+        assertEquals("value1", executor.get("key1"));
+        verify(connection).get(bytes("key1"));
+    }
+
+    /**
+     * 测试同一 slot 的并发读请求合并为 MGET
+     */
+    @Test
+    public void testConcurrentGetsMergedIntoMultiGet() throws InterruptedException {
+        // 使用 hash tag 保证落在同一 slot
+        List<String> keys = Arrays.asList("{user}:1", "{user}:2", "{user}:3");
+        when(connection.get(any(byte[].class))).thenAnswer(invocation ->
+                bytes("v-" + new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8)));
+        when(connection.mGet(any())).thenAnswer(invocation -> {
+            List<byte[]> values = new ArrayList<>();
+            for (Object key : invocation.getArguments()) {
+                values.add(bytes("v-" + new String((byte[]) key, StandardCharsets.UTF_8)));
+            }
+            return values;
+        });
+
+        Object[] results = new Object[keys.size()];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            final int idx = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                results[idx] = executor.get(keys.get(idx));
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals("v-" + keys.get(i), results[i]);
+        }
+        verify(connection, atLeastOnce()).mGet(any());
+    }
+
+    /**
+     * 测试单个写请求
+     */
+    @Test
+    public void testSingleSet() {
+        executor.set("key1", "value1", 300, TimeUnit.SECONDS);
+
+        verify(connection).set(eq(bytes("key1")), eq(bytes("value1")),
+                any(Expiration.class), eq(RedisStringCommands.SetOption.UPSERT));
+        verify(connection, never()).openPipeline();
+    }
+
+    /**
+     * 测试单机模式下不同 slot 的读写并发请求通过一次 pipeline 发送
+     */
+    @Test
+    public void testStandaloneMixedBatchSinglePipeline() throws InterruptedException {
+        when(connection.closePipeline()).thenReturn(
+                Arrays.asList(Boolean.TRUE, Arrays.asList(bytes("value2"), bytes("value3"))));
+
+        Object[] results = new Object[2];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> {
+            awaitQuietly(start);
+            executor.set("key1", "value1", 300, TimeUnit.SECONDS);
+        }));
+        threads.add(new Thread(() -> {
+            awaitQuietly(start);
+            results[0] = executor.get("key2");
+        }));
+        threads.add(new Thread(() -> {
+            awaitQuietly(start);
+            results[1] = executor.get("key3");
+        }));
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertEquals("value2", results[0]);
+        assertEquals("value3", results[1]);
+        verify(connection, times(1)).openPipeline();
+        verify(connection).set(eq(bytes("key1")), eq(bytes("value1")),
+                any(Expiration.class), eq(RedisStringCommands.SetOption.UPSERT));
+        verify(connection, never()).get(any(byte[].class));
+    }
+
+    /**
+     * 测试调用方等待超时的操作不再发送
+     */
+    @Test
+    public void testTimedOutOpNotExecuted() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(connection.get(bytes("slow"))).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+
+        // 第一个请求占住批处理线程，第二个请求在队列中等待直至超时
+        Thread slow = new Thread(() -> {
+            try {
+                executor.get("slow");
+            } catch (IllegalStateException ignored) {
+                // 等待超时
+            }
+        });
+        slow.start();
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        try {
+            executor.get("late");
+            fail("expected timeout");
+        } catch (IllegalStateException expected) {
+            // 等待超时
+        }
+        release.countDown();
+        slow.join(5000);
+        Thread.sleep(200);
+
+        verify(connection, never()).get(bytes("late"));
+        verify(connection, never()).mGet(any());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 测试批次执行失败时异常传递给调用方
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testGetFailurePropagates() {
+        when(connection.get(bytes("key1"))).thenThrow(new IllegalStateException("redis down"));
+
+        executor.get("key1");
+    }
+}
@@ -0,0 +1,166 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.RedisHealthTracker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisHealthTracker 单元测试
+ */
+public class RedisHealthTrackerTest {
+
+    private RedisHealthTracker tracker;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        when(connection.ping()).thenReturn("PONG");
+        // 窗口 10s、至少 10 次调用、错误率或慢调用率 50%、慢调用 100ms、每 20ms 探测一次
+        tracker = new RedisHealthTracker(redisTemplate, 10000, 10, 0.5, 100, 0.5, 20);
+    }
+
+    @After
+    public void tearDown() {
+        tracker.shutdown();
+    }
+
+    private static void awaitAvailable(RedisHealthTracker tracker, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!tracker.isAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 测试调用次数不足 minCalls 时不判定为不可用
+     */
+    @Test
+    public void testBelowMinCallsNotTripped() {
+        for (int i = 0; i < 9; i++) {
+            tracker.record(1, true);
+        }
+
+        assertTrue(tracker.isAvailable());
+        assertEquals(0, tracker.getTripCount());
+    }
+
+    /**
+     * 测试错误率超过阈值时判定为不可用
+     */
+    @Test
+    public void testErrorRateTrips() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record(1, false);
+        }
+        assertTrue(tracker.isAvailable());
+        for (int i = 0; i < 5; i++) {
+            tracker.record(1, true);
+        }
+
+        assertFalse(tracker.isAvailable());
+        assertEquals(1, tracker.getTripCount());
+
+        // 不可用期间的失败不重复计数
+        tracker.record(1, true);
+        assertEquals(1, tracker.getTripCount());
+    }
+
+    /**
+     * 测试慢调用率超过阈值时判定为不可用
+     */
+    @Test
+    public void testSlowRateTrips() {
+        for (int i = 0; i < 10; i++) {
+            tracker.record(150, false);
+        }
+
+        assertFalse(tracker.isAvailable());
+        assertEquals(1, tracker.getTripCount());
+    }
+
+    /**
+     * 测试可用期间不探测
+     */
+    @Test
+    public void testNoProbeWhileAvailable() throws Exception {
+        Thread.sleep(100);
+
+        verify(connection, never()).ping();
+    }
+
+    /**
+     * 测试连续探测成功后恢复并执行恢复回调，窗口清空后不会立即再次判定为不可用
+     */
+    @Test
+    public void testProbeRecovers() throws Exception {
+        AtomicInteger recovered = new AtomicInteger();
+        tracker.addRecoveryListener(recovered::incrementAndGet);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1, true);
+        }
+        assertFalse(tracker.isAvailable());
+
+        awaitAvailable(tracker, 2000);
+
+        assertTrue(tracker.isAvailable());
+        // 恢复回调在标记可用之后执行
+        for (int i = 0; i < 100 && recovered.get() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, recovered.get());
+        verify(connection, atLeast(3)).ping();
+
+        tracker.record(1, true);
+        assertTrue(tracker.isAvailable());
+        assertEquals(1, tracker.getTripCount());
+    }
+
+    /**
+     * 测试探测失败时保持不可用，连续成功次数从头计算
+     */
+    @Test
+    public void testProbeFailureKeepsBypassed() throws Exception {
+        AtomicBoolean down = new AtomicBoolean(true);
+        when(connection.ping()).thenAnswer(invocation -> {
+            if (down.get()) {
+                throw new RedisConnectionFailureException("down");
+            }
+            return "PONG";
+        });
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1, true);
+        }
+
+        Thread.sleep(200);
+        assertFalse(tracker.isAvailable());
+        verify(connection, atLeast(3)).ping();
+
+        down.set(false);
+        awaitAvailable(tracker, 2000);
+
+        assertTrue(tracker.isAvailable());
+        assertEquals(1, tracker.getTripCount());
+    }
+}
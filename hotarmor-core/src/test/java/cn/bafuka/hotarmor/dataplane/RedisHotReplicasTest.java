@@ -0,0 +1,108 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.RedisHotReplicas;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisHotReplicas 单元测试
+ */
+public class RedisHotReplicasTest {
+
+    private RedisHotReplicas replicas;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getKeySerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection);
+            return null;
+        });
+        replicas = new RedisHotReplicas(redisTemplate);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 测试主键仍是写入的值时保留副本
+     */
+    @Test
+    public void testWriteKeepsReplicasWhenPrimaryUnchanged() {
+        when(connection.get(bytes("key"))).thenReturn(bytes("value"));
+
+        replicas.write("key", 2, bytes("value"), 300);
+
+        verify(connection).set(eq(bytes("key#r0")), eq(bytes("value")), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.UPSERT));
+        verify(connection).set(eq(bytes("key#r1")), eq(bytes("value")), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.UPSERT));
+        verify(connection, never()).del(any());
+    }
+
+    /**
+     * 测试写副本期间主键被删除时删除刚写入的副本
+     */
+    @Test
+    public void testWriteDeletesReplicasWhenPrimaryDeleted() {
+        when(connection.get(bytes("key"))).thenReturn(null);
+
+        replicas.write("key", 2, bytes("value"), 300);
+
+        verify(connection).del(bytes("key#r0"), bytes("key#r1"));
+    }
+
+    /**
+     * 测试按主键的值和剩余 TTL 补写副本，间隔内只补写一次
+     */
+    @Test
+    public void testRepairUsesPrimaryValueAndTtl() {
+        when(connection.get(bytes("key"))).thenReturn(bytes("value"));
+        when(connection.ttl(bytes("key"))).thenReturn(120L);
+
+        assertTrue(replicas.repair("key", 1));
+        assertFalse(replicas.repair("key", 1));
+
+        ArgumentCaptor<Expiration> expiration = ArgumentCaptor.forClass(Expiration.class);
+        verify(connection, times(1)).set(eq(bytes("key#r0")), eq(bytes("value")), expiration.capture(),
+                eq(RedisStringCommands.SetOption.UPSERT));
+        assertEquals(120, expiration.getValue().getExpirationTimeInSeconds());
+    }
+
+    /**
+     * 测试删除覆盖见过的最大副本数
+     */
+    @Test
+    public void testMaxCountKeepsHighWaterMark() {
+        replicas.configure("resource", 3);
+        replicas.configure("resource", 1);
+
+        assertEquals(3, replicas.getMaxCount("resource"));
+        assertEquals(0, replicas.getMaxCount("other"));
+    }
+}
@@ -0,0 +1,128 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.RedisWriteBehind;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisWriteBehind 单元测试
+ */
+public class RedisWriteBehindTest {
+
+    private RedisWriteBehind writeBehind;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    /**
+     * 阻塞写入线程，直到测试放行
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getKeySerializer();
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection);
+        });
+        writeBehind = new RedisWriteBehind(redisTemplate, 100, 16);
+    }
+
+    @After
+    public void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void awaitWritten(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writeBehind.getWrittenCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, writeBehind.getWrittenCount());
+    }
+
+    /**
+     * 测试写入完成前可读取待写值，完成后清除
+     */
+    @Test
+    public void testPendingValueVisibleUntilWritten() throws InterruptedException {
+        assertTrue(writeBehind.submit("key1", "value1", bytes("value1"), 300));
+        assertEquals("value1", writeBehind.getPendingValue("key1"));
+
+        release.countDown();
+        awaitWritten(1);
+        assertNull(writeBehind.getPendingValue("key1"));
+        verify(connection).set(eq(bytes("key1")), eq(bytes("value1")), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.UPSERT));
+    }
+
+    /**
+     * 测试单机模式下不同 slot 的一批写入合并为一次 pipeline
+     */
+    @Test
+    public void testStandaloneBatchSinglePipeline() throws InterruptedException {
+        // 第一条写入占住写入线程，其余写入攒成一批
+        assertTrue(writeBehind.submit("first", "v", bytes("v"), 300));
+        Thread.sleep(50);
+        assertTrue(writeBehind.submit("key1", "v1", bytes("v1"), 300));
+        assertTrue(writeBehind.submit("key2", "v2", bytes("v2"), 300));
+        assertTrue(writeBehind.submit("key3", "v3", bytes("v3"), 300));
+
+        release.countDown();
+        awaitWritten(4);
+        // 连接模式探测 1 次 + 第一条写入 1 次 + 整批 1 次
+        verify(redisTemplate, times(3)).execute(any(RedisCallback.class));
+        verify(connection, times(1)).openPipeline();
+        verify(connection, times(1)).closePipeline();
+    }
+
+    /**
+     * 测试取消后的写入不执行，同一 key 只写入最新值
+     */
+    @Test
+    public void testCancelAndLatestWriteWins() throws InterruptedException {
+        // 第一条写入占住写入线程，其余写入在队列中等待
+        assertTrue(writeBehind.submit("first", "v", bytes("v"), 300));
+        Thread.sleep(50);
+        assertTrue(writeBehind.submit("cancelled", "v", bytes("v"), 300));
+        assertTrue(writeBehind.submit("key1", "old", bytes("old"), 300));
+        assertTrue(writeBehind.submit("key1", "new", bytes("new"), 300));
+        writeBehind.cancel("cancelled");
+        assertEquals("new", writeBehind.getPendingValue("key1"));
+
+        release.countDown();
+        awaitWritten(2);
+        verify(connection, never()).set(eq(bytes("cancelled")), any(byte[].class), any(Expiration.class),
+                any(RedisStringCommands.SetOption.class));
+        verify(connection, never()).set(eq(bytes("key1")), eq(bytes("old")), any(Expiration.class),
+                any(RedisStringCommands.SetOption.class));
+        verify(connection).set(eq(bytes("key1")), eq(bytes("new")), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.UPSERT));
+    }
+}
@@ -1,18 +1,34 @@
 package cn.bafuka.hotarmor.dataplane;
 
 import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.dataplane.impl.ExpiryEnvelope;
+import cn.bafuka.hotarmor.dataplane.impl.RedisHealthTracker;
 import cn.bafuka.hotarmor.dataplane.impl.RedissonL4SafeLoader;
+import cn.bafuka.hotarmor.exception.HotArmorLoadException;
 import cn.bafuka.hotarmor.model.HotArmorRule;
+import cn.bafuka.hotarmor.spi.impl.ProtostuffValueCodec;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.ArgumentCaptor;
 import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.Assert.*;
@@ -481,4 +497,623 @@ public class RedissonL4SafeLoaderTest {
         assertEquals("fallbackValue", result);
         verify(dbLoader).apply("key1");
     }
+
+    /**
+     * 测试进程内并发回源合并（singleflight）：同一 key 只查一次 DB、只竞争一次锁
+     */
+    @Test
+    public void testLoad_ConcurrentMiss_SingleFlight() throws InterruptedException {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .redisKeyPrefix("hotarmor:")
+                .redisTtlSeconds(300)
+                .lockWaitTimeMs(3000)
+                .lockLeaseTimeMs(5000)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        when(redissonClient.getLock("lock:hotarmor:test:resource:key1")).thenReturn(lock);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(lock.tryLock(3000, 5000, TimeUnit.MILLISECONDS)).thenReturn(true);
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dbCalls = new AtomicInteger();
+        Function<Object, String> slowLoader = key -> {
+            dbCalls.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "dbValue";
+        };
+
+        int threadCount = 8;
+        String[] results = new String[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int idx = i;
+            threads[i] = new Thread(() -> results[idx] = l4SafeLoader.load(context, slowLoader));
+            threads[i].start();
+        }
+
+        // 等待首个线程进入 DB 加载，其余线程进入合并等待后再放行
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertEquals(1, dbCalls.get());
+        for (String result : results) {
+            assertEquals("dbValue", result);
+        }
+        verify(lock, times(1)).tryLock(3000, 5000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 测试未抢到锁时收到"值已就绪"通知：持锁者未加载到数据，等待者立即降级而不是等到超时
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLoad_LockFail_ValueReadyNotification() throws InterruptedException {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .redisKeyPrefix("hotarmor:")
+                .lockWaitTimeMs(3000)
+                .lockLeaseTimeMs(5000)
+                .valueReadyTimeoutMs(5000)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        RTopic topic = mock(RTopic.class);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        when(redissonClient.getLock("lock:hotarmor:test:resource:key1")).thenReturn(lock);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(lock.tryLock(3000, 5000, TimeUnit.MILLISECONDS)).thenReturn(false);
+        when(dbLoader.apply("key1")).thenReturn("dbValue");
+
+        ArgumentCaptor<MessageListener> listenerCaptor = ArgumentCaptor.forClass(MessageListener.class);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        when(topic.addListener(eq(String.class), listenerCaptor.capture())).thenAnswer(invocation -> {
+            subscribed.countDown();
+            return 1;
+        });
+
+        // 模拟其他节点的持锁者完成加载后发布通知
+        Thread publisher = new Thread(() -> {
+            try {
+                subscribed.await(5, TimeUnit.SECONDS);
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listenerCaptor.getValue().onMessage("hotarmor:l4:value-ready", "hotarmor:test:resource:key1");
+        });
+        publisher.start();
+
+        long start = System.currentTimeMillis();
+        String result = l4SafeLoader.load(context, dbLoader);
+        long elapsed = System.currentTimeMillis() - start;
+        publisher.join(5000);
+
+        assertEquals("dbValue", result);
+        assertTrue("Waiter should stop waiting on notification, elapsed: " + elapsed, elapsed < 2000);
+        verify(dbLoader).apply("key1");
+    }
+
+    /**
+     * 测试配置值编解码器后按原始字节读写 Redis
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValueCodec_ReadWriteBytes() {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .valueType(String.class)
+                .build();
+
+        ProtostuffValueCodec codec = new ProtostuffValueCodec();
+        l4SafeLoader.setValueCodec(codec);
+
+        RedisConnection connection = mock(RedisConnection.class);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getKeySerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+
+        byte[] rawKey = "hotarmor:test:resource:key1".getBytes();
+        byte[] encoded = codec.encode("cachedValue", String.class);
+        when(connection.get(rawKey)).thenReturn(encoded);
+
+        assertEquals("cachedValue", l4SafeLoader.getFromRedis(context));
+
+        l4SafeLoader.putToRedis(context, "newValue");
+        verify(connection).set(eq(rawKey), eq(codec.encode("newValue", String.class)), any(), any());
+        // 不再经过 RedisTemplate 的值序列化器
+        verify(valueOperations, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+    }
+
+    /**
+     * 测试逻辑过期：过期值立即返回，后台异步刷新
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLogicalExpire_ServeStaleAndRefresh() throws Exception {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .redisTtlSeconds(300)
+                .logicalExpireEnabled(true)
+                .logicalExpireHardTtlSeconds(3600)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        RedisConnection connection = mock(RedisConnection.class);
+        doReturn(serializer).when(redisTemplate).getKeySerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+
+        byte[] rawKey = "hotarmor:test:resource:key1".getBytes();
+        byte[] stale = ExpiryEnvelope.wrap(serializer.serialize("staleValue"), System.currentTimeMillis() - 1000);
+        when(connection.get(rawKey)).thenReturn(stale);
+
+        when(redissonClient.getLock("lock:hotarmor:test:resource:key1")).thenReturn(lock);
+        when(lock.tryLock(0, 5000, TimeUnit.MILLISECONDS)).thenReturn(true);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(dbLoader.apply("key1")).thenAnswer(invocation -> {
+            refreshed.countDown();
+            return "freshValue";
+        });
+
+        try {
+            assertEquals("staleValue", l4SafeLoader.load(context, dbLoader));
+            assertTrue("Refresh should run in background", refreshed.await(5, TimeUnit.SECONDS));
+
+            // 新值带逻辑过期时间写入，物理 TTL 使用 logicalExpireHardTtlSeconds
+            ArgumentCaptor<byte[]> valueCaptor = ArgumentCaptor.forClass(byte[].class);
+            verify(connection, timeout(5000)).set(eq(rawKey), valueCaptor.capture(),
+                    argThat((Expiration e) -> e.getExpirationTimeInSeconds() == 3600), any());
+            byte[] written = valueCaptor.getValue();
+            assertTrue(ExpiryEnvelope.isWrapped(written));
+            assertTrue(ExpiryEnvelope.expireAt(written) > System.currentTimeMillis());
+            assertEquals("freshValue", serializer.deserialize(ExpiryEnvelope.unwrap(written)));
+            verify(lock, timeout(5000)).unlock();
+        } finally {
+            l4SafeLoader.shutdown();
+        }
+    }
+
+    /**
+     * 测试概率提前刷新：回源耗时远大于剩余 TTL 时提前刷新，远未过期时不刷新
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEarlyRefresh_XFetch() throws Exception {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .redisTtlSeconds(300)
+                .earlyRefreshEnabled(true)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        RedisConnection connection = mock(RedisConnection.class);
+        doReturn(serializer).when(redisTemplate).getKeySerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+
+        when(redissonClient.getLock("lock:hotarmor:test:resource:key1")).thenReturn(lock);
+        when(lock.tryLock(0, 5000, TimeUnit.MILLISECONDS)).thenReturn(true);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(dbLoader.apply("key1")).thenAnswer(invocation -> {
+            refreshed.countDown();
+            return "freshValue";
+        });
+
+        byte[] rawKey = "hotarmor:test:resource:key1".getBytes();
+        try {
+            // 远未过期且回源很快：不刷新
+            long now = System.currentTimeMillis();
+            when(connection.get(rawKey)).thenReturn(
+                    ExpiryEnvelope.wrap(serializer.serialize("cachedValue"), now + 300000, 1));
+            for (int i = 0; i < 100; i++) {
+                assertEquals("cachedValue", l4SafeLoader.load(context, dbLoader));
+            }
+            verify(dbLoader, never()).apply(any());
+
+            // 即将过期且回源很慢：提前刷新，读者仍拿到当前值
+            when(connection.get(rawKey)).thenReturn(
+                    ExpiryEnvelope.wrap(serializer.serialize("cachedValue"), now + 1000, 10000000));
+            assertEquals("cachedValue", l4SafeLoader.load(context, dbLoader));
+            assertTrue("Early refresh should run in background", refreshed.await(5, TimeUnit.SECONDS));
+
+            // 新值携带本次回源耗时，物理 TTL 不变
+            ArgumentCaptor<byte[]> valueCaptor = ArgumentCaptor.forClass(byte[].class);
+            verify(connection, timeout(5000)).set(eq(rawKey), valueCaptor.capture(),
+                    argThat((Expiration e) -> e.getExpirationTimeInSeconds() == 300), any());
+            assertTrue(ExpiryEnvelope.costMs(valueCaptor.getValue()) >= 1);
+        } finally {
+            l4SafeLoader.shutdown();
+        }
+    }
+
+    /**
+     * 测试租约模式：未命中获得租约后回源回填，租约被失效作废时放弃回填并释放租约
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLease_FillRejectedAfterInvalidation() {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .leaseEnabled(true)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+        assertTrue(l4SafeLoader.isLeaseEnabled("test:resource"));
+
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        RedisConnection connection = mock(RedisConnection.class);
+        doReturn(serializer).when(redisTemplate).getKeySerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+        when(valueOperations.get("hotarmor:test:resource:key1")).thenReturn(null);
+
+        // 发放租约 -> 回填时租约已被作废 -> 释放租约
+        when(connection.eval(any(byte[].class), any(ReturnType.class), anyInt(), any(byte[].class)))
+                .thenAnswer(invocation -> {
+                    if (invocation.getArgument(1) == ReturnType.MULTI) {
+                        return Arrays.asList(2L);
+                    }
+                    int numKeys = invocation.getArgument(2);
+                    return numKeys == 2 ? 0L : 1L;
+                });
+        when(dbLoader.apply("key1")).thenReturn("dbValue");
+
+        assertEquals("dbValue", l4SafeLoader.load(context, dbLoader));
+
+        verify(dbLoader).apply("key1");
+        // 不经过回源锁
+        verify(redissonClient, never()).getLock(anyString());
+        // 获取租约、回填、释放租约各一次
+        verify(connection, times(1)).eval(any(byte[].class), eq(ReturnType.MULTI), eq(2), any(byte[].class));
+        verify(connection, times(1)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), any(byte[].class));
+        verify(connection, times(1)).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+
+        // 删除缓存时同时作废租约
+        l4SafeLoader.deleteFromRedis(context);
+        verify(redisTemplate).delete(Arrays.asList("hotarmor:test:resource:key1",
+                "{hotarmor:test:resource:key1}:lease"));
+    }
+
+    /**
+     * 测试冷 key 跳过回源锁，热点 key 与频率达到阈值的 key 仍然加锁
+     */
+    @Test
+    public void testColdKey_SkipsLock() throws InterruptedException {
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .lockFrequencyThreshold(5)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(dbLoader.apply(any())).thenReturn("dbValue");
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        // 冷 key：不加锁，直接回源并回写
+        HotArmorContext cold = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("cold")
+                .accessFrequency(2)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(cold, dbLoader));
+        verify(redissonClient, never()).getLock(anyString());
+        verify(valueOperations).set("hotarmor:test:resource:cold", "dbValue", 300, TimeUnit.SECONDS);
+
+        // 频率达到阈值：加锁
+        HotArmorContext warm = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("warm")
+                .accessFrequency(5)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(warm, dbLoader));
+        verify(redissonClient, times(1)).getLock(anyString());
+
+        // 热点 key 即使频率低也加锁
+        HotArmorContext hot = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("hot")
+                .accessFrequency(1)
+                .hotspot(true)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(hot, dbLoader));
+        verify(redissonClient, times(2)).getLock(anyString());
+    }
+
+    /**
+     * 测试回写准入：冷 key 不回写或按较短 TTL 回写，并记录统计
+     */
+    @Test
+    public void testAdmission_ColdKeyWriteBack() throws InterruptedException {
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .lockFrequencyThreshold(5)
+                .admissionFrequencyThreshold(3)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(dbLoader.apply(any())).thenReturn("dbValue");
+
+        // 访问一次的冷 key：不回写
+        HotArmorContext oneHit = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("oneHit")
+                .accessFrequency(1)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(oneHit, dbLoader));
+        verify(valueOperations, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+
+        // 达到准入阈值：按正常 TTL 回写
+        HotArmorContext admitted = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("admitted")
+                .accessFrequency(3)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(admitted, dbLoader));
+        verify(valueOperations).set("hotarmor:test:resource:admitted", "dbValue", 300, TimeUnit.SECONDS);
+
+        // 配置冷 key TTL 后改为短 TTL 回写
+        l4SafeLoader.registerConfig("test:resource", HotArmorRule.L4LoaderConfig.builder()
+                .lockFrequencyThreshold(5)
+                .admissionFrequencyThreshold(3)
+                .admissionColdTtlSeconds(30)
+                .build());
+        assertEquals("dbValue", l4SafeLoader.load(oneHit, dbLoader));
+        verify(valueOperations).set("hotarmor:test:resource:oneHit", "dbValue", 30, TimeUnit.SECONDS);
+
+        RedissonL4SafeLoader.AdmissionStats stats = l4SafeLoader.getAdmissionStats("test:resource");
+        assertEquals(1, stats.getAdmittedCount());
+        assertEquals(1, stats.getShortenedCount());
+        assertEquals(1, stats.getSkippedCount());
+    }
+
+    /**
+     * 测试持锁者未通过回写准入时不通知其他节点，回写后才通知
+     */
+    @Test
+    public void testValueReady_PublishedOnlyAfterWrite() throws InterruptedException {
+        l4SafeLoader.registerConfig("test:resource", HotArmorRule.L4LoaderConfig.builder()
+                .lockFrequencyThreshold(2)
+                .admissionFrequencyThreshold(5)
+                .build());
+        RTopic topic = mock(RTopic.class);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(dbLoader.apply(any())).thenReturn("dbValue");
+
+        // 加锁回源但未通过准入：不回写，也不通知其他节点
+        HotArmorContext rejected = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("rejected")
+                .accessFrequency(3)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(rejected, dbLoader));
+        verify(valueOperations, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        verify(topic, never()).publishAsync(any());
+
+        // 通过准入：回写后通知
+        HotArmorContext admitted = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("admitted")
+                .accessFrequency(5)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(admitted, dbLoader));
+        verify(valueOperations).set("hotarmor:test:resource:admitted", "dbValue", 300, TimeUnit.SECONDS);
+        verify(topic).publishAsync("hotarmor:test:resource:admitted");
+    }
+
+    /**
+     * 测试错误缓存：窗口内同一 key 只访问一次数据库，之后复用无堆栈异常；删除缓存后重新回源
+     */
+    @Test
+    public void testErrorCache_OneDbCallPerWindow() throws InterruptedException {
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("bad")
+                .build();
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .errorCacheEnabled(true)
+                .errorCacheTtlMs(60000)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        HotArmorLoadException dbError = new HotArmorLoadException("timeout", null, context,
+                HotArmorLoadException.LoadFailureReason.TIMEOUT);
+        when(dbLoader.apply("bad")).thenThrow(dbError);
+
+        try {
+            l4SafeLoader.load(context, dbLoader);
+            fail("Expected HotArmorLoadException");
+        } catch (HotArmorLoadException e) {
+            assertSame(dbError, e);
+        }
+
+        HotArmorLoadException first = null;
+        for (int i = 0; i < 5; i++) {
+            try {
+                l4SafeLoader.load(context, dbLoader);
+                fail("Expected cached HotArmorLoadException");
+            } catch (HotArmorLoadException e) {
+                assertEquals(HotArmorLoadException.LoadFailureReason.TIMEOUT, e.getReason());
+                assertEquals(0, e.getStackTrace().length);
+                if (first == null) {
+                    first = e;
+                }
+                assertSame(first, e);
+            }
+        }
+        verify(dbLoader, times(1)).apply("bad");
+
+        // 删除缓存后不再使用之前的失败记录
+        l4SafeLoader.deleteFromRedis(context);
+        reset(dbLoader);
+        when(dbLoader.apply("bad")).thenReturn("fixed");
+        assertEquals("fixed", l4SafeLoader.load(context, dbLoader));
+    }
+
+    /**
+     * 测试热点副本：热点 key 回写时同时写入副本，删除时删除主键和全部副本
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testHotReplica_WriteAndDelete() throws InterruptedException {
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .hotReplicaCount(3)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        doReturn(serializer).when(redisTemplate).getKeySerializer();
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(mock(RTopic.class));
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(dbLoader.apply("key1")).thenReturn("dbValue");
+
+        // 非热点：只写主键
+        HotArmorContext normal = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(normal, dbLoader));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+
+        // 热点：主键 + 副本
+        HotArmorContext hot = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .hotspot(true)
+                .build();
+        assertEquals("dbValue", l4SafeLoader.load(hot, dbLoader));
+        verify(valueOperations, times(2)).set("hotarmor:test:resource:key1", "dbValue", 300, TimeUnit.SECONDS);
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        // 删除时不论是否热点都删除全部副本（先删主键再删副本）
+        l4SafeLoader.deleteFromRedis(normal);
+        verify(redisTemplate).delete("hotarmor:test:resource:key1");
+        verify(redisTemplate).delete(Arrays.asList(
+                "hotarmor:test:resource:key1#r0", "hotarmor:test:resource:key1#r1", "hotarmor:test:resource:key1#r2"));
+
+        // 调小副本数后仍删除序号更大的旧副本
+        l4SafeLoader.registerConfig("test:resource", HotArmorRule.L4LoaderConfig.builder()
+                .hotReplicaCount(1)
+                .build());
+        clearInvocations(redisTemplate);
+        l4SafeLoader.deleteFromRedis(normal);
+        verify(redisTemplate).delete(Arrays.asList(
+                "hotarmor:test:resource:key1#r0", "hotarmor:test:resource:key1#r1", "hotarmor:test:resource:key1#r2"));
+    }
+
+    /**
+     * 测试从节点读：普通读取走从节点，本节点写入后窗口内读主节点
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadFromReplica_ReadYourWrites() {
+        RedisTemplate<String, Object> replicaTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> replicaOps = mock(ValueOperations.class);
+        when(replicaTemplate.opsForValue()).thenReturn(replicaOps);
+        l4SafeLoader.setReplicaRedisTemplate(replicaTemplate);
+
+        HotArmorRule.L4LoaderConfig config = HotArmorRule.L4LoaderConfig.builder()
+                .readFromReplicaEnabled(true)
+                .replicaReadAfterWriteMs(60000)
+                .build();
+        l4SafeLoader.registerConfig("test:resource", config);
+
+        HotArmorContext context = HotArmorContext.builder()
+                .resource("test:resource")
+                .key("key1")
+                .build();
+        when(replicaOps.get("hotarmor:test:resource:key1")).thenReturn("replicaValue");
+        when(valueOperations.get("hotarmor:test:resource:key1")).thenReturn("masterValue");
+
+        assertEquals("replicaValue", l4SafeLoader.getFromRedis(context));
+        verify(valueOperations, never()).get(anyString());
+
+        // 本节点写入后读主节点
+        l4SafeLoader.putToRedis(context, "masterValue");
+        assertEquals("masterValue", l4SafeLoader.getFromRedis(context));
+        verify(replicaOps, times(1)).get("hotarmor:test:resource:key1");
+    }
+
+    /**
+     * 测试 Redis 不可用时旁路：不访问 Redis 和回源锁，进程内回源结果由本地替代缓存提供
+     */
+    @Test
+    public void testRedisBypass_SkipsRedisAndLock() {
+        RedisHealthTracker tracker = new RedisHealthTracker(redisTemplate, 10000, 5, 0.5, 200, 0.8, 60000);
+        l4SafeLoader.setRedisHealthTracker(tracker, 300, 1000);
+        l4SafeLoader.registerConfig("test:resource", HotArmorRule.L4LoaderConfig.builder().build());
+        try {
+            for (int i = 0; i < 5; i++) {
+                tracker.record(1, true);
+            }
+            assertFalse(tracker.isAvailable());
+
+            HotArmorContext context = HotArmorContext.builder()
+                    .resource("test:resource")
+                    .key("key1")
+                    .build();
+            when(dbLoader.apply("key1")).thenReturn("dbValue");
+
+            assertEquals("dbValue", l4SafeLoader.load(context, dbLoader));
+            assertEquals("dbValue", l4SafeLoader.load(context, dbLoader));
+
+            verify(dbLoader, times(1)).apply("key1");
+            verify(valueOperations, never()).get(anyString());
+            verify(redissonClient, never()).getLock(anyString());
+            assertEquals(1, tracker.getTripCount());
+        } finally {
+            tracker.shutdown();
+        }
+    }
 }
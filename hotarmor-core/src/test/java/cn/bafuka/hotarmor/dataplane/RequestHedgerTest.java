@@ -0,0 +1,183 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.RequestHedger;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * RequestHedger 单元测试
+ */
+public class RequestHedgerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static void warmUp(RequestHedger hedger, long latencyMicros) {
+        for (int i = 0; i < 64; i++) {
+            hedger.record(latencyMicros);
+        }
+    }
+
+    /**
+     * 测试样本不足时不对冲
+     */
+    @Test
+    public void testNoHedgeBeforeWarmUp() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 5);
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        String result = hedger.call(scheduler, () -> {
+            Thread.sleep(50);
+            return "primary";
+        }, () -> {
+            hedgeCalls.incrementAndGet();
+            return "hedge";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(0, hedgeCalls.get());
+        assertEquals(-1, hedger.getDelayMicros());
+    }
+
+    /**
+     * 测试主请求超过对冲延迟时对冲请求先返回
+     */
+    @Test
+    public void testSlowPrimary_HedgeWins() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 5);
+        warmUp(hedger, 1000);
+        assertEquals(1000, hedger.getDelayMicros());
+
+        long start = System.currentTimeMillis();
+        String result = hedger.call(scheduler, () -> {
+            Thread.sleep(2000);
+            return "primary";
+        }, () -> "hedge");
+
+        assertEquals("hedge", result);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(1, hedger.getHedgedCount());
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    /**
+     * 测试主请求在调用线程执行，主请求先返回时不发出对冲请求
+     */
+    @Test
+    public void testPrimaryRunsOnCallerThread() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 50, 5);
+        warmUp(hedger, 1000);
+        AtomicReference<Thread> primaryThread = new AtomicReference<>();
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        String result = hedger.call(scheduler, () -> {
+            primaryThread.set(Thread.currentThread());
+            return "primary";
+        }, () -> {
+            hedgeCalls.incrementAndGet();
+            return "hedge";
+        });
+
+        assertEquals("primary", result);
+        assertSame(Thread.currentThread(), primaryThread.get());
+        Thread.sleep(100);
+        assertEquals(0, hedgeCalls.get());
+        assertEquals(0, hedger.getHedgedCount());
+    }
+
+    /**
+     * 测试主请求失败而对冲请求已发出时返回对冲结果
+     */
+    @Test
+    public void testPrimaryFails_HedgeResultReturned() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 5);
+        warmUp(hedger, 1000);
+
+        String result = hedger.call(scheduler, () -> {
+            Thread.sleep(20);
+            throw new IllegalStateException("primary failed");
+        }, () -> {
+            Thread.sleep(100);
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    /**
+     * 测试线程池模式下主请求在线程池中执行，对冲请求先返回
+     */
+    @Test
+    public void testCallPooled_HedgeWins() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 5);
+        warmUp(hedger, 1000);
+        AtomicReference<Thread> primaryThread = new AtomicReference<>();
+
+        String result = hedger.callPooled(executor, () -> {
+            primaryThread.set(Thread.currentThread());
+            Thread.sleep(2000);
+            return "primary";
+        }, () -> "hedge");
+
+        assertEquals("hedge", result);
+        assertNotSame(Thread.currentThread(), primaryThread.get());
+        assertEquals(1, hedger.getHedgedCount());
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    /**
+     * 测试对冲请求失败时仍返回主请求结果
+     */
+    @Test
+    public void testHedgeFails_PrimaryResultReturned() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 5);
+        warmUp(hedger, 1000);
+
+        String result = hedger.call(scheduler, () -> {
+            Thread.sleep(50);
+            return "primary";
+        }, () -> {
+            throw new IllegalStateException("hedge failed");
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, hedger.getHedgedCount());
+        assertEquals(0, hedger.getHedgeWinCount());
+    }
+
+    /**
+     * 测试预算耗尽后不再对冲
+     */
+    @Test
+    public void testBudgetCapsHedges() throws Exception {
+        RequestHedger hedger = new RequestHedger(95, 1, 1);
+        warmUp(hedger, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            hedger.call(scheduler, () -> {
+                Thread.sleep(5);
+                return "primary";
+            }, () -> "hedge");
+        }
+
+        // 初始额度 10 次，20 个请求按 1% 积累的额度不足一次
+        assertEquals(10, hedger.getHedgedCount());
+    }
+}
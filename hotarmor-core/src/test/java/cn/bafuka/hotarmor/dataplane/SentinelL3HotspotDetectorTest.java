@@ -0,0 +1,100 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.core.HotArmorContext;
+import cn.bafuka.hotarmor.dataplane.impl.SentinelL3HotspotDetector;
+import cn.bafuka.hotarmor.model.HotArmorRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SentinelL3HotspotDetector 自适应阈值单元测试
+ */
+public class SentinelL3HotspotDetectorTest {
+
+    private static final String RESOURCE = "test:adaptive";
+
+    private SentinelL3HotspotDetector detector;
+
+    @Before
+    public void setUp() {
+        detector = new SentinelL3HotspotDetector();
+        detector.updateRule(RESOURCE, 100000, 1);
+        detector.registerConfig(RESOURCE, HotArmorRule.L3HotspotConfig.builder()
+                .qpsThreshold(100000)
+                .durationInSec(1)
+                .adaptiveEnabled(true)
+                .adaptivePercentile(90)
+                .adaptiveMinQps(1)
+                .adaptiveMaxQps(100000)
+                .adaptiveIntervalSeconds(3600)
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        detector.removeRule(RESOURCE);
+        detector.shutdown();
+    }
+
+    private static HotArmorContext context(String key) {
+        return HotArmorContext.builder()
+                .resource(RESOURCE)
+                .key(key)
+                .build();
+    }
+
+    /**
+     * 等到下一个整秒之后，保证本次记录落在同一个 1 秒桶内且该桶随后完整
+     */
+    private static void awaitNextSecond() throws InterruptedException {
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 20);
+    }
+
+    /**
+     * 测试阈值跟随 key 速率分布的分位数
+     */
+    @Test
+    public void testThresholdFollowsDistribution() throws InterruptedException {
+        awaitNextSecond();
+        for (int i = 1; i <= 20; i++) {
+            HotArmorContext context = context("key" + i);
+            for (int j = 0; j < i * 10; j++) {
+                detector.isHotspot(context);
+            }
+        }
+        awaitNextSecond();
+
+        detector.recomputeAdaptiveThreshold(RESOURCE);
+
+        // 20 个 key 的 p90 为第 18 个：180 QPS
+        assertEquals(180, detector.getEffectiveQpsThreshold(RESOURCE), 0.001);
+    }
+
+    /**
+     * 测试已进入 L1 的热点 key 通过 L1 命中继续参与统计，阈值不会被普通 key 拉低
+     */
+    @Test
+    public void testL1HitsKeepThresholdHigh() throws InterruptedException {
+        awaitNextSecond();
+        for (int i = 0; i < 10; i++) {
+            HotArmorContext context = context("cold" + i);
+            for (int j = 0; j < 5; j++) {
+                detector.isHotspot(context);
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            HotArmorContext context = context("hot" + i);
+            for (int j = 0; j < 500; j++) {
+                detector.recordAccess(context);
+            }
+        }
+        awaitNextSecond();
+
+        detector.recomputeAdaptiveThreshold(RESOURCE);
+
+        assertEquals(500, detector.getEffectiveQpsThreshold(RESOURCE), 0.001);
+    }
+}
@@ -0,0 +1,80 @@
+package cn.bafuka.hotarmor.dataplane;
+
+import cn.bafuka.hotarmor.dataplane.impl.ValueCompressor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * ValueCompressor 单元测试
+ */
+public class ValueCompressorTest {
+
+    private ValueCompressor.Stats stats;
+    private ValueCompressor compressor;
+
+    @Before
+    public void setUp() {
+        stats = new ValueCompressor.Stats();
+        compressor = new ValueCompressor(1024, stats);
+    }
+
+    private static byte[] largeJson() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"product-").append(i).append("\"},");
+        }
+        return sb.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 测试大值压缩与解压
+     */
+    @Test
+    public void testCompressRoundTrip() {
+        byte[] raw = largeJson();
+
+        byte[] compressed = compressor.compress(raw);
+
+        assertTrue(ValueCompressor.isCompressed(compressed));
+        assertTrue(compressed.length < raw.length);
+        assertArrayEquals(raw, compressor.decompress(compressed));
+        assertEquals(1, stats.getCompressedCount());
+        assertEquals(1, stats.getDecompressedCount());
+        assertEquals(raw.length - compressed.length, stats.getBytesSaved());
+    }
+
+    /**
+     * 测试阈值以下的值不压缩，解压时原样返回
+     */
+    @Test
+    public void testSmallValueUntouched() {
+        byte[] raw = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] result = compressor.compress(raw);
+
+        assertSame(raw, result);
+        assertFalse(ValueCompressor.isCompressed(result));
+        assertSame(raw, compressor.decompress(result));
+        assertEquals(0, stats.getCompressedCount());
+    }
+
+    /**
+     * 测试不可压缩的数据放弃压缩
+     */
+    @Test
+    public void testIncompressibleValueSkipped() {
+        byte[] raw = new byte[4096];
+        new Random(42).nextBytes(raw);
+
+        byte[] result = compressor.compress(raw);
+
+        assertSame(raw, result);
+        assertEquals(1, stats.getSkippedCount());
+        assertEquals(0, stats.getBytesSaved());
+    }
+}
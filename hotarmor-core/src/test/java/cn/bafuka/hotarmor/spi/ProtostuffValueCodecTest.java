@@ -0,0 +1,83 @@
+package cn.bafuka.hotarmor.spi;
+
+import cn.bafuka.hotarmor.spi.impl.ProtostuffValueCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * ProtostuffValueCodec 单元测试
+ */
+public class ProtostuffValueCodecTest {
+
+    private final ProtostuffValueCodec codec = new ProtostuffValueCodec();
+
+    /**
+     * 测试 POJO 按 schema 编解码
+     */
+    @Test
+    public void testPojoRoundTrip() {
+        Product product = new Product(1001L, "iPhone", 5999.0, Arrays.asList("phone", "apple"));
+
+        byte[] bytes = codec.encode(product, Product.class);
+        Object decoded = codec.decode(bytes, Product.class);
+
+        assertEquals(product, decoded);
+        // schema 编码不包含类名
+        assertFalse(new String(bytes).contains(Product.class.getName()));
+    }
+
+    /**
+     * 测试声明类型未知时使用包装编码
+     */
+    @Test
+    public void testUnknownTypeRoundTrip() {
+        Product product = new Product(1L, "name", 1.0, new ArrayList<>());
+
+        byte[] bytes = codec.encode(product, null);
+
+        assertEquals(product, codec.decode(bytes, null));
+    }
+
+    /**
+     * 测试基础类型和集合
+     */
+    @Test
+    public void testSimpleValues() {
+        assertEquals("hello", codec.decode(codec.encode("hello", String.class), String.class));
+        assertEquals(42, codec.decode(codec.encode(42, Integer.class), Integer.class));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", 1L);
+        map.put("name", "test");
+        assertEquals(map, codec.decode(codec.encode(map, Map.class), Map.class));
+    }
+
+    /**
+     * 测试 null 值
+     */
+    @Test
+    public void testNull() {
+        assertNull(codec.encode(null, Product.class));
+        assertNull(codec.decode(null, Product.class));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Product {
+        private Long id;
+        private String name;
+        private Double price;
+        private List<String> tags;
+    }
+}
@@ -0,0 +1,134 @@
+package cn.bafuka.hotarmor.spi;
+
+import cn.bafuka.hotarmor.spi.impl.SetNxLockStrategy;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SetNxLockStrategy 单元测试
+ */
+public class SetNxLockStrategyTest {
+
+    private SetNxLockStrategy strategy;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getKeySerializer();
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        strategy = new SetNxLockStrategy(redisTemplate);
+    }
+
+    /**
+     * 测试加锁使用 SET NX PX，回写与解锁合并为一次 Lua 调用
+     */
+    @Test
+    public void testLockAndWriteAndUnlock() throws Exception {
+        byte[] lockKey = "{hotarmor:test:key1}:lock".getBytes();
+        when(connection.set(eq(lockKey), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT))).thenReturn(true);
+        when(connection.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), any(byte[].class)))
+                .thenReturn(1L);
+
+        LockStrategy.Lock lock = strategy.tryLock("hotarmor:test:key1", 0, 5000);
+        assertNotNull(lock);
+        assertTrue(lock.supportsWriteAndUnlock());
+
+        byte[] rawKey = "hotarmor:test:key1".getBytes();
+        byte[] value = "value".getBytes();
+        assertTrue(lock.writeAndUnlock(rawKey, value, 300, () -> fail("atomic write expected")));
+
+        ArgumentCaptor<byte[]> argsCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), argsCaptor.capture());
+        // KEYS: 锁键、缓存键；ARGV: 令牌、值、TTL
+        assertArrayEquals(lockKey, argsCaptor.getAllValues().get(0));
+        assertArrayEquals(rawKey, argsCaptor.getAllValues().get(1));
+        assertArrayEquals(value, argsCaptor.getAllValues().get(3));
+        assertArrayEquals("300".getBytes(), argsCaptor.getAllValues().get(4));
+    }
+
+    /**
+     * 测试锁被占用时等待超时返回 null
+     */
+    @Test
+    public void testTryLockTimeout() throws Exception {
+        when(connection.set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT))).thenReturn(false);
+
+        long start = System.currentTimeMillis();
+        assertNull(strategy.tryLock("hotarmor:test:key1", 100, 5000));
+        assertTrue(System.currentTimeMillis() - start >= 90);
+        verify(connection, atLeast(2)).set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT));
+    }
+
+    /**
+     * 测试缓存键含 hash tag 时不合并回写与解锁
+     */
+    @Test
+    public void testHashTagKeyFallsBackToSeparateUnlock() throws Exception {
+        when(connection.set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT))).thenReturn(true);
+
+        LockStrategy.Lock lock = strategy.tryLock("hotarmor:{user}:1", 0, 5000);
+        assertNotNull(lock);
+        assertFalse(lock.supportsWriteAndUnlock());
+
+        lock.unlock();
+        verify(connection).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+    }
+
+    /**
+     * 测试锁已过期时原子回写不写入
+     */
+    @Test
+    public void testWriteAndUnlockSkippedWhenLockLost() throws Exception {
+        when(connection.set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT))).thenReturn(true);
+        when(connection.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(2), any(byte[].class)))
+                .thenReturn(0L);
+
+        LockStrategy.Lock lock = strategy.tryLock("hotarmor:test:key1", 0, 5000);
+        assertNotNull(lock);
+        assertFalse(lock.writeAndUnlock("hotarmor:test:key1".getBytes(), "value".getBytes(), 300,
+                () -> fail("plain write not expected")));
+    }
+
+    /**
+     * 测试不支持原子回写时先普通写入再解锁
+     */
+    @Test
+    public void testWriteAndUnlockDefaultWritesThenUnlocks() throws Exception {
+        when(connection.set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                eq(RedisStringCommands.SetOption.SET_IF_ABSENT))).thenReturn(true);
+
+        LockStrategy.Lock lock = strategy.tryLock("hotarmor:{user}:1", 0, 5000);
+        assertNotNull(lock);
+        Runnable write = mock(Runnable.class);
+        assertTrue(lock.writeAndUnlock("hotarmor:{user}:1".getBytes(), "value".getBytes(), 300, write));
+
+        verify(write).run();
+        verify(connection).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), any(byte[].class));
+    }
+}